@@ -8,7 +8,7 @@ export default function App() {
   useEffect(() => {
     async function load() {
       try {
-        const res = await fetch('/api/books')
+        const res = await fetch('/api/books?fields=id,title,author,isbn,price,description')
         // diagnostic: store status and raw body if not ok
         if (!res.ok) {
           const txt = await res.text().catch(()=>'<no-body>')
@@ -18,6 +18,8 @@ public class ApiClient {
     private final HttpClient http;
     private final ObjectMapper mapper;
     private static volatile String sessionCookie; // shared JSESSIONID=...
+    // path -> {ETag, body} of the last 200, revalidated with If-None-Match
+    private final Map<String, String[]> conditional = new java.util.concurrent.ConcurrentHashMap<>();
 
     public ApiClient() {
         this(System.getenv().getOrDefault("BOOKSTORE_API_BASE", "http://localhost:8080/api"));
@@ -67,13 +69,10 @@ public class ApiClient {
     }
 
     public List<Map<String, Object>> searchBooks(String query) throws IOException, InterruptedException {
-        HttpRequest req = requestBuilder("/books/search?q=" + url(query))
-                .GET()
-                .build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) return List.of();
+        String body = getConditional("/books/search?q=" + url(query));
+        if (body == null) return List.of();
         // Controller returns a Spring Page object; extract 'content' if present.
-        Map<String, Object> page = mapper.readValue(resp.body(), new TypeReference<Map<String, Object>>(){});
+        Map<String, Object> page = mapper.readValue(body, new TypeReference<Map<String, Object>>(){});
         Object content = page.get("content");
         if (content instanceof List) {
             //noinspection unchecked
@@ -84,17 +83,41 @@ public class ApiClient {
 
     public Map<String, Object> placeOrder(List<Map<String, Object>> items) throws IOException, InterruptedException {
         Map<String, Object> body = Map.of("items", items);
+        // the key makes the retry safe: if the first attempt reached the server, its order is replayed
         HttpRequest req = requestBuilder("/orders")
                 .header("Content-Type", "application/json")
+                .header("Idempotency-Key", UUID.randomUUID().toString())
                 .POST(jsonBody(body))
                 .build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> resp;
+        try {
+            resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        }
         if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
             return mapper.readValue(resp.body(), new TypeReference<>(){});
         }
         throw new IOException("Order failed: status=" + resp.statusCode() + ", body=" + resp.body());
     }
 
+    // --- Cart holds: stock set aside on the server until checkout or expiry ---
+    public Map<String, Object> placeHold(long bookId, int quantity) throws IOException, InterruptedException {
+        HttpRequest req = requestBuilder("/holds")
+                .header("Content-Type", "application/json")
+                .POST(jsonBody(Map.of("bookId", bookId, "quantity", quantity)))
+                .build();
+        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() == 201) return mapper.readValue(resp.body(), new TypeReference<>(){});
+        throw new IOException("Hold failed: status=" + resp.statusCode() + ", body=" + resp.body());
+    }
+
+    public boolean releaseHold(long holdId) throws IOException, InterruptedException {
+        HttpRequest req = requestBuilder("/holds/" + holdId).DELETE().build();
+        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        return resp.statusCode() == 204;
+    }
+
     public List<Map<String, Object>> adminListOrders() throws IOException, InterruptedException {
         HttpRequest req = requestBuilder("/admin/orders").GET().build();
         HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
@@ -178,6 +201,13 @@ public class ApiClient {
         throw new IOException("Create book failed: status=" + resp.statusCode() + ", body=" + resp.body());
     }
 
+    public Map<String,Object> getBook(long id) throws IOException, InterruptedException {
+        HttpRequest req = requestBuilder("/books/"+id).GET().build();
+        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() == 200) return mapper.readValue(resp.body(), new TypeReference<>(){});
+        throw new IOException("Get book failed: status=" + resp.statusCode() + ", body=" + resp.body());
+    }
+
     public Map<String,Object> updateBook(long id, Map<String,Object> reqBody) throws IOException, InterruptedException {
         HttpRequest req = requestBuilder("/books/"+id)
                 .header("Content-Type","application/json")
@@ -194,6 +224,18 @@ public class ApiClient {
         return resp.statusCode() == 204;
     }
 
+    // GET that reuses the cached body when the server answers 304; null on any other non-200 status
+    private String getConditional(String path) throws IOException, InterruptedException {
+        String[] cached = conditional.get(path);
+        HttpRequest.Builder b = requestBuilder(path).GET();
+        if (cached != null) b.header("If-None-Match", cached[0]);
+        HttpResponse<String> resp = http.send(b.build(), HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() == 304 && cached != null) return cached[1];
+        if (resp.statusCode() != 200) return null;
+        resp.headers().firstValue("ETag").ifPresent(etag -> conditional.put(path, new String[] { etag, resp.body() }));
+        return resp.body();
+    }
+
     private HttpRequest.Builder requestBuilder(String path) {
         HttpRequest.Builder b = HttpRequest.newBuilder()
                 .uri(URI.create(baseUrl + path))
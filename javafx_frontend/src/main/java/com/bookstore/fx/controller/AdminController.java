@@ -204,6 +204,10 @@ public class AdminController {
         Number idn = num(sel.get("id")); if (idn == null) { booksStatus.setText("Invalid id"); return; }
         long id = idn.longValue();
 
+        // list rows leave out the description; load the full book so saving does not clear it
+        Map<String,Object> full = sel;
+        try { full = api.getBook(id); } catch (Exception e) { booksStatus.setText("Could not load book: " + e.getMessage()); return; }
+
         // build a dialog with fields prefilled
         Dialog<Map<String,String>> dlg = new Dialog<>();
         dlg.setTitle("Edit Book");
@@ -211,11 +215,11 @@ public class AdminController {
         dlg.getDialogPane().getButtonTypes().addAll(ok, ButtonType.CANCEL);
 
         GridPane grid = new GridPane(); grid.setHgap(8); grid.setVgap(8);
-        TextField titleTf = new TextField(str(sel.get("title")));
-        TextField authorTf = new TextField(str(sel.get("author")));
-        TextField priceTf = new TextField(str(sel.get("price")));
-        TextField stockTf = new TextField(str(sel.get("stock")));
-        TextField descTf = new TextField(str(sel.get("description")));
+        TextField titleTf = new TextField(str(full.get("title")));
+        TextField authorTf = new TextField(str(full.get("author")));
+        TextField priceTf = new TextField(str(full.get("price")));
+        TextField stockTf = new TextField(str(full.get("stock")));
+        TextField descTf = new TextField(str(full.get("description")));
 
         grid.add(new Label("Title"), 0, 0); grid.add(titleTf, 1, 0);
         grid.add(new Label("Author"), 0, 1); grid.add(authorTf, 1, 1);
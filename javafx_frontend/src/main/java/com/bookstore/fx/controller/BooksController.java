@@ -84,13 +84,22 @@ public class BooksController {
             if (rentalDays == null) rentalDays = 7; // default rental period
         }
         Map<String,Object> cartItem = new HashMap<>();
+        // hold the copies on the server so they are still there at checkout
+        try {
+            Map<String,Object> hold = api.placeHold(((Number) selected.get("id")).longValue(), qty);
+            cartItem.put("holdId", hold.get("id"));
+            cartItem.put("heldUntil", hold.get("expiresAt"));
+        } catch (IOException | InterruptedException e) {
+            statusLabel.setText("Could not hold book: " + e.getMessage());
+            return;
+        }
         cartItem.put("bookId", selected.get("id"));
         cartItem.put("title", selected.get("title"));
         cartItem.put("quantity", qty);
         cartItem.put("itemType", type);
         if (rentalDays != null) cartItem.put("rentalDays", rentalDays);
         cartData.add(cartItem);
-        statusLabel.setText("Added to cart");
+        statusLabel.setText("Added to cart, held until " + cartItem.get("heldUntil"));
     }
 
     @FXML
@@ -99,6 +108,13 @@ public class BooksController {
         if (sel != null) {
             cartData.remove(sel);
             statusLabel.setText("Removed");
+            if (sel.get("holdId") instanceof Number) {
+                try {
+                    api.releaseHold(((Number) sel.get("holdId")).longValue());
+                } catch (IOException | InterruptedException ignored) {
+                    // the hold expires on its own
+                }
+            }
         }
     }
 
@@ -0,0 +1,89 @@
+package com.bookstore.cache;
+
+import com.bookstore.dto.BookSummary;
+import com.bookstore.model.Book;
+import com.bookstore.search.CatalogIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of single books and offset list pages in front of {@code BookRepository}.
+ * It follows the catalog as a {@link CatalogIndex}, so every committed create, update, delete and
+ * stock change (the JPA listener sees order checkouts too) drops the book and all cached pages.
+ * Weights approximate bytes of string data.
+ */
+@Component
+public class BookCache implements CatalogIndex {
+
+    // per-object overhead added to the character data when weighing entries
+    private static final long OVERHEAD = 96;
+
+    private final TinyLfuCache<Long, Book> books;
+    private final TinyLfuCache<String, Page<BookSummary>> pages;
+
+    public BookCache(@Value("${app.cache.books.max-weight:33554432}") long booksMaxWeight,
+                     @Value("${app.cache.book-pages.max-weight:8388608}") long pagesMaxWeight) {
+        this.books = new TinyLfuCache<>(booksMaxWeight, booksMaxWeight / 1024, BookCache::weigh);
+        this.pages = new TinyLfuCache<>(pagesMaxWeight, pagesMaxWeight / 4096, BookCache::weigh);
+    }
+
+    /** Copy of the book, loaded with {@code loader} on a miss. */
+    public Optional<Book> book(Long id, Function<Long, Optional<Book>> loader) {
+        Book cached = books.get(id, k -> loader.apply(k).map(Book::copy).orElse(null));
+        return Optional.ofNullable(cached).map(Book::copy);
+    }
+
+    public Page<BookSummary> page(Pageable pageable, Function<Pageable, Page<BookSummary>> loader) {
+        if (pageable.isUnpaged()) return loader.apply(pageable);
+        String key = pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+        return pages.get(key, k -> loader.apply(pageable));
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> out = new LinkedHashMap<>();
+        out.put("books", books.stats());
+        out.put("bookPages", pages.stats());
+        return out;
+    }
+
+    @Override
+    public void clear() {
+        books.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    @Override
+    public void put(Book book) {
+        books.invalidate(book.getId());
+        pages.invalidateAll();
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        books.invalidate(bookId);
+        pages.invalidateAll();
+    }
+
+    private static long weigh(Book b) {
+        return OVERHEAD + 2L * (length(b.getTitle()) + length(b.getAuthor()) + length(b.getIsbn()) + length(b.getDescription()));
+    }
+
+    private static long weigh(Page<BookSummary> page) {
+        long w = OVERHEAD;
+        for (BookSummary b : page.getContent()) {
+            w += OVERHEAD + 2L * (length(b.getTitle()) + length(b.getAuthor()) + length(b.getIsbn()));
+        }
+        return w;
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
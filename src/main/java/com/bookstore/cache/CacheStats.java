@@ -0,0 +1,40 @@
+package com.bookstore.cache;
+
+/**
+ * Point-in-time counters of a {@link TinyLfuCache}.
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+    private final long weight;
+    private final long maxWeight;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long size, long weight, long maxWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+    }
+
+    public long getHitCount() { return hitCount; }
+
+    public long getMissCount() { return missCount; }
+
+    public long getEvictionCount() { return evictionCount; }
+
+    public long getSize() { return size; }
+
+    public long getWeight() { return weight; }
+
+    public long getMaxWeight() { return maxWeight; }
+
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+}
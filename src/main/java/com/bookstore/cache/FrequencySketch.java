@@ -0,0 +1,70 @@
+package com.bookstore.cache;
+
+/**
+ * Count-min sketch of access frequencies with 4-bit counters, used by {@link TinyLfuCache} to decide
+ * admission. Sixteen counters are packed per {@code long}; each key maps to four of them (one per hash
+ * row) and its estimate is the smallest. Once {@code 10 x width} increments have been recorded all
+ * counters are halved, so the estimate follows recent popularity rather than all-time totals.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int width = Integer.highestOneBit((int) Math.max(16, Math.min(expectedEntries, 1 << 24)) - 1) << 1;
+        this.table = new long[width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /** Estimated recent accesses of {@code key}, 0 to 15. */
+    int frequency(Object key) {
+        int h = spread(key.hashCode());
+        int start = (h & 3) << 2;
+        int freq = 15;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            freq = Math.min(freq, (int) ((table[slot(h, i)] >>> offset) & 0xfL));
+        }
+        return freq;
+    }
+
+    void increment(Object key) {
+        int h = spread(key.hashCode());
+        int start = (h & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = slot(h, i);
+            int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & RESET_MASK;
+        additions >>>= 1;
+    }
+
+    private int slot(int h, int row) {
+        long hash = (h + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
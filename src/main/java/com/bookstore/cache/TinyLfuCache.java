@@ -0,0 +1,271 @@
+package com.bookstore.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded, weight-aware read-through cache with W-TinyLFU eviction. New entries enter a small LRU
+ * window (1% of the weight); entries leaving the window compete with the least recently used entry of
+ * the main segmented LRU and are only admitted if a {@link FrequencySketch} says they are requested
+ * more often. One-hit wonders from a scan or crawl therefore cannot flush the popular working set.
+ * <p>
+ * Hits do not take the lock: they are looked up in a concurrent map and recorded in a striped, lossy
+ * read buffer, which is replayed into the sketch and the LRU order under the lock once a stripe fills up
+ * or the next miss arrives. When the lock is busy and a stripe is full, the hit is simply not recorded.
+ * <p>
+ * Entries heavier than the main segments are never stored; a max weight of 0 disables the cache. Loads
+ * run outside the lock and are not coalesced; a load that overlaps an invalidation is returned but not
+ * stored, so a slow reader can never put back a value that a concurrent write has just invalidated.
+ */
+public final class TinyLfuCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final int STRIPES = stripes();
+    private static final int BUFFER_SIZE = 16;
+
+    private final long maxWeight;
+    private final long windowMax;
+    private final long protectedMax;
+    private final ToLongFunction<? super V> weigher;
+    private final FrequencySketch sketch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // read without the lock on hits; only changed under it
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final ReadBuffer<K, V>[] readBuffers = new ReadBuffer[STRIPES];
+    // circular lists with a sentinel each: head.next is least recently used, head.prev most recently
+    @SuppressWarnings("unchecked")
+    private final Node<K, V>[] queues = new Node[] { new Node<>(), new Node<>(), new Node<>() };
+    private final long[] queueWeight = new long[3];
+    private long generation;
+    private final LongAdder hits = new LongAdder();
+    private long misses;
+    private long evictions;
+
+    public TinyLfuCache(long maxWeight, long expectedEntries, ToLongFunction<? super V> weigher) {
+        this.maxWeight = Math.max(0, maxWeight);
+        this.windowMax = Math.max(1, this.maxWeight / 100);
+        this.protectedMax = (this.maxWeight - windowMax) * 8 / 10;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+        for (int i = 0; i < STRIPES; i++) readBuffers[i] = new ReadBuffer<>();
+    }
+
+    /** Returns the cached value or loads, stores and returns it; a null from {@code loader} is not cached. */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> cached = data.get(key);
+        if (cached != null) {
+            hits.increment();
+            ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+            if (buffer.offer(cached) >= BUFFER_SIZE && lock.tryLock()) {
+                try {
+                    drainReadBuffers();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return cached.value;
+        }
+        long observed;
+        lock.lock();
+        try {
+            drainReadBuffers();
+            sketch.increment(key);
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                // stored by a concurrent load since the lookup above
+                hits.increment();
+                onHit(node);
+                return node.value;
+            }
+            misses++;
+            observed = generation;
+        } finally {
+            lock.unlock();
+        }
+        V value = loader.apply(key);
+        if (value == null) return null;
+        lock.lock();
+        try {
+            if (observed == generation && !data.containsKey(key)) insert(key, value);
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation++;
+            Node<K, V> node = data.remove(key);
+            if (node != null) unlink(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            if (data.isEmpty()) return;
+            data.clear();
+            for (int q = 0; q < queues.length; q++) {
+                queues[q].next = queues[q].prev = queues[q];
+                queueWeight[q] = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            return new CacheStats(hits.sum(), misses, evictions, data.size(),
+                    queueWeight[WINDOW] + queueWeight[PROBATION] + queueWeight[PROTECTED], maxWeight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Replays buffered hits; entries evicted or invalidated since their hit are skipped
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(node -> {
+                sketch.increment(node.key);
+                if (data.get(node.key) == node) onHit(node);
+            });
+        }
+    }
+
+    private void onHit(Node<K, V> node) {
+        if (node.queue == PROBATION) {
+            // a second hit promotes to the protected segment, which spills its LRU back to probation
+            unlink(node);
+            link(node, PROTECTED);
+            while (queueWeight[PROTECTED] > protectedMax) {
+                Node<K, V> demoted = queues[PROTECTED].next;
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        } else {
+            int queue = node.queue;
+            unlink(node);
+            link(node, queue);
+        }
+    }
+
+    private void insert(K key, V value) {
+        long weight = Math.max(1, weigher.applyAsLong(value));
+        if (weight > maxWeight - windowMax) return;
+        Node<K, V> node = new Node<>();
+        node.key = key;
+        node.value = value;
+        node.weight = weight;
+        data.put(key, node);
+        link(node, WINDOW);
+        while (queueWeight[WINDOW] > windowMax) {
+            Node<K, V> candidate = queues[WINDOW].next;
+            unlink(candidate);
+            admit(candidate);
+        }
+    }
+
+    // Makes room in the main segments for a window evictee, or drops it if the victims are more popular
+    private void admit(Node<K, V> candidate) {
+        long mainMax = maxWeight - windowMax;
+        int candidateFreq = sketch.frequency(candidate.key);
+        while (queueWeight[PROBATION] + queueWeight[PROTECTED] + candidate.weight > mainMax) {
+            Node<K, V> victim = queues[PROBATION].next != queues[PROBATION] ? queues[PROBATION].next : queues[PROTECTED].next;
+            if (victim == queues[PROTECTED] || candidateFreq <= sketch.frequency(victim.key)) {
+                data.remove(candidate.key);
+                evictions++;
+                return;
+            }
+            unlink(victim);
+            data.remove(victim.key);
+            evictions++;
+        }
+        link(candidate, PROBATION);
+    }
+
+    private void link(Node<K, V> node, int queue) {
+        Node<K, V> head = queues[queue];
+        node.queue = queue;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        queueWeight[queue] += node.weight;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+        queueWeight[node.queue] -= node.weight;
+    }
+
+    // a power of two around twice the CPU count, so concurrent readers rarely share a stripe
+    private static int stripes() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return Math.min(64, Integer.highestOneBit(Math.max(1, cpus)) * 2);
+    }
+
+    /**
+     * Bounded multi-producer ring of hit nodes with a single consumer (the lock holder). A full buffer
+     * drops the hit rather than making the reader wait.
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        private volatile long reads;
+
+        /** Records {@code node} if there is room; returns the number of hits now waiting. */
+        int offer(Node<K, V> node) {
+            long w = writes.get();
+            long pending = w - reads;
+            if (pending >= BUFFER_SIZE) return BUFFER_SIZE;
+            if (!writes.compareAndSet(w, w + 1)) return (int) pending;
+            slots.lazySet((int) (w & (BUFFER_SIZE - 1)), node);
+            return (int) pending + 1;
+        }
+
+        void drain(Consumer<Node<K, V>> action) {
+            long r = reads;
+            long w = writes.get();
+            for (; r < w; r++) {
+                int at = (int) (r & (BUFFER_SIZE - 1));
+                Node<K, V> node = slots.get(at);
+                // claimed by a reader that has not stored its node yet; picked up by the next drain
+                if (node == null) break;
+                slots.lazySet(at, null);
+                action.accept(node);
+            }
+            reads = r;
+        }
+    }
+
+    private static final class Node<K, V> {
+        K key;
+        V value;
+        long weight;
+        int queue;
+        Node<K, V> prev = this;
+        Node<K, V> next = this;
+    }
+}
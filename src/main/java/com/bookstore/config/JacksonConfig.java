@@ -0,0 +1,17 @@
+package com.bookstore.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // DTOs with a @JsonFilter serialize every property unless a response registers the filter
+    // (sparse fieldsets), so an unknown filter id must not be an error
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer lenientFilters() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+}
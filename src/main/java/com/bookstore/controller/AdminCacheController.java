@@ -0,0 +1,29 @@
+package com.bookstore.controller;
+
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.CacheStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@PreAuthorize("hasRole('MANAGER') or hasRole('ADMIN')")
+public class AdminCacheController {
+
+    private final BookCache bookCache;
+
+    public AdminCacheController(BookCache bookCache) {
+        this.bookCache = bookCache;
+    }
+
+    /** Hit, miss and eviction counters plus current and max weight of each cache. */
+    @GetMapping
+    public ResponseEntity<Map<String, CacheStats>> stats() {
+        return ResponseEntity.ok(bookCache.stats());
+    }
+}
@@ -0,0 +1,27 @@
+package com.bookstore.controller;
+
+import com.bookstore.event.EmailDeliveryQueue;
+import com.bookstore.event.EmailDeliveryStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/email")
+@PreAuthorize("hasRole('MANAGER') or hasRole('ADMIN')")
+public class AdminEmailController {
+
+    private final EmailDeliveryQueue deliveryQueue;
+
+    public AdminEmailController(EmailDeliveryQueue deliveryQueue) {
+        this.deliveryQueue = deliveryQueue;
+    }
+
+    /** Queue depth, delivery and drop counters and send times of the order email workers. */
+    @GetMapping
+    public ResponseEntity<EmailDeliveryStats> stats() {
+        return ResponseEntity.ok(deliveryQueue.stats());
+    }
+}
@@ -1,7 +1,7 @@
 package com.bookstore.controller;
 
+import com.bookstore.event.OrderEmailAuditWriter;
 import com.bookstore.model.Order;
-import com.bookstore.dto.order.OrderDto;
 import com.bookstore.service.OrderService;
 import com.bookstore.model.OrderStatus;
 import com.bookstore.model.PaymentStatus;
@@ -12,8 +12,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestMethod;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/orders")
@@ -23,25 +21,34 @@ public class AdminOrderController {
     private final OrderRepository orderRepository;
     private final OrderService orderService;
     private final com.bookstore.service.EmailService emailService;
-    private final com.bookstore.repository.OrderEmailAttemptRepository attemptRepository;
+    private final OrderEmailAuditWriter emailAudit;
 
     @Autowired
-    public AdminOrderController(OrderRepository orderRepository, OrderService orderService, com.bookstore.service.EmailService emailService, com.bookstore.repository.OrderEmailAttemptRepository attemptRepository) {
+    public AdminOrderController(OrderRepository orderRepository, OrderService orderService, com.bookstore.service.EmailService emailService, OrderEmailAuditWriter emailAudit) {
         this.orderRepository = orderRepository;
         this.orderService = orderService;
         this.emailService = emailService;
-        this.attemptRepository = attemptRepository;
+        this.emailAudit = emailAudit;
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderDto>> listAll() {
-    List<OrderDto> list = orderRepository.findAll().stream().map(orderService::toDto).collect(Collectors.toList());
-    return ResponseEntity.ok(list);
+    public ResponseEntity<?> listAll(@RequestParam(name = "cursor", required = false) String cursor,
+                                     @RequestParam(name = "limit", required = false) Integer limit,
+                                     @RequestParam(name = "sort", required = false) String sort,
+                                     @RequestParam(name = "count", defaultValue = "false") boolean count) {
+    if (cursor != null || limit != null) {
+        try {
+            return ResponseEntity.ok(orderService.listByCursor(cursor, sort, limit, count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    return ResponseEntity.ok(orderService.findAllOrders());
     }
 
     @RequestMapping(path = "/{id}/payment", method = {RequestMethod.PATCH, RequestMethod.POST})
     public ResponseEntity<?> updatePayment(@PathVariable Long id, @RequestParam PaymentStatus status) {
-        return orderRepository.findById(id).map(o -> {
+        return orderRepository.findWithItemsById(id).map(o -> {
             o.setPaymentStatus(status);
             if (status == PaymentStatus.PAID && o.getOrderStatus() == OrderStatus.PENDING) {
                 o.setOrderStatus(OrderStatus.CONFIRMED);
@@ -59,7 +66,7 @@ public class AdminOrderController {
 
     @RequestMapping(path = "/{id}/status", method = {RequestMethod.PATCH, RequestMethod.POST})
     public ResponseEntity<?> updateStatus(@PathVariable Long id, @RequestParam OrderStatus status) {
-        return orderRepository.findById(id).map(o -> {
+        return orderRepository.findWithItemsById(id).map(o -> {
             o.setOrderStatus(status);
             Order saved = orderRepository.save(o);
             return ResponseEntity.ok(orderService.toDto(saved));
@@ -68,7 +75,7 @@ public class AdminOrderController {
 
     @PostMapping("/{id}/resend-email")
     public ResponseEntity<?> resendEmail(@PathVariable Long id) {
-        return orderRepository.findById(id).map(o -> {
+        return orderRepository.findWithItemsById(id).map(o -> {
             boolean success = false;
             String error = null;
             try {
@@ -76,26 +83,11 @@ public class AdminOrderController {
                 o.setEmailed(true);
                 Order saved = orderRepository.save(o);
                 success = true;
-                try {
-                    com.bookstore.model.OrderEmailAttempt a = new com.bookstore.model.OrderEmailAttempt();
-                    a.setOrderId(id);
-                    a.setSuccess(true);
-                    a.setProvider("manual-resend");
-                    a.setSentAt(java.time.Instant.now());
-                    attemptRepository.save(a);
-                } catch (Exception ignore) { }
+                emailAudit.record(id, true, "manual-resend", null);
                 return ResponseEntity.ok(orderService.toDto(saved));
             } catch (Exception e) {
                 error = e.getMessage();
-                try {
-                    com.bookstore.model.OrderEmailAttempt a = new com.bookstore.model.OrderEmailAttempt();
-                    a.setOrderId(id);
-                    a.setSuccess(false);
-                    a.setProvider("manual-resend");
-                    a.setErrorMessage(error);
-                    a.setSentAt(java.time.Instant.now());
-                    attemptRepository.save(a);
-                } catch (Exception ignore) { }
+                emailAudit.record(id, false, "manual-resend", error);
                 return ResponseEntity.status(500).body("Failed to resend email: " + error);
             }
         }).orElseGet(() -> ResponseEntity.notFound().build());
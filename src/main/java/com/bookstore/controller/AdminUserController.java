@@ -27,7 +27,17 @@ public class AdminUserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDto>> listAll() {
+    public ResponseEntity<?> listAll(@RequestParam(name = "cursor", required = false) String cursor,
+                                     @RequestParam(name = "limit", required = false) Integer limit,
+                                     @RequestParam(name = "sort", required = false) String sort,
+                                     @RequestParam(name = "count", defaultValue = "false") boolean count) {
+        if (cursor != null || limit != null) {
+            try {
+                return ResponseEntity.ok(userService.listByCursor(cursor, sort, limit, count));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         List<UserDto> list = userRepository.findAll().stream().map(u -> {
             UserDto dto = new UserDto();
             dto.setId(u.getId()); dto.setUsername(u.getUsername()); dto.setEmail(u.getEmail());
@@ -1,51 +1,133 @@
 package com.bookstore.controller;
 
 import com.bookstore.dto.BookDto;
+import com.bookstore.dto.CursorPage;
 import com.bookstore.dto.CreateBookRequest;
 import com.bookstore.dto.UpdateBookRequest;
 import com.bookstore.model.Book;
+import com.bookstore.search.CatalogStamp;
+import com.bookstore.search.FacetFilter;
+import com.bookstore.search.Suggestion;
 import com.bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
     private final BookService bookService;
+    private final CatalogStamp catalogStamp;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, CatalogStamp catalogStamp) {
         this.bookService = bookService;
+        this.catalogStamp = catalogStamp;
     }
 
+    /**
+     * Offset pages by default; passing {@code cursor} or {@code limit} switches to keyset pages ordered by
+     * {@code sort} (id or updated) with an opaque {@code next} cursor and an optional total.
+     * Rows leave out the description unless {@code fields} asks for it.
+     */
     @GetMapping
-    public Page<BookDto> list(Pageable pageable) {
-        Page<Book> p = bookService.list(pageable);
-        return p.map(BookDto::fromEntity);
+    public ResponseEntity<?> list(@RequestParam(name = "cursor", required = false) String cursor,
+                                  @RequestParam(name = "limit", required = false) Integer limit,
+                                  @RequestParam(name = "sort", required = false) String sort,
+                                  @RequestParam(name = "count", defaultValue = "false") boolean count,
+                                  @RequestParam(name = "fields", required = false) String fields,
+                                  Pageable pageable, ServletWebRequest request) {
+        if (notModified(request, catalogStamp.etag(request.getParameterMap()), catalogStamp.lastModified())) {
+            return null;
+        }
+        try {
+            Set<String> fieldSet = parseFields(fields);
+            if (cursor != null || limit != null) {
+                CursorPage<BookDto> page = bookService.listByCursor(cursor, sort, limit, count).map(BookDto::fromSummary);
+                return render(page, page.getContent(), fieldSet);
+            }
+            Page<BookDto> page = bookService.list(pageable).map(BookDto::fromSummary);
+            return render(page, page.getContent(), fieldSet);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/search")
-    public Page<BookDto> search(@RequestParam(name = "q", required = false) String q,
-                                @RequestParam(name = "title", required = false) String title,
-                                @RequestParam(name = "author", required = false) String author,
-                                Pageable pageable) {
-        Page<Book> p = bookService.search(q, title, author, pageable);
-        return p.map(BookDto::fromEntity);
+    public ResponseEntity<?> search(@RequestParam(name = "q", required = false) String q,
+                                    @RequestParam(name = "title", required = false) String title,
+                                    @RequestParam(name = "author", required = false) String author,
+                                    @RequestParam(name = "rank", defaultValue = "false") boolean rank,
+                                    @RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy,
+                                    @RequestParam(name = "authors", required = false) List<String> authors,
+                                    @RequestParam(name = "priceBand", required = false) List<String> priceBands,
+                                    @RequestParam(name = "inStock", required = false) Boolean inStock,
+                                    @RequestParam(name = "facets", defaultValue = "false") boolean facets,
+                                    @RequestParam(name = "fields", required = false) String fields,
+                                    Pageable pageable, ServletWebRequest request) {
+        if (notModified(request, catalogStamp.etag(request.getParameterMap()), catalogStamp.lastModified())) {
+            return null;
+        }
+        try {
+            Set<String> fieldSet = parseFields(fields);
+            Page<BookDto> page;
+            FacetFilter filter = new FacetFilter(authors, priceBands, inStock);
+            if (fuzzy) {
+                page = bookService.searchFuzzy(q, title, author, filter, pageable).map(BookDto::fromSummary);
+            } else if (rank) {
+                page = bookService.searchRanked(q, title, author, filter, pageable).map(h -> {
+                    BookDto dto = BookDto.fromSummary(h.getBook());
+                    dto.setScore(h.getScore());
+                    return dto;
+                });
+            } else if (facets || !filter.isEmpty()) {
+                page = bookService.searchFaceted(q, title, author, filter, pageable).map(BookDto::fromSummary);
+            } else {
+                page = bookService.search(q, title, author, pageable).map(BookDto::fromSummary);
+            }
+            return render(page, page.getContent(), fieldSet);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam(name = "prefix", required = false) String prefix,
+                                    @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        return bookService.suggest(prefix, limit);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BookDto> get(@PathVariable Long id) {
-        return bookService.getById(id)
-                .map(BookDto::fromEntity)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<BookDto> get(@PathVariable Long id, ServletWebRequest request) {
+        // served from the book cache, so a 304 costs no database round trip once the book is warm
+        Optional<Book> book = bookService.getById(id);
+        if (book.isEmpty()) return ResponseEntity.notFound().build();
+        Instant updatedAt = book.get().getUpdatedAt();
+        Long version = book.get().getVersion();
+        String etag = "\"b" + id + "-" + (version != null ? version : updatedAt != null ? updatedAt.toEpochMilli() : 0L) + "\"";
+        if (notModified(request, etag, updatedAt != null ? updatedAt.toEpochMilli() : -1L)) {
+            return null;
+        }
+        return ResponseEntity.ok(BookDto.fromEntity(book.get()));
     }
 
     @PostMapping
@@ -71,4 +153,41 @@ public class BookController {
         if (!deleted) return ResponseEntity.notFound().build();
         return ResponseEntity.noContent().build();
     }
+
+    // Catalog responses may be stored but are revalidated on every use; a matching If-None-Match (or
+    // If-Modified-Since) sets 304 here, before anything is read or serialized
+    private static boolean notModified(ServletWebRequest request, String etag, long lastModified) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    // fields=id,title,price -> the requested BookDto properties; null means all of them
+    private static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) return null;
+        Set<String> out = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(f -> !f.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String f : out) {
+            if (!BookDto.FIELDS.contains(f)) {
+                throw new IllegalArgumentException("unknown field: " + f + ", expected any of " + BookDto.FIELDS);
+            }
+        }
+        return out;
+    }
+
+    // Descriptions are only read when the fieldset names them, with one extra IN query for the page
+    private ResponseEntity<?> render(Object body, List<BookDto> content, Set<String> fields) {
+        if (fields == null) return ResponseEntity.ok(body);
+        if (fields.contains("description")) {
+            Map<Long, String> descriptions = bookService.descriptions(
+                    content.stream().map(BookDto::getId).collect(Collectors.toList()));
+            content.forEach(d -> d.setDescription(descriptions.get(d.getId())));
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+                .addFilter(BookDto.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return ResponseEntity.ok(value);
+    }
 }
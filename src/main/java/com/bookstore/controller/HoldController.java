@@ -0,0 +1,65 @@
+package com.bookstore.controller;
+
+import com.bookstore.dto.hold.HoldDto;
+import com.bookstore.dto.hold.HoldRequest;
+import com.bookstore.inventory.StockHoldService;
+import com.bookstore.service.InsufficientStockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Cart holds of the current user: {@code POST} sets copies aside for {@code app.holds.minutes}, checkout
+ * ({@code POST /api/orders}) consumes them, {@code DELETE} gives them back early.
+ */
+@RestController
+@RequestMapping("/api/holds")
+public class HoldController {
+
+    private final StockHoldService holdService;
+
+    public HoldController(StockHoldService holdService) {
+        this.holdService = holdService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> place(@RequestBody HoldRequest req, Authentication authentication) {
+        String username = username(authentication);
+        if (username == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("authentication required");
+        try {
+            HoldDto hold = holdService.place(username, req);
+            return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<HoldDto>> list(Authentication authentication) {
+        String username = username(authentication);
+        if (username == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(holdService.list(username));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> release(@PathVariable Long id, Authentication authentication) {
+        String username = username(authentication);
+        if (username == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return holdService.release(username, id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    private static String username(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
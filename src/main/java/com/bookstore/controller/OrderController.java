@@ -1,31 +1,54 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.order.BulkOrderResult;
 import com.bookstore.dto.order.CreateOrderRequest;
 import com.bookstore.dto.order.OrderDto;
+import com.bookstore.dto.order.OrderHistoryFilter;
+import com.bookstore.idempotency.IdempotencyStore;
+import com.bookstore.service.BulkOrderService;
+import com.bookstore.service.InsufficientStockException;
 import com.bookstore.service.OrderService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final BulkOrderService bulkOrderService;
+    private final ObjectMapper mapper;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotencyStore idempotencyStore,
+                           BulkOrderService bulkOrderService, ObjectMapper mapper) {
         this.orderService = orderService;
+        this.idempotencyStore = idempotencyStore;
+        this.bulkOrderService = bulkOrderService;
+        this.mapper = mapper;
     }
 
+    /** With an {@code Idempotency-Key} header, retries of the same order replay the first response. */
     @PostMapping
-    public ResponseEntity<?> placeOrder(@RequestBody CreateOrderRequest req, Principal principal, Authentication authentication) {
+    public ResponseEntity<?> placeOrder(@RequestBody CreateOrderRequest req,
+                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                        Principal principal, Authentication authentication) {
         String username = null;
         if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
             username = authentication.getName();
@@ -35,16 +58,94 @@ public class OrderController {
         if (username == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("authentication required");
         }
+        if (idempotencyKey == null) return placeOrder(username, req);
+        String user = username;
+        return idempotencyStore.execute(username, idempotencyKey, req, () -> placeOrder(user, req));
+    }
+
+    private ResponseEntity<?> placeOrder(String username, CreateOrderRequest req) {
         try {
             OrderDto dto = orderService.placeOrder(username, req);
             return ResponseEntity.status(HttpStatus.CREATED).body(dto);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    /**
+     * Bulk intake: reads a JSON array of orders as it arrives and streams back a JSON array with one
+     * {@link BulkOrderResult} per order, flushed after every committed chunk. Orders succeed or fail on
+     * their own, so the status is 200 once intake has started.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void placeOrders(HttpServletRequest request, HttpServletResponse response,
+                            Principal principal, Authentication authentication) throws IOException {
+        String username = null;
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+            username = authentication.getName();
+        } else if (principal != null) {
+            username = principal.getName();
+        }
+        if (username == null) {
+            plain(response, HttpStatus.UNAUTHORIZED, "authentication required");
+            return;
+        }
+        MappingIterator<CreateOrderRequest> orders;
+        try {
+            orders = mapper.readerFor(CreateOrderRequest.class).readValues(request.getInputStream());
+        } catch (IOException e) {
+            plain(response, HttpStatus.BAD_REQUEST, "expected a JSON array of orders: " + e.getMessage());
+            return;
+        }
+        JsonGenerator[] out = new JsonGenerator[1];
+        try {
+            bulkOrderService.placeOrders(username, orders, results -> {
+                try {
+                    if (out[0] == null) {
+                        response.setStatus(HttpStatus.OK.value());
+                        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                        out[0] = mapper.createGenerator(response.getOutputStream());
+                        out[0].writeStartArray();
+                    }
+                    for (BulkOrderResult r : results) out[0].writeObject(r);
+                    out[0].flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            plain(response, HttpStatus.BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (out[0] == null) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("[]");
+            return;
+        }
+        out[0].writeEndArray();
+        out[0].close();
+    }
+
+    private static void plain(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+    /**
+     * The caller's orders as a newest-first {@link com.bookstore.dto.CursorPage}, narrowed by status, from
+     * and to; without a cursor or limit, the first page at the default limit.
+     */
     @GetMapping
-    public ResponseEntity<List<OrderDto>> listMyOrders(Principal principal, Authentication authentication) {
+    public ResponseEntity<?> listMyOrders(@RequestParam(name = "cursor", required = false) String cursor,
+                                          @RequestParam(name = "limit", required = false) Integer limit,
+                                          @RequestParam(name = "status", required = false) String status,
+                                          @RequestParam(name = "from", required = false) String from,
+                                          @RequestParam(name = "to", required = false) String to,
+                                          Principal principal, Authentication authentication) {
         String username = null;
         if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
             username = authentication.getName();
@@ -52,7 +153,12 @@ public class OrderController {
             username = principal.getName();
         }
         if (username == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        return ResponseEntity.ok(orderService.findOrdersForUser(username));
+        try {
+            OrderHistoryFilter filter = OrderHistoryFilter.parse(status, from, to);
+            return ResponseEntity.ok(orderService.historyForUser(username, filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
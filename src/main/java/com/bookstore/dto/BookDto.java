@@ -1,13 +1,22 @@
 package com.bookstore.dto;
 
 import com.bookstore.model.Book;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.Set;
 
 
+// Sparse fieldsets (?fields=id,title,price) register this filter per response; see BookController
+@JsonFilter(BookDto.FIELDS_FILTER)
 public class BookDto {
 
+    public static final String FIELDS_FILTER = "bookFields";
+    public static final Set<String> FIELDS = Set.of(
+            "id", "title", "author", "isbn", "price", "rentPrice", "stock", "description", "createdAt", "updatedAt", "score");
+
     private Long id;
     private String title;
     private String author;
@@ -18,6 +27,9 @@ public class BookDto {
     private String description;
     private Instant createdAt;
     private Instant updatedAt;
+    // relevance score, only present on ranked search results
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double score;
 
     public BookDto() {}
 
@@ -51,6 +63,9 @@ public class BookDto {
     public Instant getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
 
+    public Double getScore() { return score; }
+    public void setScore(Double score) { this.score = score; }
+
     public static BookDto fromEntity(Book b) {
         if (b == null) return null;
         BookDto d = new BookDto();
@@ -59,12 +74,7 @@ public class BookDto {
         d.setAuthor(b.getAuthor());
         d.setIsbn(b.getIsbn());
         d.setPrice(b.getPrice());
-        // Compute a default rent price (20% of buy price) if price is present
-        try {
-            if (b.getPrice() != null) {
-                d.setRentPrice(b.getPrice().multiply(new BigDecimal("0.20")).setScale(2, RoundingMode.HALF_UP));
-            }
-        } catch (Exception ignore) { }
+        d.setRentPrice(rentPrice(b.getPrice()));
         d.setStock(b.getStock());
         d.setDescription(b.getDescription());
         d.setCreatedAt(b.getCreatedAt());
@@ -72,6 +82,28 @@ public class BookDto {
         return d;
     }
 
+    /** List/search rows: everything but the description, which summaries do not carry. */
+    public static BookDto fromSummary(BookSummary b) {
+        if (b == null) return null;
+        BookDto d = new BookDto();
+        d.setId(b.getId());
+        d.setTitle(b.getTitle());
+        d.setAuthor(b.getAuthor());
+        d.setIsbn(b.getIsbn());
+        d.setPrice(b.getPrice());
+        d.setRentPrice(rentPrice(b.getPrice()));
+        d.setStock(b.getStock());
+        d.setCreatedAt(b.getCreatedAt());
+        d.setUpdatedAt(b.getUpdatedAt());
+        return d;
+    }
+
+    // Default rent price: 20% of the buy price
+    private static BigDecimal rentPrice(BigDecimal price) {
+        if (price == null) return null;
+        return price.multiply(new BigDecimal("0.20")).setScale(2, RoundingMode.HALF_UP);
+    }
+
     public Book toEntity() {
         Book b = new Book();
         b.setId(this.id);
@@ -0,0 +1,56 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The grid columns of a book, selected with a JPQL constructor expression so list and search pages never
+ * read the description LOB. The full row is only loaded for {@code /api/books/{id}}.
+ */
+public class BookSummary {
+
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final BigDecimal price;
+    private final Integer stock;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+
+    public BookSummary(Long id, String title, String author, String isbn, BigDecimal price, Integer stock,
+                       Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.price = price;
+        this.stock = stock;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /** Summary of an already loaded book, for paths that scan entities in memory. */
+    public static BookSummary of(Book b) {
+        return new BookSummary(b.getId(), b.getTitle(), b.getAuthor(), b.getIsbn(), b.getPrice(), b.getStock(),
+                b.getCreatedAt(), b.getUpdatedAt());
+    }
+
+    public Long getId() { return id; }
+
+    public String getTitle() { return title; }
+
+    public String getAuthor() { return author; }
+
+    public String getIsbn() { return isbn; }
+
+    public BigDecimal getPrice() { return price; }
+
+    public Integer getStock() { return stock; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
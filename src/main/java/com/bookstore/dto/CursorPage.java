@@ -0,0 +1,58 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} is the cursor for the following page and is
+ * absent on the last one; {@code total} is only present when the caller asked for it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> content;
+    private final String next;
+    private final int limit;
+    private final Long total;
+
+    public CursorPage(List<T> content, String next, int limit, Long total) {
+        this.content = content;
+        this.next = next;
+        this.limit = limit;
+        this.total = total;
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null) return DEFAULT_LIMIT;
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Builds a page from up to {@code limit + 1} rows read after the cursor; the extra row only tells
+     * whether there is a next page.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> cursorOf, Long total) {
+        boolean more = rows.size() > limit;
+        List<T> content = more ? rows.subList(0, limit) : rows;
+        String next = more ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, next, limit, total);
+    }
+
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        return new CursorPage<>(content.stream().map(converter).collect(Collectors.toList()), next, limit, total);
+    }
+
+    public List<T> getContent() { return content; }
+
+    public String getNext() { return next; }
+
+    public int getLimit() { return limit; }
+
+    public Long getTotal() { return total; }
+}
@@ -0,0 +1,33 @@
+package com.bookstore.dto;
+
+import com.bookstore.search.FacetCount;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A search page that also carries facet counts (facet name to value counts) for the whole result.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+
+    private final Map<String, List<FacetCount>> facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, Map<String, List<FacetCount>> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public Map<String, List<FacetCount>> getFacets() {
+        return facets;
+    }
+
+    @Override
+    public <U> FacetedPage<U> map(Function<? super T, ? extends U> converter) {
+        List<U> content = getContent().stream().map(converter).collect(Collectors.toList());
+        return new FacetedPage<>(content, getPageable(), getTotalElements(), facets);
+    }
+}
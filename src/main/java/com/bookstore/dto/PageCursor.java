@@ -0,0 +1,103 @@
+package com.bookstore.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Position in a keyset-paginated listing: either after an id, after an (updated_at, id) pair, or, for
+ * newest-first walks, before a (created_at, id) pair. Clients only ever see the opaque
+ * {@link #encode() encoded} form returned as {@code next}.
+ */
+public final class PageCursor {
+
+    public enum Key {
+        ID, UPDATED,
+        /** newest first; only through {@link #newestFirst} */
+        CREATED
+    }
+
+    private final Key key;
+    private final Instant at;
+    private final long id;
+
+    private PageCursor(Key key, Instant at, long id) {
+        this.key = key;
+        this.at = at;
+        this.id = id;
+    }
+
+    /** Cursor positioned right after the given row; {@code at} is its updated_at or created_at, as the key needs. */
+    public static PageCursor after(Key key, Instant at, Long id) {
+        return new PageCursor(key, key == Key.ID ? null : at, id);
+    }
+
+    /**
+     * Decodes {@code cursor}, or starts a new walk ordered by {@code sort} ("id", the default, or "updated")
+     * when there is no cursor yet.
+     */
+    public static PageCursor parse(String cursor, String sort) {
+        Key requested = null;
+        if (sort != null && !sort.isBlank()) {
+            String name = sort.trim().toUpperCase(Locale.ROOT);
+            if (!name.equals(Key.ID.name()) && !name.equals(Key.UPDATED.name())) {
+                throw new IllegalArgumentException("unsupported sort: " + sort + ", expected id or updated");
+            }
+            requested = Key.valueOf(name);
+        }
+        if (cursor == null || cursor.isBlank()) {
+            return new PageCursor(requested == null ? Key.ID : requested, null, 0L);
+        }
+        PageCursor c = decode(cursor.trim());
+        if (c.key == Key.CREATED) throw new IllegalArgumentException("invalid cursor");
+        if (requested != null && requested != c.key) {
+            throw new IllegalArgumentException("cursor was issued for sort=" + c.key.name().toLowerCase(Locale.ROOT));
+        }
+        return c;
+    }
+
+    /** Decodes {@code cursor} of a newest-first (created_at, id) walk, or starts one when there is no cursor yet. */
+    public static PageCursor newestFirst(String cursor) {
+        if (cursor == null || cursor.isBlank()) return new PageCursor(Key.CREATED, null, 0L);
+        PageCursor c = decode(cursor.trim());
+        if (c.key != Key.CREATED) throw new IllegalArgumentException("invalid cursor");
+        return c;
+    }
+
+    public String encode() {
+        String raw = key == Key.ID
+                ? "i:" + id
+                : (key == Key.UPDATED ? "u:" : "c:") + at.getEpochSecond() + "." + at.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length == 2 && parts[0].equals("i")) {
+                return new PageCursor(Key.ID, null, Long.parseLong(parts[1]));
+            }
+            if (parts.length == 3 && (parts[0].equals("u") || parts[0].equals("c"))) {
+                String[] ts = parts[1].split("\\.");
+                Instant at = Instant.ofEpochSecond(Long.parseLong(ts[0]), ts.length > 1 ? Long.parseLong(ts[1]) : 0L);
+                return new PageCursor(parts[0].equals("u") ? Key.UPDATED : Key.CREATED, at, Long.parseLong(parts[2]));
+            }
+        } catch (RuntimeException e) {
+            // fall through to the uniform error below
+        }
+        throw new IllegalArgumentException("invalid cursor");
+    }
+
+    public Key getKey() { return key; }
+
+    /** True before the first row of a walk has been read, i.e. for the first page. */
+    public boolean isStart() { return at == null && id == 0L; }
+
+    public Instant getUpdatedAt() { return key == Key.UPDATED ? at : null; }
+
+    public Instant getCreatedAt() { return key == Key.CREATED ? at : null; }
+
+    public long getId() { return id; }
+}
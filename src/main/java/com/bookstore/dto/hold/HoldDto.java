@@ -0,0 +1,26 @@
+package com.bookstore.dto.hold;
+
+import com.bookstore.model.StockHold;
+
+import java.time.Instant;
+
+public class HoldDto {
+    private Long id;
+    private Long bookId;
+    private Integer quantity;
+    private Instant expiresAt;
+
+    public static HoldDto from(StockHold h) {
+        HoldDto d = new HoldDto();
+        d.id = h.getId();
+        d.bookId = h.getBookId();
+        d.quantity = h.getQuantity();
+        d.expiresAt = h.getExpiresAt();
+        return d;
+    }
+
+    public Long getId() { return id; }
+    public Long getBookId() { return bookId; }
+    public Integer getQuantity() { return quantity; }
+    public Instant getExpiresAt() { return expiresAt; }
+}
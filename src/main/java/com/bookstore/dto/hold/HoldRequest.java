@@ -0,0 +1,11 @@
+package com.bookstore.dto.hold;
+
+public class HoldRequest {
+    private Long bookId;
+    private Integer quantity = 1;
+
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,49 @@
+package com.bookstore.dto.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/** Outcome of one order of a bulk intake, by its position in the submitted array. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOrderResult {
+
+    public enum Status {
+        /** placed; {@code orderId} is set */
+        CREATED,
+        /** malformed, empty or naming an unknown book */
+        INVALID,
+        /** not enough stock left for one of its books */
+        OUT_OF_STOCK,
+        /** its chunk failed to commit; nothing of it was placed */
+        FAILED
+    }
+
+    private final int index;
+    private final Status status;
+    private final Long orderId;
+    private final BigDecimal totalAmount;
+    private final String error;
+
+    private BulkOrderResult(int index, Status status, Long orderId, BigDecimal totalAmount, String error) {
+        this.index = index;
+        this.status = status;
+        this.orderId = orderId;
+        this.totalAmount = totalAmount;
+        this.error = error;
+    }
+
+    public static BulkOrderResult created(int index, Long orderId, BigDecimal totalAmount) {
+        return new BulkOrderResult(index, Status.CREATED, orderId, totalAmount, null);
+    }
+
+    public static BulkOrderResult rejected(int index, Status status, String error) {
+        return new BulkOrderResult(index, status, null, null, error);
+    }
+
+    public int getIndex() { return index; }
+    public Status getStatus() { return status; }
+    public Long getOrderId() { return orderId; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public String getError() { return error; }
+}
@@ -15,6 +15,7 @@ public class OrderDto {
     private OrderStatus orderStatus;
     private PaymentStatus paymentStatus;
         private Instant createdAt;
+    private Instant updatedAt;
         private Boolean emailed;
     private List<OrderItemDto> items = new ArrayList<>();
 
@@ -36,6 +37,9 @@ public class OrderDto {
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
     public Boolean getEmailed() { return emailed; }
     public void setEmailed(Boolean emailed) { this.emailed = emailed; }
 
@@ -0,0 +1,71 @@
+package com.bookstore.dto.order;
+
+import com.bookstore.model.OrderStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Restrictions on a customer's order history: an order status and a created_at range. {@code from} is
+ * inclusive, {@code to} exclusive; a null bound or status leaves that side unrestricted.
+ */
+public final class OrderHistoryFilter {
+
+    public static final OrderHistoryFilter NONE = new OrderHistoryFilter(null, null, null);
+
+    private final OrderStatus status;
+    private final Instant from;
+    private final Instant to;
+
+    public OrderHistoryFilter(OrderStatus status, Instant from, Instant to) {
+        this.status = status;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Parses request parameters. Bounds are ISO-8601 instants or dates (UTC); a date as {@code to} includes
+     * that whole day.
+     *
+     * @throws IllegalArgumentException on an unknown status, an unparseable bound or an empty range
+     */
+    public static OrderHistoryFilter parse(String status, String from, String to) {
+        OrderStatus s = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                s = OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown order status: " + status);
+            }
+        }
+        Instant f = bound("from", from, false);
+        Instant t = bound("to", to, true);
+        if (f != null && t != null && !f.isBefore(t)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        return new OrderHistoryFilter(s, f, t);
+    }
+
+    private static Instant bound(String name, String value, boolean endOfDay) {
+        if (value == null || value.isBlank()) return null;
+        String v = value.trim();
+        try {
+            if (v.length() == 10) {
+                LocalDate day = LocalDate.parse(v);
+                return (endOfDay ? day.plusDays(1) : day).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            return Instant.parse(v);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO-8601 date or instant, was " + value);
+        }
+    }
+
+    public OrderStatus getStatus() { return status; }
+
+    public Instant getFrom() { return from; }
+
+    public Instant getTo() { return to; }
+}
@@ -0,0 +1,139 @@
+package com.bookstore.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Bounded worker pool that delivers order emails off the request thread. Deliveries wait in a queue of
+ * {@code app.mail.queue-capacity}; when it is full a submitter waits up to
+ * {@code app.mail.enqueue-timeout-ms} for space and then drops the delivery, so a slow mail server can
+ * only hold a submitter up that long. Deliveries come from the {@link OrderOutboxRelay}, which leaves a
+ * dropped order's outbox row to be retried. The deliveries record their attempts in the
+ * {@link OrderEmailAuditWriter}, so this bean is shut down first and {@link #close()} drains them while
+ * the writer still takes rows.
+ */
+@Component
+@DependsOn("orderEmailAuditWriter")
+public class EmailDeliveryQueue {
+    private static final Logger log = LoggerFactory.getLogger(EmailDeliveryQueue.class);
+
+    private final ThreadPoolExecutor pool;
+    private final ArrayBlockingQueue<Runnable> queue;
+    private final long enqueueTimeoutMillis;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sends = new AtomicLong();
+    private final AtomicLong sendNanos = new AtomicLong();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+
+    @Autowired
+    public EmailDeliveryQueue(@Value("${app.mail.workers:2}") int workers,
+                              @Value("${app.mail.queue-capacity:1000}") int capacity,
+                              @Value("${app.mail.enqueue-timeout-ms:50}") long enqueueTimeoutMillis) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue, r -> {
+            Thread t = new Thread(r, "order-email-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, (task, executor) -> {
+            throw new RejectedExecutionException();
+        });
+    }
+
+    /**
+     * Queues {@code send} for {@code orderId}. It runs on a worker and fails by throwing.
+     *
+     * @return false when the delivery was dropped because the queue stayed full
+     */
+    public boolean submit(Long orderId, Runnable send) {
+        return submit(List.of(orderId), () -> {
+            send.run();
+            return 0;
+        });
+    }
+
+    /**
+     * Queues one delivery covering the confirmations of {@code orderIds}, e.g. sent over one SMTP session.
+     * {@code send} runs on a worker and returns how many of them failed; throwing fails them all. The
+     * counters in {@link #stats()} count orders, the send times whole deliveries.
+     *
+     * @return false when the delivery was dropped because the queue stayed full
+     */
+    public boolean submit(List<Long> orderIds, IntSupplier send) {
+        int size = orderIds.size();
+        Runnable task = () -> {
+            long start = System.nanoTime();
+            try {
+                int failures = send.getAsInt();
+                delivered.addAndGet(size - failures);
+                failed.addAndGet(failures);
+            } catch (RuntimeException e) {
+                failed.addAndGet(size);
+                log.error("failed to send order confirmations for orderIds={}", orderIds, e);
+            } finally {
+                long took = System.nanoTime() - start;
+                sends.incrementAndGet();
+                sendNanos.addAndGet(took);
+                maxSendNanos.accumulateAndGet(took, Math::max);
+            }
+        };
+        submitted.addAndGet(size);
+        try {
+            pool.execute(task);
+            return true;
+        } catch (RejectedExecutionException full) {
+            // the pool rejects once the queue is full; wait a little for a worker to make room
+            try {
+                if (!pool.isShutdown() && queue.offer(task, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped.addAndGet(size);
+            log.warn("email queue full, dropped order confirmations for orderIds={}", orderIds);
+            return false;
+        }
+    }
+
+    /** Deliveries (not orders) that can still be queued without waiting. */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    public EmailDeliveryStats stats() {
+        long done = sends.get();
+        return new EmailDeliveryStats(queue.size(), queue.size() + queue.remainingCapacity(), pool.getActiveCount(),
+                submitted.get(), delivered.get(), failed.get(), dropped.get(),
+                done == 0 ? 0.0 : sendNanos.get() / 1e6 / done, maxSendNanos.get() / 1e6);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("{} order emails still queued at shutdown", pool.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
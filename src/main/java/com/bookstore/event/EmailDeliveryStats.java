@@ -0,0 +1,49 @@
+package com.bookstore.event;
+
+/**
+ * Point-in-time counters of the {@link EmailDeliveryQueue}. Queue depth and capacity are in deliveries,
+ * the other counters in orders; send times are per delivery, which may carry several orders.
+ */
+public final class EmailDeliveryStats {
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final int activeWorkers;
+    private final long submitted;
+    private final long delivered;
+    private final long failed;
+    private final long dropped;
+    private final double avgSendMillis;
+    private final double maxSendMillis;
+
+    public EmailDeliveryStats(int queueDepth, int queueCapacity, int activeWorkers, long submitted, long delivered,
+                              long failed, long dropped, double avgSendMillis, double maxSendMillis) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.activeWorkers = activeWorkers;
+        this.submitted = submitted;
+        this.delivered = delivered;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.avgSendMillis = avgSendMillis;
+        this.maxSendMillis = maxSendMillis;
+    }
+
+    public int getQueueDepth() { return queueDepth; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+
+    public int getActiveWorkers() { return activeWorkers; }
+
+    public long getSubmitted() { return submitted; }
+
+    public long getDelivered() { return delivered; }
+
+    public long getFailed() { return failed; }
+
+    public long getDropped() { return dropped; }
+
+    public double getAvgSendMillis() { return avgSendMillis; }
+
+    public double getMaxSendMillis() { return maxSendMillis; }
+}
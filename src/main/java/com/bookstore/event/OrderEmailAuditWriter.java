@@ -0,0 +1,168 @@
+package com.bookstore.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind for the {@code order_emails} audit trail. {@link #record} only appends to a lock-free
+ * queue; a background thread writes the rows as multi-row INSERTs of up to {@code app.mail.audit.batch-size}
+ * rows once that many are waiting or every {@code app.mail.audit.flush-ms}, and once more on shutdown.
+ * {@link EmailDeliveryQueue} depends on this bean, so its workers have finished their sends, and
+ * recorded them, before that last flush.
+ * Like the synchronous saves it replaces, auditing is best effort: beyond {@code max-pending} waiting rows
+ * new ones are dropped, and a row the database rejects is logged and skipped.
+ */
+@Component
+public class OrderEmailAuditWriter {
+    private static final Logger log = LoggerFactory.getLogger(OrderEmailAuditWriter.class);
+
+    private static final String INSERT = "INSERT INTO order_emails (order_id, success, provider, error_message, sent_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?)";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final int batchSize;
+    private final long flushMillis;
+    private final int maxPending;
+    private final ConcurrentLinkedQueue<Object[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile ScheduledExecutorService flusher;
+
+    public OrderEmailAuditWriter(JdbcTemplate jdbc,
+                                 @Value("${app.mail.audit.batch-size:200}") int batchSize,
+                                 @Value("${app.mail.audit.flush-ms:500}") long flushMillis,
+                                 @Value("${app.mail.audit.max-pending:100000}") int maxPending) {
+        if (batchSize < 1) throw new IllegalArgumentException("app.mail.audit.batch-size must be positive");
+        this.jdbc = jdbc;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.maxPending = maxPending;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-email-audit");
+            t.setDaemon(true);
+            return t;
+        });
+        s.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        flusher = s;
+    }
+
+    /** Queues one send attempt; {@code sent_at} is now. Never blocks and never throws. */
+    public void record(Long orderId, boolean success, String provider, String error) {
+        if (size.incrementAndGet() > maxPending) {
+            size.decrementAndGet();
+            if (dropped.incrementAndGet() % 1000 == 1) log.warn("email audit backlog full, {} attempts not recorded so far", dropped.get());
+            return;
+        }
+        if (error != null && error.length() > MAX_ERROR_LENGTH) error = error.substring(0, MAX_ERROR_LENGTH);
+        pending.offer(new Object[] { orderId, success, provider, error, Timestamp.from(Instant.now()) });
+        ScheduledExecutorService s = flusher;
+        // before start the rows wait for the first timed flush
+        if (s != null && size.get() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                s.execute(this::flushQuietly);
+            } catch (RuntimeException shuttingDown) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /** Writes the rows queued so far (not those arriving meanwhile); returns the number written. */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        int written = 0;
+        List<Object[]> chunk = new ArrayList<>(batchSize);
+        Object[] row;
+        for (int left = size.get(); left > 0 && (row = pending.poll()) != null; left--) {
+            size.decrementAndGet();
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                written += write(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) written += write(chunk);
+        return written;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        ScheduledExecutorService s = flusher;
+        if (s != null) {
+            s.shutdown();
+            s.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        int written = flush();
+        if (written > 0) log.info("flushed {} email audit rows at shutdown", written);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("email audit flush failed", e);
+        }
+    }
+
+    private int write(List<Object[]> rows) {
+        try {
+            jdbc.update(insertFor(rows.size()), flatten(rows));
+            return rows.size();
+        } catch (RuntimeException e) {
+            // one bad row (e.g. its order was deleted meanwhile) fails the whole statement; keep the others
+            log.warn("email audit batch of {} rows failed ({}), writing them one by one", rows.size(), e.getMessage());
+            int written = 0;
+            for (Object[] row : rows) {
+                try {
+                    jdbc.update(INSERT + ROW, row);
+                    written++;
+                } catch (RuntimeException rowFailure) {
+                    log.error("email audit row for orderId={} not recorded: {}", row[0], rowFailure.getMessage());
+                }
+            }
+            return written;
+        }
+    }
+
+    private static String insertFor(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2)).append(INSERT);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+
+    private static Object[] flatten(List<Object[]> rows) {
+        Object[] args = new Object[rows.size() * 5];
+        int i = 0;
+        for (Object[] row : rows) {
+            System.arraycopy(row, 0, args, i, 5);
+            i += 5;
+        }
+        return args;
+    }
+}
@@ -0,0 +1,148 @@
+package com.bookstore.event;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Order events waiting to be relayed ({@code order_outbox}). Rows are appended in the transaction that
+ * places the order, so a committed order always has its event even if the JVM dies right after the
+ * commit. {@link OrderOutboxRelay} claims them with a lease and deletes each one once it is handled.
+ */
+@Component
+public class OrderOutbox {
+
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+
+    private static final String APPEND = "INSERT INTO order_outbox (order_id, event_type, attempts, created_at, available_at)"
+            + " VALUES (?, ?, 0, ?, ?)";
+
+    private static final String CLAIMABLE = "SELECT id, order_id, attempts FROM order_outbox WHERE available_at <= ?"
+            + " ORDER BY available_at, id LIMIT ? FOR UPDATE";
+
+    private static final String CLAIM = "UPDATE order_outbox SET attempts = attempts + 1, available_at = ?"
+            + " WHERE id = ? AND available_at <= ?";
+
+    // orders.emailed is indexed with id, and order_emails by order_id, so this reads only unmailed orders
+    private static final String BACKFILL = "INSERT INTO order_outbox (order_id, event_type, attempts, created_at, available_at)"
+            + " SELECT o.id, ?, (SELECT COUNT(*) FROM order_emails e WHERE e.order_id = o.id), ?, ?"
+            + " FROM orders o WHERE o.emailed = FALSE"
+            + " AND NOT EXISTS (SELECT 1 FROM order_outbox x WHERE x.order_id = o.id)"
+            + " AND (SELECT COUNT(*) FROM order_emails e WHERE e.order_id = o.id) < ?";
+
+    private final JdbcTemplate jdbc;
+    private volatile String claimSql;
+
+    public OrderOutbox(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Records an {@link #ORDER_PLACED} event for each order; joins the caller's transaction. */
+    public void append(List<Long> orderIds) {
+        if (orderIds.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(orderIds.size());
+        for (Long id : orderIds) args.add(new Object[] { id, ORDER_PLACED, now, now });
+        jdbc.batchUpdate(APPEND, args);
+    }
+
+    /**
+     * Claims up to {@code limit} due rows: they are locked, their attempt count goes up and they become
+     * invisible to other claims for {@code lease}. Must run in a transaction; once it commits the locks
+     * are gone and only the lease keeps other nodes away, so a node that dies mid-batch simply lets its
+     * rows come due again.
+     */
+    public List<Entry> claim(int limit, Duration lease) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Entry> rows = jdbc.query(claimSql(), (rs, n) -> new Entry(rs.getLong(1), rs.getLong(2), rs.getInt(3) + 1),
+                now, limit);
+        if (rows.isEmpty()) return rows;
+        Timestamp until = Timestamp.from(now.toInstant().plus(lease));
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Entry e : rows) args.add(new Object[] { until, e.getId(), now });
+        // still due is re-checked, so a row another relay leased between our read and our lock is not taken
+        // twice even where the read does not see the newest version
+        int[] updated = jdbc.batchUpdate(CLAIM, args);
+        List<Entry> claimed = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] != 0) claimed.add(rows.get(i));
+        }
+        return claimed;
+    }
+
+    /** Pushes the lease of claimed rows still waiting to be sent out to {@code lease} from now. */
+    public void extend(Collection<Long> ids, Duration lease) {
+        if (ids.isEmpty()) return;
+        Timestamp until = Timestamp.from(Instant.now().plus(lease));
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) args.add(new Object[] { until, id });
+        jdbc.batchUpdate("UPDATE order_outbox SET available_at = ? WHERE id = ?", args);
+    }
+
+    /** Hands back claimed rows that were never sent: due at once, and the claim does not count as an attempt. */
+    public void release(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) args.add(new Object[] { now, id });
+        jdbc.batchUpdate("UPDATE order_outbox SET attempts = attempts - 1, available_at = ? WHERE id = ? AND attempts > 0", args);
+    }
+
+    /** Makes a claimed row due again at {@code at}, e.g. after a failed send. */
+    public void retryAt(long id, Instant at) {
+        jdbc.update("UPDATE order_outbox SET available_at = ? WHERE id = ?", Timestamp.from(at), id);
+    }
+
+    /**
+     * Adds rows for orders that are still {@code emailed = false} but have none, such as orders placed
+     * before the outbox existed, unless {@code order_emails} already holds {@code maxAttempts} attempts
+     * for them. The recorded attempts carry over. Returns the rows added.
+     */
+    public int backfill(int maxAttempts) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbc.update(BACKFILL, ORDER_PLACED, now, now, maxAttempts);
+    }
+
+    /** Removes a handled row. */
+    public void delete(long id) {
+        jdbc.update("DELETE FROM order_outbox WHERE id = ?", id);
+    }
+
+    // MySQL 8 lets concurrent relays skip each other's locked rows instead of queueing behind them;
+    // elsewhere (H2 in tests) the plain lock only serialises the short claim transaction
+    private String claimSql() {
+        String sql = claimSql;
+        if (sql == null) {
+            String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            boolean mysql = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+            sql = mysql ? CLAIMABLE + " SKIP LOCKED" : CLAIMABLE;
+            claimSql = sql;
+        }
+        return sql;
+    }
+
+    /** A claimed row; {@code attempts} includes the current claim. */
+    public static class Entry {
+        private final long id;
+        private final long orderId;
+        private final int attempts;
+
+        Entry(long id, long orderId, int attempts) {
+            this.id = id;
+            this.orderId = orderId;
+            this.attempts = attempts;
+        }
+
+        public long getId() { return id; }
+        public long getOrderId() { return orderId; }
+        public int getAttempts() { return attempts; }
+    }
+}
@@ -0,0 +1,331 @@
+package com.bookstore.event;
+
+import com.bookstore.model.Order;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.service.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves {@link OrderOutbox} rows to the {@link EmailDeliveryQueue}. It polls every
+ * {@code app.outbox.poll-ms} and is woken by each order commit; every pass claims batches of up to
+ * {@code app.outbox.batch-size} rows (never more than the mail queue has room for), loads their orders in
+ * one query and queues the sends in groups of {@code app.mail.batch-size}, one email service call (and
+ * SMTP session) per group. A row is deleted together with {@code emailed = true} after its send
+ * succeeded, so confirmations go out at least once and, rarely, twice.
+ * <p>
+ * A failed send is retried after an exponential backoff with jitter ({@code app.outbox.retry.*}) until
+ * the row has had {@code max-attempts} attempts; then it is dropped and the order keeps
+ * {@code emailed = false} for a manual resend. While a row waits for a mail worker the relay renews its
+ * lease on every pass, so a long mail queue never lets it come due again and get claimed twice; orders
+ * mailed in the meantime are skipped right before the send. A delivery the mail queue drops is released
+ * at once without counting as an attempt, and an interrupted one comes due when its lease runs out.
+ * After {@code outage-threshold} failures in a row the relay assumes the mail server is down and sends
+ * one probe per poll until one gets through, so a backlog does not hit a server that is just coming back
+ * all at once.
+ */
+@Component
+public class OrderOutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    private final OrderOutbox outbox;
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+    private final OrderEmailAuditWriter audit;
+    private final EmailDeliveryQueue deliveryQueue;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollMillis;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration retryCap;
+    private final int outageThreshold;
+    private final int sendBatch;
+    private final AtomicInteger failureStreak = new AtomicInteger();
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+    // claimed rows handed to the mail queue and not yet sent; their leases are renewed until they are
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile long nextProbeAt;
+    private volatile long nextRenewalAt;
+    private volatile ScheduledExecutorService scheduler;
+
+    public OrderOutboxRelay(OrderOutbox outbox, OrderRepository orderRepository, EmailService emailService,
+                            OrderEmailAuditWriter audit, EmailDeliveryQueue deliveryQueue,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.outbox.relay-enabled:true}") boolean enabled,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.poll-ms:1000}") long pollMillis,
+                            @Value("${app.outbox.lease-seconds:60}") long leaseSeconds,
+                            @Value("${app.outbox.retry.max-attempts:8}") int maxAttempts,
+                            @Value("${app.outbox.retry.base-seconds:30}") long retryBaseSeconds,
+                            @Value("${app.outbox.retry.max-delay-minutes:360}") long retryCapMinutes,
+                            @Value("${app.outbox.retry.outage-threshold:20}") int outageThreshold,
+                            @Value("${app.mail.batch-size:20}") int sendBatch) {
+        if (batchSize < 1) throw new IllegalArgumentException("app.outbox.batch-size must be positive");
+        if (maxAttempts < 1) throw new IllegalArgumentException("app.outbox.retry.max-attempts must be positive");
+        if (sendBatch < 1) throw new IllegalArgumentException("app.mail.batch-size must be positive");
+        this.outbox = outbox;
+        this.orderRepository = orderRepository;
+        this.emailService = emailService;
+        this.audit = audit;
+        this.deliveryQueue = deliveryQueue;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.retryCap = Duration.ofMinutes(retryCapMinutes);
+        this.outageThreshold = outageThreshold;
+        this.sendBatch = sendBatch;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        try {
+            int added = outbox.backfill(maxAttempts);
+            if (added > 0) log.info("order outbox: queued {} unmailed orders for retry", added);
+        } catch (Exception e) {
+            log.error("order outbox backfill failed", e);
+        }
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-outbox-relay");
+            t.setDaemon(true);
+            return t;
+        });
+        // starts at once: rows left by an earlier run (or another node that died) are due already
+        s.scheduleWithFixedDelay(this::relayQuietly, 0, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler = s;
+        log.info("order outbox relay on: batches of {}, polling every {} ms", batchSize, pollMillis);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        ScheduledExecutorService s = scheduler;
+        if (s == null) return;
+        s.shutdown();
+        s.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /** Runs a pass soon on the relay thread; wakes arriving while one is pending are folded into it. */
+    public void wake() {
+        ScheduledExecutorService s = scheduler;
+        if (s == null || !wakePending.compareAndSet(false, true)) return;
+        try {
+            s.execute(() -> {
+                wakePending.set(false);
+                relayQuietly();
+            });
+        } catch (RuntimeException shuttingDown) {
+            wakePending.set(false);
+        }
+    }
+
+    /**
+     * Claims and queues due rows until none are left or the mail queue is full, or a single probe while
+     * the mail server looks down; returns the rows claimed.
+     */
+    public int relay() {
+        renewLeases();
+        int total = 0;
+        while (true) {
+            boolean probing = failureStreak.get() >= outageThreshold;
+            if (probing) {
+                // commits wake the relay too; keep probes at one per poll interval
+                long now = System.currentTimeMillis();
+                if (now < nextProbeAt) return total;
+                nextProbeAt = now + pollMillis;
+            }
+            long capacity = (long) deliveryQueue.remainingCapacity() * sendBatch;
+            int room = (int) Math.min(probing ? 1 : batchSize, capacity);
+            if (room == 0) return total;
+            List<OrderOutbox.Entry> claimed = tx.execute(status -> outbox.claim(room, lease));
+            if (claimed == null || claimed.isEmpty()) return total;
+            dispatch(claimed);
+            total += claimed.size();
+            if (probing || claimed.size() < room) return total;
+        }
+    }
+
+    /**
+     * Delay before the retry that follows failed send number {@code attempt}: {@code base * 2^(attempt-1)},
+     * capped, of which the upper half is random ({@code random} in [0, 1)) so rows that failed together
+     * do not come due together.
+     */
+    static Duration backoff(int attempt, Duration base, Duration cap, double random) {
+        long ceiling = cap.toMillis();
+        long exp = base.toMillis() << Math.min(Math.max(attempt - 1, 0), 30);
+        if (exp <= 0 || exp > ceiling) exp = ceiling;
+        return Duration.ofMillis(exp / 2 + (long) (exp / 2 * random));
+    }
+
+    // a third of the lease ahead, so a pass or two can be late without the rows coming due
+    private void renewLeases() {
+        long now = System.currentTimeMillis();
+        if (now < nextRenewalAt) return;
+        nextRenewalAt = now + lease.toMillis() / 3;
+        outbox.extend(new ArrayList<>(inFlight), lease);
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (Exception e) {
+            // claimed rows come due again once their lease runs out
+            log.error("order outbox relay failed", e);
+        }
+    }
+
+    private void dispatch(List<OrderOutbox.Entry> claimed) {
+        List<Long> ids = new ArrayList<>(claimed.size());
+        for (OrderOutbox.Entry e : claimed) ids.add(e.getOrderId());
+        // users, items and books of the whole batch in one statement; the sends run without a session
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order o : orderRepository.findAllWithItemsByIdIn(ids)) orders.put(o.getId(), o);
+
+        List<OrderOutbox.Entry> entries = new ArrayList<>(sendBatch);
+        List<Order> batch = new ArrayList<>(sendBatch);
+        for (OrderOutbox.Entry e : claimed) {
+            Order order = orders.get(e.getOrderId());
+            if (order == null) {
+                log.warn("order outbox: order not found id={}, dropping event", e.getOrderId());
+                outbox.delete(e.getId());
+                continue;
+            }
+            if (order.isEmailed()) {
+                // sent meanwhile, e.g. by a manual resend
+                outbox.delete(e.getId());
+                continue;
+            }
+            entries.add(e);
+            batch.add(order);
+            if (batch.size() == sendBatch) {
+                submit(entries, batch);
+                entries = new ArrayList<>(sendBatch);
+                batch = new ArrayList<>(sendBatch);
+            }
+        }
+        if (!batch.isEmpty()) submit(entries, batch);
+    }
+
+    private void submit(List<OrderOutbox.Entry> entries, List<Order> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Order o : batch) ids.add(o.getId());
+        List<Long> rows = new ArrayList<>(entries.size());
+        for (OrderOutbox.Entry e : entries) rows.add(e.getId());
+        // in flight before the queue sees it, a worker may finish it right away
+        inFlight.addAll(rows);
+        if (!deliveryQueue.submit(ids, () -> deliver(entries, batch))) {
+            inFlight.removeAll(rows);
+            outbox.release(rows);
+        }
+    }
+
+    private int deliver(List<OrderOutbox.Entry> entries, List<Order> batch) {
+        try {
+            return send(entries, batch);
+        } finally {
+            for (OrderOutbox.Entry e : entries) inFlight.remove(e.getId());
+        }
+    }
+
+    // one call to the email service, so an SMTP sender can put the whole batch through one session
+    private int send(List<OrderOutbox.Entry> entries, List<Order> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Order o : batch) ids.add(o.getId());
+        Set<Long> emailed = new HashSet<>(orderRepository.findEmailedIdsIn(ids));
+        if (!emailed.isEmpty()) {
+            // mailed while this delivery was queued, e.g. by a manual resend
+            List<OrderOutbox.Entry> keptEntries = new ArrayList<>(entries.size());
+            List<Order> kept = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (emailed.contains(batch.get(i).getId())) {
+                    outbox.delete(entries.get(i).getId());
+                } else {
+                    keptEntries.add(entries.get(i));
+                    kept.add(batch.get(i));
+                }
+            }
+            if (kept.isEmpty()) return 0;
+            entries = keptEntries;
+            batch = kept;
+        }
+        Map<Long, RuntimeException> failures;
+        try {
+            failures = emailService.sendOrderConfirmations(batch);
+        } catch (RuntimeException e) {
+            failures = new HashMap<>();
+            for (Order o : batch) failures.put(o.getId(), e);
+        }
+        List<OrderOutbox.Entry> sent = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutbox.Entry entry = entries.get(i);
+            RuntimeException failure = failures.get(entry.getOrderId());
+            if (failure == null) {
+                sent.add(entry);
+            } else {
+                retryLater(entry);
+                recordAttempt(entry.getOrderId(), false, failure.getMessage());
+            }
+        }
+        if (sent.isEmpty()) {
+            failureStreak.addAndGet(failures.size());
+        } else {
+            failureStreak.set(0);
+            tx.executeWithoutResult(status -> {
+                for (OrderOutbox.Entry entry : sent) {
+                    outbox.delete(entry.getId());
+                    orderRepository.markEmailed(entry.getOrderId());
+                }
+            });
+            for (OrderOutbox.Entry entry : sent) recordAttempt(entry.getOrderId(), true, null);
+        }
+        return failures.size();
+    }
+
+    private void retryLater(OrderOutbox.Entry entry) {
+        try {
+            if (entry.getAttempts() >= maxAttempts) {
+                log.warn("giving up on the confirmation for orderId={} after {} attempts", entry.getOrderId(), entry.getAttempts());
+                outbox.delete(entry.getId());
+            } else {
+                Duration delay = backoff(entry.getAttempts(), retryBase, retryCap, ThreadLocalRandom.current().nextDouble());
+                outbox.retryAt(entry.getId(), Instant.now().plus(delay));
+            }
+        } catch (Exception e) {
+            // the lease brings the row back instead
+            log.error("could not reschedule outbox row {}", entry.getId(), e);
+        }
+    }
+
+    private void recordAttempt(Long orderId, boolean success, String error) {
+        audit.record(orderId, success, "smtp", error);
+    }
+}
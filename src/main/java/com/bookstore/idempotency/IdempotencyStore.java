@@ -0,0 +1,267 @@
+package com.bookstore.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} (scoped to the user) and replays its response
+ * to retries for {@code app.idempotency.ttl-hours}.
+ * <p>
+ * Finished responses are kept in a bounded LRU in front of the {@code idempotency_keys} table. A request
+ * claims its key by inserting an unfinished row before doing the work. Concurrent duplicates on this
+ * instance wait for the first one's future, and those on other instances poll the row until the response
+ * is stored. Responses are stored unless they are 5xx; a failed attempt gives up its claim so the client
+ * can retry. If the process dies between the work and storing its response, the claim stays unfinished
+ * and retries get 409 until it expires: a duplicate order is worse than a stuck key.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_MILLIS = 100;
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper mapper;
+    private final Duration ttl;
+    private final long waitMillis;
+    private final long cleanupMinutes;
+    private final Map<String, StoredResponse> recent; // guarded by itself
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private ScheduledExecutorService cleaner;
+
+    public IdempotencyStore(JdbcTemplate jdbc, ObjectMapper mapper,
+                            @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                            @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${app.idempotency.wait-ms:10000}") long waitMillis,
+                            @Value("${app.idempotency.cleanup-minutes:10}") long cleanupMinutes) {
+        this.jdbc = jdbc;
+        this.mapper = mapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitMillis = waitMillis;
+        this.cleanupMinutes = cleanupMinutes;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code work} unless {@code key} was already used by {@code username}, in which case the stored
+     * response is replayed (with an {@value StoredResponse#REPLAYED_HEADER} header). Reusing a key for a
+     * different {@code request} is a 422.
+     */
+    public ResponseEntity<?> execute(String username, String key, Object request, Supplier<ResponseEntity<?>> work) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String hash = hash(request);
+        String id = username + '\n' + key;
+        StoredResponse done = cached(id);
+        if (done != null) return replay(done, hash);
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) return replay(await(running), hash);
+        try {
+            StoredResponse stored = load(username, key);
+            if (stored == null ? !claim(username, key, hash) : stored.getStatus() == 0) stored = poll(username, key);
+            if (stored != null) {
+                if (stored.getStatus() == 0) return replay(null, hash);
+                remember(id, stored);
+                mine.complete(stored);
+                return replay(stored, hash);
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = work.get();
+            } catch (RuntimeException e) {
+                unclaim(username, key);
+                throw e;
+            }
+            if (response.getStatusCodeValue() >= 500) {
+                unclaim(username, key);
+                return response;
+            }
+            StoredResponse result = store(username, key, hash, response);
+            remember(id, result);
+            mine.complete(result);
+            return response;
+        } finally {
+            inFlight.remove(id, mine);
+            // waiters of a failed attempt see null and are told to retry
+            mine.complete(null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-cleaner");
+            t.setDaemon(true);
+            return t;
+        });
+        cleaner.scheduleWithFixedDelay(() -> {
+            try {
+                int n = jdbc.update("DELETE FROM idempotency_keys WHERE expires_at < ?", Timestamp.from(Instant.now()));
+                if (n > 0) log.debug("removed {} expired idempotency keys", n);
+            } catch (Exception e) {
+                log.error("idempotency key cleanup failed", e);
+            }
+        }, cleanupMinutes, cleanupMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) cleaner.shutdownNow();
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String hash) {
+        if (stored == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("a request with this " + HEADER + " is still in progress or failed; retry later");
+        }
+        if (!stored.getRequestHash().equals(hash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(HEADER + " was already used for a different request");
+        }
+        return stored.replay();
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // another instance holds the claim: wait for its response, its failure (row gone) or the timeout
+    private StoredResponse poll(String username, String key) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            StoredResponse stored = load(username, key);
+            if (stored == null || stored.getStatus() > 0) return stored == null ? unfinished() : stored;
+        }
+        return unfinished();
+    }
+
+    private static StoredResponse unfinished() {
+        return new StoredResponse("", 0, MediaType.TEXT_PLAIN_VALUE, null, null);
+    }
+
+    private StoredResponse cached(String id) {
+        synchronized (recent) {
+            StoredResponse r = recent.get(id);
+            if (r != null && r.getExpiresAt().isBefore(Instant.now())) {
+                recent.remove(id);
+                return null;
+            }
+            return r;
+        }
+    }
+
+    private void remember(String id, StoredResponse r) {
+        synchronized (recent) {
+            recent.put(id, r);
+        }
+    }
+
+    /** The stored row; status 0 while its request is still running. Null when there is none (or it expired). */
+    private StoredResponse load(String username, String key) {
+        List<StoredResponse> rows = jdbc.query("SELECT request_hash, status_code, content_type, response_body, expires_at"
+                        + " FROM idempotency_keys WHERE username = ? AND idem_key = ? AND expires_at > ?",
+                (rs, n) -> new StoredResponse(rs.getString(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                        rs.getTimestamp(5).toInstant()),
+                username, key, Timestamp.from(Instant.now()));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private boolean claim(String username, String key, String hash) {
+        Instant now = Instant.now();
+        // an expired row the cleaner has not reached yet would block the insert
+        jdbc.update("DELETE FROM idempotency_keys WHERE username = ? AND idem_key = ? AND expires_at <= ?",
+                username, key, Timestamp.from(now));
+        try {
+            jdbc.update("INSERT INTO idempotency_keys (username, idem_key, request_hash, status_code, created_at, expires_at)"
+                    + " VALUES (?, ?, ?, 0, ?, ?)", username, key, hash, Timestamp.from(now), Timestamp.from(now.plus(ttl)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void unclaim(String username, String key) {
+        jdbc.update("DELETE FROM idempotency_keys WHERE username = ? AND idem_key = ? AND status_code = 0", username, key);
+    }
+
+    private StoredResponse store(String username, String key, String hash, ResponseEntity<?> response) {
+        Object body = response.getBody();
+        String contentType = body instanceof String ? MediaType.TEXT_PLAIN_VALUE : MediaType.APPLICATION_JSON_VALUE;
+        String text;
+        try {
+            text = body == null || body instanceof String ? (String) body : mapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot store response for " + HEADER + " " + key, e);
+        }
+        int status = response.getStatusCodeValue();
+        jdbc.update("UPDATE idempotency_keys SET status_code = ?, content_type = ?, response_body = ?"
+                + " WHERE username = ? AND idem_key = ?", status, contentType, text, username, key);
+        return new StoredResponse(hash, status, contentType, text, Instant.now().plus(ttl));
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(mapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("cannot hash request", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.bookstore.idempotency;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+/** The response of a request made with an {@code Idempotency-Key}, as replayed to its retries. */
+public class StoredResponse {
+
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final String requestHash;
+    private final int status;
+    private final String contentType;
+    private final String body;
+    private final Instant expiresAt;
+
+    public StoredResponse(String requestHash, int status, String contentType, String body, Instant expiresAt) {
+        this.requestHash = requestHash;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getRequestHash() { return requestHash; }
+    public int getStatus() { return status; }
+    public String getContentType() { return contentType; }
+    public String getBody() { return body; }
+    public Instant getExpiresAt() { return expiresAt; }
+
+    ResponseEntity<String> replay() {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(REPLAYED_HEADER, "true")
+                .body(body);
+    }
+}
@@ -9,6 +9,7 @@ import com.bookstore.repository.BookRepository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class DefaultBooks implements CommandLineRunner {
@@ -66,11 +67,28 @@ public class DefaultBooks implements CommandLineRunner {
                 + "stock INT NOT NULL,"
                 + "description TEXT,"
                 + "created_at DATETIME NOT NULL,"
-                + "updated_at DATETIME NULL,"
+                + "updated_at DATETIME NOT NULL,"
                 + "version BIGINT,"
-                + "UNIQUE KEY idx_books_isbn (isbn)"
+                + "UNIQUE KEY idx_books_isbn (isbn),"
+                + "INDEX idx_books_title (title),"
+                + "INDEX idx_books_author (author),"
+                + "FULLTEXT INDEX ft_books_title_author (title, author),"
+                + "FULLTEXT INDEX ft_books_title (title),"
+                + "FULLTEXT INDEX ft_books_author (author)"
                 + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
 
+        // Search indexes for tables created before they were part of the DDL above
+        ensureIndex("books", "idx_books_title", "CREATE INDEX idx_books_title ON books (title)");
+        ensureIndex("books", "idx_books_author", "CREATE INDEX idx_books_author ON books (author)");
+        ensureIndex("books", "ft_books_title_author", "CREATE FULLTEXT INDEX ft_books_title_author ON books (title, author)");
+        ensureIndex("books", "ft_books_title", "CREATE FULLTEXT INDEX ft_books_title ON books (title)");
+        ensureIndex("books", "ft_books_author", "CREATE FULLTEXT INDEX ft_books_author ON books (author)");
+        // Keyset pagination ordered by (updated_at, id)
+        ensureUpdatedAtNotNull("books");
+        ensureUpdatedAtNotNull("users");
+        ensureIndex("books", "idx_books_updated_id", "CREATE INDEX idx_books_updated_id ON books (updated_at, id)");
+        ensureIndex("users", "idx_users_updated_id", "CREATE INDEX idx_users_updated_id ON users (updated_at, id)");
+
         // Ensure orders and order_items tables exist for MySQL path so Hibernate/JPA can persist orders
         jdbc.execute("CREATE TABLE IF NOT EXISTS orders ("
             + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
@@ -80,7 +98,7 @@ public class DefaultBooks implements CommandLineRunner {
             + "payment_status VARCHAR(50) NOT NULL DEFAULT 'PENDING',"
             + "emailed TINYINT(1) NOT NULL DEFAULT 0,"
             + "created_at DATETIME NOT NULL,"
-            + "updated_at DATETIME NULL,"
+            + "updated_at DATETIME NOT NULL,"
             + "version BIGINT,"
             + "INDEX idx_orders_user (user_id),"
             + "CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT ON UPDATE CASCADE"
@@ -95,6 +113,10 @@ public class DefaultBooks implements CommandLineRunner {
                 jdbc.execute("ALTER TABLE orders ADD COLUMN emailed TINYINT(1) NOT NULL DEFAULT 0");
             }
         } catch (Exception ignore) { }
+        ensureUpdatedAtNotNull("orders");
+        ensureIndex("orders", "idx_orders_updated_id", "CREATE INDEX idx_orders_updated_id ON orders (updated_at, id)");
+        // customer order history, newest first; also serves the user_id foreign key
+        ensureIndex("orders", "idx_orders_user_created_id", "CREATE INDEX idx_orders_user_created_id ON orders (user_id, created_at, id)");
 
         jdbc.execute("CREATE TABLE IF NOT EXISTS order_items ("
             + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
@@ -126,6 +148,57 @@ public class DefaultBooks implements CommandLineRunner {
             + "CONSTRAINT fk_order_emails_order FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE ON UPDATE CASCADE"
             + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
 
+        // Pending stock movements of the inventory ledger (app.inventory.ledger.enabled); no FK so
+        // deleting a book never waits on the journal
+        jdbc.execute("CREATE TABLE IF NOT EXISTS stock_journal ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
+            + "book_id BIGINT NOT NULL,"
+            + "quantity INT NOT NULL,"
+            + "created_at DATETIME(6) NOT NULL,"
+            + "INDEX idx_stock_journal_book (book_id)"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+
+        // Cart holds; expiry looks rows up by expires_at, checkout by user and book
+        jdbc.execute("CREATE TABLE IF NOT EXISTS stock_holds ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
+            + "user_id BIGINT NOT NULL,"
+            + "book_id BIGINT NOT NULL,"
+            + "quantity INT NOT NULL,"
+            + "created_at DATETIME(6) NOT NULL,"
+            + "expires_at DATETIME(6) NOT NULL,"
+            + "INDEX idx_stock_holds_expires (expires_at),"
+            + "INDEX idx_stock_holds_user_book (user_id, book_id)"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+
+        // Order events awaiting the outbox relay; available_at is when a row may next be claimed. No FK, so
+        // the relay drops events of orders that are gone
+        jdbc.execute("CREATE TABLE IF NOT EXISTS order_outbox ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
+            + "order_id BIGINT NOT NULL,"
+            + "event_type VARCHAR(50) NOT NULL,"
+            + "attempts INT NOT NULL DEFAULT 0,"
+            + "created_at DATETIME(6) NOT NULL,"
+            + "available_at DATETIME(6) NOT NULL,"
+            + "INDEX idx_order_outbox_available (available_at, id)"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+        // the email retry backfill looks for unmailed orders without an outbox row
+        ensureIndex("order_outbox", "idx_order_outbox_order", "CREATE INDEX idx_order_outbox_order ON order_outbox (order_id)");
+        ensureIndex("orders", "idx_orders_emailed_id", "CREATE INDEX idx_orders_emailed_id ON orders (emailed, id)");
+
+        // status_code 0 marks a request that is still running
+        jdbc.execute("CREATE TABLE IF NOT EXISTS idempotency_keys ("
+            + "username VARCHAR(100) NOT NULL,"
+            + "idem_key VARCHAR(100) NOT NULL,"
+            + "request_hash CHAR(64) NOT NULL,"
+            + "status_code INT NOT NULL DEFAULT 0,"
+            + "content_type VARCHAR(100) NULL,"
+            + "response_body MEDIUMTEXT NULL,"
+            + "created_at DATETIME(6) NOT NULL,"
+            + "expires_at DATETIME(6) NOT NULL,"
+            + "PRIMARY KEY (username, idem_key),"
+            + "INDEX idx_idempotency_keys_expires (expires_at)"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+
         Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM books", Integer.class);
         if (count != null && count > 0) {
             System.out.println("DefaultBooks: books table already has data (count=" + count + ")");
@@ -149,6 +222,39 @@ public class DefaultBooks implements CommandLineRunner {
         System.out.println("DefaultBooks: inserted/updated " + rows.size() + " books.");
     }
 
+    private void ensureIndex(String table, String index, String ddl) {
+        try {
+            Integer existing = jdbc.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?",
+                    Integer.class, table, index);
+            if (existing != null && existing == 0) {
+                jdbc.execute(ddl);
+            }
+        } catch (Exception ex) {
+            System.out.println("DefaultBooks: could not ensure index " + index + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Older DDL left updated_at nullable. The (updated_at, id) keyset walks cannot step past a NULL, so rows
+     * that never had an update get their created_at and the column becomes NOT NULL.
+     */
+    private void ensureUpdatedAtNotNull(String table) {
+        try {
+            Map<String, Object> column = jdbc.queryForMap(
+                    "SELECT IS_NULLABLE, COLUMN_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'updated_at'",
+                    table);
+            if ("YES".equals(column.get("IS_NULLABLE"))) {
+                int filled = jdbc.update("UPDATE " + table + " SET updated_at = created_at WHERE updated_at IS NULL");
+                // keep the column type (DATETIME or DATETIME(6)) so existing cursors stay comparable
+                jdbc.execute("ALTER TABLE " + table + " MODIFY updated_at " + column.get("COLUMN_TYPE") + " NOT NULL");
+                System.out.println("DefaultBooks: " + table + ".updated_at is now NOT NULL (" + filled + " rows backfilled)");
+            }
+        } catch (Exception ex) {
+            System.out.println("DefaultBooks: could not make " + table + ".updated_at NOT NULL: " + ex.getMessage());
+        }
+    }
+
     private Book createBook(String title, String author, String isbn, BigDecimal price, int stock, String desc) {
         Book b = new Book();
         b.setTitle(title);
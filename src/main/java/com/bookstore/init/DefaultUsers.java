@@ -67,7 +67,7 @@ public class DefaultUsers implements CommandLineRunner {
                 + "roles VARCHAR(200),"
                 + "enabled BOOLEAN NOT NULL DEFAULT TRUE,"
                 + "created_at DATETIME NOT NULL,"
-                + "updated_at DATETIME NULL,"
+                + "updated_at DATETIME NOT NULL,"
                 + "version BIGINT," 
                 + "UNIQUE KEY ux_users_username (username),"
                 + "UNIQUE KEY ux_users_email (email)"
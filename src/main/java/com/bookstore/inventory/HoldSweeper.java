@@ -0,0 +1,67 @@
+package com.bookstore.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires cart holds: advances the {@link StockHoldService} timing wheel every tick and runs the
+ * {@code expires_at} index scan on a slower schedule, starting right away so holds left over from a
+ * previous run are released on startup.
+ */
+@Component
+public class HoldSweeper {
+    private static final Logger log = LoggerFactory.getLogger(HoldSweeper.class);
+
+    private final StockHoldService holds;
+    private final long tickMillis;
+    private final long overdueScanSeconds;
+    private ScheduledExecutorService scheduler;
+
+    public HoldSweeper(StockHoldService holds,
+                       @Value("${app.holds.tick-ms:1000}") long tickMillis,
+                       @Value("${app.holds.overdue-scan-seconds:60}") long overdueScanSeconds) {
+        this.holds = holds;
+        this.tickMillis = tickMillis;
+        this.overdueScanSeconds = overdueScanSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hold-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int n = holds.expireDue(System.currentTimeMillis());
+                if (n > 0) log.debug("released {} expired holds", n);
+            } catch (Exception e) {
+                // the rows stay; the overdue scan picks them up
+                log.error("hold expiry failed", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int n = holds.expireOverdue();
+                if (n > 0) log.info("released {} overdue holds found by the expires_at scan", n);
+            } catch (Exception e) {
+                log.error("overdue hold scan failed", e);
+            }
+        }, 0, overdueScanSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+}
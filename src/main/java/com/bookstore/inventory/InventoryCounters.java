@@ -0,0 +1,41 @@
+package com.bookstore.inventory;
+
+import java.util.Map;
+
+/**
+ * Per-book available stock behind the {@link InventoryLedger}. Implementations only have to make each
+ * call atomic; loading, journaling and transaction hooks stay in the ledger.
+ */
+interface InventoryCounters {
+
+    boolean isLoaded(Long bookId);
+
+    /** Installs a counter unless one is already there (a concurrent loader won). */
+    void load(Long bookId, int available);
+
+    /**
+     * Takes all of {@code quantities} or none of them; every book must be loaded.
+     *
+     * @return the first book short of stock, or null when everything was taken
+     */
+    Long take(Map<Long, Integer> quantities);
+
+    /** Adds copies back; books without a counter are skipped. */
+    void give(Map<Long, Integer> quantities);
+
+    /**
+     * Moves a loaded counter towards {@code stock}: a decrease applies at once, an increase is left to
+     * the caller.
+     *
+     * @return {@code stock} minus the available count before the call, or null when the counter was
+     * dropped in the meantime and has to be loaded again
+     */
+    Integer lower(Long bookId, int stock);
+
+    Integer available(Long bookId);
+
+    void drop(Long bookId);
+
+    default void close() {
+    }
+}
@@ -0,0 +1,228 @@
+package com.bookstore.inventory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional in-memory owner of book stock ({@code app.inventory.ledger.enabled}). Checkouts reserve
+ * against per-book counters instead of queueing on the book's MySQL row lock; every reservation is also
+ * appended to the {@link StockJournal} in the order's transaction and {@link StockJournalFlusher} writes
+ * the journal through to {@code books.stock} in batches.
+ * <p>
+ * The counters are either guarded by striped locks ({@code mode=striped}) or owned by single-writer
+ * shards ({@code mode=sequencer}, see {@link ShardedSequencer}). They are loaded lazily from the
+ * committed stock minus the pending journal. Decrements are visible at once and undone if the
+ * transaction rolls back; increments only count once they have committed, so a counter never promises a
+ * copy that may not exist. A counter is loaded before the first journal row of a change is written and
+ * is not dropped while any change to its book is still in flight, so a load never counts a row that a
+ * later give or undo also applies. The counters assume this instance is the only writer of stock while
+ * the ledger is on.
+ */
+@Component
+public class InventoryLedger {
+
+    private final StockJournal journal;
+    private final boolean enabled;
+    private final InventoryCounters counters;
+    // books with changes whose transactions have not completed: {open changes, 1 when a reload is due}
+    private final ConcurrentHashMap<Long, int[]> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InventoryLedger(StockJournal journal,
+                           @Value("${app.inventory.ledger.enabled:false}") boolean enabled,
+                           @Value("${app.inventory.ledger.mode:striped}") String mode,
+                           @Value("${app.inventory.ledger.stripes:64}") int stripes,
+                           @Value("${app.inventory.ledger.shards:4}") int shards,
+                           @Value("${app.inventory.ledger.ring-size:1024}") int ringSize) {
+        this.journal = journal;
+        this.enabled = enabled;
+        if ("sequencer".equals(mode)) {
+            // shard threads only when they will be used
+            this.counters = enabled ? new ShardedSequencer(shards, ringSize) : new StripedCounters(1);
+        } else if ("striped".equals(mode)) {
+            this.counters = new StripedCounters(stripes);
+        } else {
+            throw new IllegalArgumentException("app.inventory.ledger.mode must be striped or sequencer, was " + mode);
+        }
+    }
+
+    public InventoryLedger(StockJournal journal, boolean enabled, int stripes) {
+        this(journal, enabled, "striped", stripes, 1, 16);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes {@code quantities} (book id to copies) out of the counters, all or nothing, and journals them.
+     *
+     * @return the first book that is unknown or short of stock, as a one-element list; empty on success
+     */
+    public List<Long> reserve(Map<Long, Integer> quantities) {
+        Set<Long> books = quantities.keySet();
+        enter(books);
+        boolean journaled = false;
+        try {
+            for (Long id : books) {
+                if (!ensureLoaded(id)) return List.of(id);
+            }
+            Long shortOf;
+            // a book whose counter was dropped after the check above is loaded again, not reported short
+            while ((shortOf = counters.take(quantities)) != null && !counters.isLoaded(shortOf)) {
+                if (!ensureLoaded(shortOf)) return List.of(shortOf);
+            }
+            if (shortOf != null) return List.of(shortOf);
+            try {
+                journal.append(quantities);
+            } catch (RuntimeException e) {
+                counters.give(quantities);
+                throw e;
+            }
+            journaled = true;
+            return List.of();
+        } finally {
+            if (journaled) {
+                settle(books, null, () -> counters.give(quantities));
+            } else {
+                exit(books, false);
+            }
+        }
+    }
+
+    /** Puts copies back (released holds); they become available once the transaction commits. */
+    public void release(Map<Long, Integer> quantities) {
+        Set<Long> books = quantities.keySet();
+        enter(books);
+        boolean journaled = false;
+        try {
+            // loaded before the rows exist, so no load can count them as well as the give below
+            books.forEach(this::ensureLoaded);
+            Map<Long, Integer> change = new TreeMap<>();
+            quantities.forEach((id, qty) -> change.put(id, -qty));
+            journal.append(change);
+            journaled = true;
+        } finally {
+            if (journaled) {
+                settle(books, () -> counters.give(quantities), null);
+            } else {
+                exit(books, false);
+            }
+        }
+    }
+
+    /**
+     * Sets the stock of a book from an admin edit. The change is journaled like a reservation; a lower
+     * value applies at once, a higher one when the transaction commits.
+     *
+     * @return false when there is no such book
+     */
+    public boolean setStock(Long bookId, int stock) {
+        Set<Long> books = Set.of(bookId);
+        enter(books);
+        Integer delta = null;
+        boolean journaled = false;
+        try {
+            // a concurrent drop (a delete) can remove the counter after it was loaded
+            while (delta == null) {
+                if (!ensureLoaded(bookId)) return false;
+                delta = counters.lower(bookId, stock);
+            }
+            if (delta == 0) return true;
+            journal.append(Map.of(bookId, -delta));
+            journaled = true;
+            return true;
+        } finally {
+            if (journaled) {
+                Map<Long, Integer> copies = Map.of(bookId, Math.abs(delta));
+                Runnable give = () -> counters.give(copies);
+                // a lower value was applied at once and is undone on rollback; a higher one is given on commit
+                settle(books, delta > 0 ? give : null, delta < 0 ? give : null);
+            } else {
+                exit(books, false);
+            }
+        }
+    }
+
+    /** Drops the counter of a deleted book. */
+    public void forget(Long bookId) {
+        counters.drop(bookId);
+    }
+
+    /** Counted stock of a book, or null when its counter is not loaded. */
+    public Integer available(Long bookId) {
+        return counters.isLoaded(bookId) ? counters.available(bookId) : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        counters.close();
+    }
+
+    private boolean ensureLoaded(Long bookId) {
+        if (counters.isLoaded(bookId)) return true;
+        Integer stock = journal.available(bookId);
+        if (stock == null) return false;
+        counters.load(bookId, stock);
+        return true;
+    }
+
+    /**
+     * Applies the outcome of journaled changes to {@code books} once their transaction completes (at once
+     * without one), then ends their flight.
+     */
+    private void settle(Set<Long> books, Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                if (onCommit != null) onCommit.run();
+            } finally {
+                exit(books, false);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED && onCommit != null) onCommit.run();
+                    if (status == STATUS_ROLLED_BACK && onRollback != null) onRollback.run();
+                } finally {
+                    // the journal alone knows whether the rows made it; reload from it once it is exact
+                    exit(books, status == STATUS_UNKNOWN);
+                }
+            }
+        });
+    }
+
+    private void enter(Set<Long> books) {
+        for (Long id : books) {
+            inFlight.compute(id, (k, f) -> {
+                if (f == null) f = new int[2];
+                f[0]++;
+                return f;
+            });
+        }
+    }
+
+    // the drop happens inside compute, so no change can enter and take from the counter in between
+    private void exit(Set<Long> books, boolean reload) {
+        for (Long id : books) {
+            inFlight.computeIfPresent(id, (k, f) -> {
+                if (reload) f[1] = 1;
+                if (--f[0] > 0) return f;
+                if (f[1] == 1) counters.drop(id);
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.bookstore.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Counters owned by single-threaded shards. Book ids hash to a shard and every mutation of a book runs
+ * on that shard's thread, fed through a bounded ring buffer, so counters need no locks and hot books
+ * never contend on one. An order spanning shards takes its part on each shard and gives the parts back
+ * if any shard comes up short; meanwhile those copies are briefly unavailable to others, which can turn
+ * away a buyer but never oversells.
+ */
+class ShardedSequencer implements InventoryCounters {
+    private static final Logger log = LoggerFactory.getLogger(ShardedSequencer.class);
+
+    private final Shard[] shards;
+    // ids with a counter; written only on their shard's thread together with the counter itself, so a
+    // drop racing a load can never leave an id marked loaded without a counter
+    private final Set<Long> loaded = ConcurrentHashMap.newKeySet();
+
+    ShardedSequencer(int shards, int ringSize) {
+        this.shards = new Shard[Math.max(1, shards)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard("inventory-shard-" + i, Math.max(16, ringSize));
+        }
+    }
+
+    @Override
+    public boolean isLoaded(Long bookId) {
+        return loaded.contains(bookId);
+    }
+
+    @Override
+    public void load(Long bookId, int available) {
+        Shard shard = shard(bookId);
+        shard.submit(() -> {
+            shard.counters.putIfAbsent(bookId, new int[] { available });
+            loaded.add(bookId);
+        });
+    }
+
+    @Override
+    public Long take(Map<Long, Integer> quantities) {
+        Map<Shard, Map<Long, Integer>> parts = split(quantities);
+        if (parts.size() == 1) {
+            Map.Entry<Shard, Map<Long, Integer>> only = parts.entrySet().iterator().next();
+            return only.getKey().call(() -> only.getKey().take(only.getValue())).join();
+        }
+        Map<Shard, CompletableFuture<Long>> results = new HashMap<>();
+        parts.forEach((shard, part) -> results.put(shard, shard.call(() -> shard.take(part))));
+        Long shortOf = null;
+        List<Shard> taken = new ArrayList<>();
+        for (Map.Entry<Shard, CompletableFuture<Long>> r : results.entrySet()) {
+            Long s = r.getValue().join();
+            if (s == null) {
+                taken.add(r.getKey());
+            } else if (shortOf == null || s < shortOf) {
+                shortOf = s;
+            }
+        }
+        if (shortOf != null) {
+            for (Shard shard : taken) {
+                Map<Long, Integer> part = parts.get(shard);
+                shard.submit(() -> shard.give(part));
+            }
+        }
+        return shortOf;
+    }
+
+    @Override
+    public void give(Map<Long, Integer> quantities) {
+        split(quantities).forEach((shard, part) -> shard.submit(() -> shard.give(part)));
+    }
+
+    @Override
+    public Integer lower(Long bookId, int stock) {
+        Shard shard = shard(bookId);
+        return shard.call(() -> {
+            int[] c = shard.counters.get(bookId);
+            if (c == null) return null;
+            int delta = stock - c[0];
+            if (delta < 0) c[0] = stock;
+            return delta;
+        }).join();
+    }
+
+    @Override
+    public Integer available(Long bookId) {
+        Shard shard = shard(bookId);
+        return shard.call(() -> {
+            int[] c = shard.counters.get(bookId);
+            return c == null ? null : c[0];
+        }).join();
+    }
+
+    @Override
+    public void drop(Long bookId) {
+        Shard shard = shard(bookId);
+        shard.submit(() -> {
+            shard.counters.remove(bookId);
+            loaded.remove(bookId);
+        });
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) shard.thread.interrupt();
+    }
+
+    private Shard shard(Long bookId) {
+        return shards[Math.floorMod(bookId.hashCode(), shards.length)];
+    }
+
+    private Map<Shard, Map<Long, Integer>> split(Map<Long, Integer> quantities) {
+        Map<Shard, Map<Long, Integer>> parts = new HashMap<>();
+        quantities.forEach((id, qty) -> parts.computeIfAbsent(shard(id), s -> new TreeMap<>()).put(id, qty));
+        return parts;
+    }
+
+    private static final class Shard {
+        final ArrayBlockingQueue<Runnable> ring;
+        final Thread thread;
+        // touched only by thread
+        final Map<Long, int[]> counters = new HashMap<>();
+
+        Shard(String name, int ringSize) {
+            this.ring = new ArrayBlockingQueue<>(ringSize);
+            this.thread = new Thread(this::run, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        Long take(Map<Long, Integer> part) {
+            for (Map.Entry<Long, Integer> e : part.entrySet()) {
+                int[] c = counters.get(e.getKey());
+                if (c == null || c[0] < e.getValue()) return e.getKey();
+            }
+            part.forEach((id, qty) -> counters.get(id)[0] -= qty);
+            return null;
+        }
+
+        void give(Map<Long, Integer> part) {
+            part.forEach((id, qty) -> {
+                int[] c = counters.get(id);
+                if (c != null) c[0] += qty;
+            });
+        }
+
+        <T> CompletableFuture<T> call(Supplier<T> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            submit(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        }
+
+        // blocks while the ring is full, which pushes back on callers instead of queueing without bound
+        void submit(Runnable task) {
+            try {
+                ring.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while queueing a stock change", e);
+            }
+        }
+
+        private void run() {
+            List<Runnable> batch = new ArrayList<>();
+            try {
+                while (true) {
+                    batch.add(ring.take());
+                    ring.drainTo(batch);
+                    for (Runnable task : batch) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            log.error("stock change failed on {}", thread.getName(), e);
+                        }
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }
+    }
+}
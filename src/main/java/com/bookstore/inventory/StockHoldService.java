@@ -0,0 +1,237 @@
+package com.bookstore.inventory;
+
+import com.bookstore.dto.hold.HoldDto;
+import com.bookstore.dto.hold.HoldRequest;
+import com.bookstore.event.AfterCommit;
+import com.bookstore.model.StockHold;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.StockHoldRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.search.CatalogIndexes;
+import com.bookstore.service.InsufficientStockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side cart holds: stock is taken when a user holds a book and goes back when the hold is
+ * released, expires or turns out larger than what the order bought. Expiry is driven by a
+ * {@link TimingWheel} fed as holds are placed; {@link HoldSweeper} advances it and, less often, looks up
+ * overdue rows through the {@code expires_at} index to catch holds placed before a restart or by another
+ * instance. Whoever deletes a hold row (checkout, release or sweeper) owns its copies, so each hold is
+ * settled exactly once.
+ */
+@Service
+public class StockHoldService {
+
+    private static final int RELEASE_BATCH = 1000;
+
+    private final StockHoldRepository holdRepository;
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final StockReservations stock;
+    private final CatalogIndexes catalogIndexes;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Duration holdFor;
+    private final int maxPerUser;
+    private final TimingWheel<Due> wheel; // guarded by itself
+
+    public StockHoldService(StockHoldRepository holdRepository, UserRepository userRepository,
+                            BookRepository bookRepository, StockReservations stock, CatalogIndexes catalogIndexes,
+                            JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                            @Value("${app.holds.minutes:15}") long minutes,
+                            @Value("${app.holds.max-per-user:20}") int maxPerUser,
+                            @Value("${app.holds.tick-ms:1000}") long tickMillis) {
+        this.holdRepository = holdRepository;
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.stock = stock;
+        this.catalogIndexes = catalogIndexes;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.holdFor = Duration.ofMinutes(minutes);
+        this.maxPerUser = maxPerUser;
+        // 4 levels of 64 slots reach 64^4 ticks, about 194 days at one-second ticks
+        this.wheel = new TimingWheel<>(tickMillis, 4, System.currentTimeMillis());
+    }
+
+    @Transactional
+    public HoldDto place(String username, HoldRequest req) {
+        User user = user(username);
+        if (req.getBookId() == null) throw new IllegalArgumentException("bookId is required");
+        int qty = req.getQuantity() == null ? 1 : req.getQuantity();
+        if (qty <= 0) throw new IllegalArgumentException("quantity must be positive");
+        Instant now = Instant.now();
+        if (holdRepository.countByUserIdAndExpiresAtAfter(user.getId(), now) >= maxPerUser) {
+            throw new IllegalArgumentException("at most " + maxPerUser + " holds per user");
+        }
+        Long bookId = req.getBookId();
+        if (!stock.take(Map.of(bookId, qty)).isEmpty()) {
+            if (!bookRepository.existsById(bookId)) throw new IllegalArgumentException("book not found: " + bookId);
+            throw new InsufficientStockException(bookId);
+        }
+        StockHold h = new StockHold();
+        h.setUserId(user.getId());
+        h.setBookId(bookId);
+        h.setQuantity(qty);
+        h.setExpiresAt(now.plus(holdFor));
+        holdRepository.save(h);
+        refresh(List.of(bookId));
+
+        Due due = new Due(h.getId(), bookId, qty);
+        long at = h.getExpiresAt().toEpochMilli();
+        AfterCommit.run(() -> {
+            synchronized (wheel) {
+                wheel.schedule(at, due);
+            }
+        });
+        return HoldDto.from(h);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HoldDto> list(String username) {
+        User user = user(username);
+        return holdRepository.findByUserIdAndExpiresAtAfterOrderByExpiresAtAsc(user.getId(), Instant.now()).stream()
+                .map(HoldDto::from)
+                .collect(Collectors.toList());
+    }
+
+    /** @return false when the user has no such hold (or it was settled meanwhile) */
+    @Transactional
+    public boolean release(String username, Long holdId) {
+        User user = user(username);
+        Optional<StockHold> hold = holdRepository.findById(holdId).filter(h -> h.getUserId().equals(user.getId()));
+        if (hold.isEmpty()) return false;
+        StockHold h = hold.get();
+        return settle(List.of(new Due(h.getId(), h.getBookId(), h.getQuantity()))) > 0;
+    }
+
+    /**
+     * Turns the user's live holds on the books of an order into part of the order, in the caller's
+     * transaction. Held copies beyond what the order wants go back to stock.
+     *
+     * @return copies per book covered by holds, never more than {@code wanted}
+     */
+    @Transactional
+    public Map<Long, Integer> consume(Long userId, Map<Long, Integer> wanted) {
+        List<Due> chosen = new ArrayList<>();
+        Map<Long, Integer> planned = new TreeMap<>();
+        for (StockHold h : holdRepository.findByUserIdAndExpiresAtAfterOrderByExpiresAtAsc(userId, Instant.now())) {
+            Integer want = wanted.get(h.getBookId());
+            if (want == null || planned.getOrDefault(h.getBookId(), 0) >= want) continue;
+            chosen.add(new Due(h.getId(), h.getBookId(), h.getQuantity()));
+            planned.merge(h.getBookId(), h.getQuantity(), Integer::sum);
+        }
+        if (chosen.isEmpty()) return Map.of();
+
+        Map<Long, Integer> covered = new TreeMap<>();
+        Map<Long, Integer> surplus = new TreeMap<>();
+        copies(deleteRows(chosen)).forEach((bookId, held) -> {
+            int want = wanted.get(bookId);
+            covered.put(bookId, Math.min(held, want));
+            if (held > want) surplus.put(bookId, held - want);
+        });
+        stock.putBack(surplus);
+        return covered;
+    }
+
+    /** Releases holds whose wheel slot came due by {@code nowMillis}; returns the number released. */
+    public int expireDue(long nowMillis) {
+        List<Due> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(nowMillis, due::add);
+        }
+        int released = 0;
+        for (int from = 0; from < due.size(); from += RELEASE_BATCH) {
+            List<Due> chunk = due.subList(from, Math.min(due.size(), from + RELEASE_BATCH));
+            released += tx.execute(s -> settle(chunk));
+        }
+        return released;
+    }
+
+    /** Releases every expired hold found through the {@code expires_at} index; returns the number released. */
+    public int expireOverdue() {
+        int released = 0;
+        while (true) {
+            Timestamp now = Timestamp.from(Instant.now());
+            List<Due> rows = jdbc.query("SELECT id, book_id, quantity FROM stock_holds WHERE expires_at <= ?"
+                            + " ORDER BY expires_at LIMIT ?",
+                    (rs, n) -> new Due(rs.getLong(1), rs.getLong(2), rs.getInt(3)), now, RELEASE_BATCH);
+            if (!rows.isEmpty()) released += tx.execute(s -> settle(rows));
+            if (rows.size() < RELEASE_BATCH) return released;
+        }
+    }
+
+    /** Holds waiting in the wheel, including ones already settled by checkout or release. */
+    public int scheduled() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    // deletes the rows and returns their copies to stock, one batch per statement
+    private int settle(List<Due> holds) {
+        List<Due> deleted = deleteRows(holds);
+        Map<Long, Integer> released = copies(deleted);
+        stock.putBack(released);
+        refresh(released.keySet());
+        return deleted.size();
+    }
+
+    // the holds this call actually deleted; rows already settled elsewhere are left out
+    private List<Due> deleteRows(List<Due> holds) {
+        List<Object[]> ids = new ArrayList<>(holds.size());
+        for (Due h : holds) ids.add(new Object[] { h.id });
+        int[] counts = jdbc.batchUpdate("DELETE FROM stock_holds WHERE id = ?", ids);
+        List<Due> deleted = new ArrayList<>(holds.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) deleted.add(holds.get(i));
+        }
+        return deleted;
+    }
+
+    private static Map<Long, Integer> copies(List<Due> holds) {
+        Map<Long, Integer> copies = new TreeMap<>();
+        for (Due h : holds) copies.merge(h.bookId, h.quantity, Integer::sum);
+        return copies;
+    }
+
+    private void refresh(Collection<Long> bookIds) {
+        // with the ledger on, StockJournalFlusher refreshes once books.stock has caught up
+        if (stock.isDeferred() || bookIds.isEmpty()) return;
+        bookRepository.findAllById(bookIds).forEach(catalogIndexes::bookSaved);
+    }
+
+    private User user(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("user not found: " + username));
+    }
+
+    private static final class Due {
+        final long id;
+        final long bookId;
+        final int quantity;
+
+        Due(long id, long bookId, int quantity) {
+            this.id = id;
+            this.bookId = bookId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookstore.inventory;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of stock movements ({@code stock_journal}) backing the {@link InventoryLedger}. Rows
+ * are written in the transaction of the order that caused them, so a committed order always has its
+ * rows; {@link #flush} later folds them into {@code books.stock} and deletes them in one transaction.
+ * Until then a book's real stock is {@code books.stock} minus its pending rows.
+ */
+@Component
+public class StockJournal {
+
+    private static final String APPEND = "INSERT INTO stock_journal (book_id, quantity, created_at) VALUES (?, ?, ?)";
+
+    // one statement, so stock and pending rows come from the same snapshot even while a flush commits
+    private static final String AVAILABLE = "SELECT b.stock - COALESCE((SELECT SUM(j.quantity) FROM stock_journal j"
+            + " WHERE j.book_id = b.id), 0) FROM books b WHERE b.id = ?";
+
+    private static final String APPLY = "UPDATE books SET stock = stock - ?, version = COALESCE(version, 0) + 1,"
+            + " updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+
+    public StockJournal(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Records {@code quantities} (book id to copies taken; negative puts copies back). */
+    public void append(Map<Long, Integer> quantities) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, qty) -> args.add(new Object[] { id, qty, now }));
+        jdbc.batchUpdate(APPEND, args);
+    }
+
+    /** Committed stock of a book with its pending rows applied, or null when there is no such book. */
+    public Integer available(Long bookId) {
+        List<Integer> rows = jdbc.queryForList(AVAILABLE, Integer.class, bookId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Applies up to {@code limit} of the oldest rows to {@code books.stock} and deletes them. Must run in a
+     * transaction so the stock change and the delete commit together.
+     */
+    public Flushed flush(int limit) {
+        List<long[]> rows = jdbc.query("SELECT id, book_id, quantity FROM stock_journal ORDER BY id LIMIT ?",
+                (rs, n) -> new long[] { rs.getLong(1), rs.getLong(2), rs.getInt(3) }, limit);
+        if (rows.isEmpty()) return new Flushed(0, Map.of());
+
+        Map<Long, Integer> totals = new TreeMap<>();
+        List<Object[]> ids = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            totals.merge(row[1], (int) row[2], Integer::sum);
+            ids.add(new Object[] { row[0] });
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> updates = new ArrayList<>(totals.size());
+        totals.forEach((bookId, qty) -> {
+            if (qty != 0) updates.add(new Object[] { qty, now, bookId });
+        });
+        if (!updates.isEmpty()) jdbc.batchUpdate(APPLY, updates);
+        // by id rather than by range: rows with lower ids may still be uncommitted and belong to the next flush
+        jdbc.batchUpdate("DELETE FROM stock_journal WHERE id = ?", ids);
+        return new Flushed(rows.size(), totals);
+    }
+
+    /** Outcome of one {@link #flush}: rows consumed and the net quantity taken per book. */
+    public static class Flushed {
+        private final int rows;
+        private final Map<Long, Integer> totals;
+
+        Flushed(int rows, Map<Long, Integer> totals) {
+            this.rows = rows;
+            this.totals = totals;
+        }
+
+        public int getRows() { return rows; }
+        public Map<Long, Integer> getTotals() { return totals; }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bookstore.inventory;
+
+import com.bookstore.repository.BookRepository;
+import com.bookstore.search.CatalogIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the {@link StockJournal} through to {@code books.stock} while the {@link InventoryLedger} is on.
+ * On startup it first replays whatever an earlier run left in the journal, then flushes on a fixed delay
+ * and once more on shutdown.
+ */
+@Component
+public class StockJournalFlusher {
+    private static final Logger log = LoggerFactory.getLogger(StockJournalFlusher.class);
+
+    private final InventoryLedger ledger;
+    private final StockJournal journal;
+    private final BookRepository bookRepository;
+    private final CatalogIndexes catalogIndexes;
+    private final TransactionTemplate tx;
+    private final long intervalMs;
+    private final int batchSize;
+    private ScheduledExecutorService scheduler;
+
+    public StockJournalFlusher(InventoryLedger ledger, StockJournal journal, BookRepository bookRepository,
+                               CatalogIndexes catalogIndexes, PlatformTransactionManager transactionManager,
+                               @Value("${app.inventory.ledger.flush-interval-ms:200}") long intervalMs,
+                               @Value("${app.inventory.ledger.flush-batch:1000}") int batchSize) {
+        this.ledger = ledger;
+        this.journal = journal;
+        this.bookRepository = bookRepository;
+        this.catalogIndexes = catalogIndexes;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!ledger.isEnabled()) return;
+        int replayed = flush();
+        log.info("inventory ledger on: replayed {} journal rows, flushing every {} ms", replayed, intervalMs);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-journal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                // rows stay in the journal and are picked up by the next run
+                log.error("stock journal flush failed", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /** Applies the whole journal in batches of {@code flush-batch} rows; returns the number of rows applied. */
+    public int flush() {
+        int total = 0;
+        while (true) {
+            Integer rows = tx.execute(status -> {
+                StockJournal.Flushed flushed = journal.flush(batchSize);
+                // the UPDATE bypassed the entity listener; indexes and caches pick the new stock up after commit
+                if (!flushed.getTotals().isEmpty()) {
+                    bookRepository.findAllById(flushed.getTotals().keySet()).forEach(catalogIndexes::bookSaved);
+                }
+                return flushed.getRows();
+            });
+            total += rows;
+            if (rows < batchSize) return total;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookstore.inventory;
+
+import com.bookstore.repository.BookRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Where stock is taken from and put back to: the {@link InventoryLedger} when it is on, otherwise
+ * conditional UPDATEs on {@code books}. Callers run inside a transaction and refresh the catalog indexes
+ * themselves when {@link #isDeferred()} is false.
+ */
+@Component
+public class StockReservations {
+
+    private final InventoryLedger ledger;
+    private final BookRepository bookRepository;
+
+    public StockReservations(InventoryLedger ledger, BookRepository bookRepository) {
+        this.ledger = ledger;
+        this.bookRepository = bookRepository;
+    }
+
+    /** @return ids that are unknown or short of stock; empty when everything was taken */
+    public List<Long> take(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return List.of();
+        return ledger.isEnabled() ? ledger.reserve(quantities) : bookRepository.reserveStock(quantities);
+    }
+
+    /**
+     * Like {@link #take}, but all or nothing even without the ledger, for callers that carry on in the same
+     * transaction after a miss.
+     */
+    public List<Long> takeAll(Map<Long, Integer> quantities) {
+        List<Long> missed = take(quantities);
+        if (!missed.isEmpty() && !ledger.isEnabled()) {
+            Map<Long, Integer> taken = new TreeMap<>(quantities);
+            missed.forEach(taken::remove);
+            bookRepository.releaseStock(taken);
+        }
+        return missed;
+    }
+
+    public void putBack(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        if (ledger.isEnabled()) {
+            ledger.release(quantities);
+        } else {
+            bookRepository.releaseStock(quantities);
+        }
+    }
+
+    /** True when books.stock only catches up later, through the ledger's journal. */
+    public boolean isDeferred() {
+        return ledger.isEnabled();
+    }
+}
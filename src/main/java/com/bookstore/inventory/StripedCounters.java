@@ -0,0 +1,111 @@
+package com.bookstore.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Counters guarded by a fixed set of lock stripes; an order holds the stripes of all its books at once. */
+class StripedCounters implements InventoryCounters {
+
+    private final ReentrantLock[] stripes;
+    // values guarded by their book's stripe
+    private final ConcurrentHashMap<Long, int[]> counters = new ConcurrentHashMap<>();
+
+    StripedCounters(int stripes) {
+        this.stripes = new ReentrantLock[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) this.stripes[i] = new ReentrantLock();
+    }
+
+    @Override
+    public boolean isLoaded(Long bookId) {
+        return counters.containsKey(bookId);
+    }
+
+    @Override
+    public void load(Long bookId, int available) {
+        counters.putIfAbsent(bookId, new int[] { available });
+    }
+
+    @Override
+    public Long take(Map<Long, Integer> quantities) {
+        List<ReentrantLock> locks = lock(quantities.keySet());
+        try {
+            for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+                int[] c = counters.get(e.getKey());
+                if (c == null || c[0] < e.getValue()) return e.getKey();
+            }
+            quantities.forEach((id, qty) -> counters.get(id)[0] -= qty);
+            return null;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public void give(Map<Long, Integer> quantities) {
+        List<ReentrantLock> locks = lock(quantities.keySet());
+        try {
+            quantities.forEach((id, qty) -> {
+                int[] c = counters.get(id);
+                if (c != null) c[0] += qty;
+            });
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public Integer lower(Long bookId, int stock) {
+        ReentrantLock lock = stripe(bookId);
+        lock.lock();
+        try {
+            int[] c = counters.get(bookId);
+            if (c == null) return null;
+            int delta = stock - c[0];
+            if (delta < 0) c[0] = stock;
+            return delta;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Integer available(Long bookId) {
+        ReentrantLock lock = stripe(bookId);
+        lock.lock();
+        try {
+            int[] c = counters.get(bookId);
+            return c == null ? null : c[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void drop(Long bookId) {
+        counters.remove(bookId);
+    }
+
+    private ReentrantLock stripe(Long bookId) {
+        return stripes[Math.floorMod(bookId.hashCode(), stripes.length)];
+    }
+
+    // stripes in index order, so orders over the same books never wait on each other in a cycle
+    private List<ReentrantLock> lock(Iterable<Long> bookIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long id : bookIds) indexes.add(Math.floorMod(id.hashCode(), stripes.length));
+        List<ReentrantLock> locks = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            stripes[i].lock();
+            locks.add(stripes[i]);
+        }
+        return locks;
+    }
+
+    private static void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+    }
+}
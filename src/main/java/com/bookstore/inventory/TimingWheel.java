@@ -0,0 +1,94 @@
+package com.bookstore.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: level 0 has one slot per tick, each level above has slots 64 times as wide.
+ * Scheduling is O(1) and advancing touches only the slots that come due, plus an occasional cascade of
+ * a higher-level slot into the levels below, so a million pending timers cost nothing while they wait.
+ * Not thread-safe.
+ */
+class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final List<Timer<T>>[][] levels;
+    private long tick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int levels, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.levels = new List[levels][SLOTS];
+        this.tick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules {@code item} to come due at the first tick at or after {@code dueMillis}; past times come
+     * due on the next advance.
+     */
+    void schedule(long dueMillis, T item) {
+        long due = (dueMillis + tickMillis - 1) / tickMillis;
+        place(new Timer<>(Math.max(due, tick + 1), item));
+        size++;
+    }
+
+    /** Moves the wheel to {@code nowMillis} and hands every item that came due to {@code expired}. */
+    void advance(long nowMillis, Consumer<T> expired) {
+        long target = nowMillis / tickMillis;
+        while (tick < target) {
+            tick++;
+            // refill the lower levels from the first level whose slot just turned over
+            for (int level = 1; level < levels.length && ((tick >>> (BITS * level - BITS)) & MASK) == 0; level++) {
+                int slot = (int) ((tick >>> (BITS * level)) & MASK);
+                List<Timer<T>> cascading = levels[level][slot];
+                levels[level][slot] = null;
+                if (cascading != null) cascading.forEach(this::place);
+            }
+            int slot = (int) (tick & MASK);
+            List<Timer<T>> due = levels[0][slot];
+            levels[0][slot] = null;
+            if (due == null) continue;
+            for (Timer<T> t : due) {
+                if (t.due <= tick) {
+                    size--;
+                    expired.accept(t.item);
+                } else {
+                    place(t);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(Timer<T> t) {
+        long delta = t.due - tick;
+        int level = 0;
+        while (level < levels.length - 1 && delta >= 1L << (BITS * (level + 1))) level++;
+        // beyond the top level's reach the timer parks in its last slot and is re-placed when that cascades
+        long slotTick = level == levels.length - 1 && delta >= 1L << (BITS * levels.length)
+                ? tick + (1L << (BITS * levels.length)) - 1 : t.due;
+        int slot = (int) ((slotTick >>> (BITS * level)) & MASK);
+        List<Timer<T>> bucket = levels[level][slot];
+        if (bucket == null) levels[level][slot] = bucket = new ArrayList<>();
+        bucket.add(t);
+    }
+
+    private static final class Timer<T> {
+        final long due;
+        final T item;
+
+        Timer(long due, T item) {
+            this.due = due;
+            this.item = item;
+        }
+    }
+}
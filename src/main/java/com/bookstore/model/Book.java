@@ -1,11 +1,19 @@
 package com.bookstore.model;
 
+import com.bookstore.search.CatalogIndexListener;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "books", indexes = { @Index(name = "idx_books_isbn", columnList = "isbn", unique = true) })
+@EntityListeners(CatalogIndexListener.class)
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_isbn", columnList = "isbn", unique = true),
+        @Index(name = "idx_books_title", columnList = "title"),
+        @Index(name = "idx_books_author", columnList = "author"),
+        @Index(name = "idx_books_updated_id", columnList = "updated_at, id")
+})
 public class Book {
 
     @Id
@@ -70,6 +78,22 @@ public class Book {
 
     public Long getVersion() { return version; }
 
+    /** Detached copy, for caches that must neither hold on to nor hand out a managed instance. */
+    public Book copy() {
+        Book b = new Book();
+        b.id = id;
+        b.title = title;
+        b.author = author;
+        b.isbn = isbn;
+        b.price = price;
+        b.stock = stock;
+        b.description = description;
+        b.createdAt = createdAt;
+        b.updatedAt = updatedAt;
+        b.version = version;
+        return b;
+    }
+
     @PrePersist
     public void prePersist() {
         Instant now = Instant.now();
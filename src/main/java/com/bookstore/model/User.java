@@ -8,6 +8,8 @@ import java.time.Instant;
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"username"}),
         @UniqueConstraint(columnNames = {"email"})
+}, indexes = {
+        @Index(name = "idx_users_updated_id", columnList = "updated_at, id")
 })
 public class User {
 
@@ -1,10 +1,65 @@
 package com.bookstore.repository;
 
+import com.bookstore.dto.BookSummary;
 import com.bookstore.model.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
-    // Additional query methods can be added here (findByIsbn, search, etc.)
+public interface BookRepository extends JpaRepository<Book, Long>, BookSearchRepository, BookStockRepository {
+
+    // Grid columns only: list and search pages never read the description LOB
+    String SUMMARY = "select new com.bookstore.dto.BookSummary(b.id, b.title, b.author, b.isbn, b.price, b.stock,"
+            + " b.createdAt, b.updatedAt) from Book b";
+
+    // Keyset walk over the whole table (no OFFSET, no COUNT); the Pageable only carries the limit
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limit);
+
+    @Query(value = SUMMARY, countQuery = "select count(b) from Book b")
+    Page<BookSummary> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY + " where b.id in :ids")
+    List<BookSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pages for /api/books; the (updated_at, id) ones are served by idx_books_updated_id
+    @Query(SUMMARY + " where b.id > :id order by b.id asc")
+    List<BookSummary> findSummariesAfterId(@Param("id") Long id, Pageable limit);
+
+    @Query(SUMMARY + " order by b.updatedAt asc, b.id asc")
+    List<BookSummary> findSummariesByUpdated(Pageable limit);
+
+    @Query(SUMMARY + " where b.updatedAt > :updatedAt or (b.updatedAt = :updatedAt and b.id > :id)"
+            + " order by b.updatedAt asc, b.id asc")
+    List<BookSummary> findSummariesUpdatedAfter(@Param("updatedAt") Instant updatedAt, @Param("id") Long id, Pageable limit);
+
+    /**
+     * Admin edit of everything but stock, for while the inventory ledger owns it. Skips the optimistic
+     * version check the journal's stock updates would keep failing, but still moves version so ETags change.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.title = :title, b.author = :author, b.isbn = :isbn, b.price = :price,"
+            + " b.description = :description, b.updatedAt = :now, b.version = coalesce(b.version, 0) + 1 where b.id = :id")
+    int updateDetails(@Param("id") Long id, @Param("title") String title, @Param("author") String author,
+                      @Param("isbn") String isbn, @Param("price") BigDecimal price,
+                      @Param("description") String description, @Param("now") Instant now);
+
+    /** Descriptions of a page of books, for sparse fieldsets that ask for them. */
+    @Query("select b.id as id, b.description as description from Book b where b.id in :ids")
+    List<BookDescription> findDescriptionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface BookDescription {
+        Long getId();
+
+        String getDescription();
+    }
 }
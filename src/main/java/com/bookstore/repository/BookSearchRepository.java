@@ -0,0 +1,17 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.BookSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Database-side book search. Only the requested page is fetched, without the description column; the
+ * total comes from a COUNT with the same predicate.
+ */
+public interface BookSearchRepository {
+
+    /**
+     * @param fullText use MySQL FULLTEXT (MATCH ... AGAINST) for word-level criteria instead of LIKE
+     */
+    Page<BookSummary> search(String q, String title, String author, boolean fullText, Pageable pageable);
+}
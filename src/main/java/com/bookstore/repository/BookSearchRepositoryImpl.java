@@ -0,0 +1,121 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.BookSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class BookSearchRepositoryImpl implements BookSearchRepository {
+
+    // innodb_ft_min_token_size default; shorter words are not in the FULLTEXT index
+    private static final int MIN_FULLTEXT_TOKEN = 3;
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "b.id",
+            "title", "b.title",
+            "author", "b.author",
+            "price", "b.price",
+            "stock", "b.stock",
+            "createdAt", "b.created_at",
+            "updatedAt", "b.updated_at");
+
+    private static final String SUMMARY_COLUMNS = "b.id, b.title, b.author, b.isbn, b.price, b.stock, b.created_at, b.updated_at";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<BookSummary> search(String q, String title, String author, boolean fullText, Pageable pageable) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        criterion(where, params, "q", q, fullText, "b.title, b.author", "b.title", "b.author");
+        criterion(where, params, "title", title, fullText, "b.title", "b.title");
+        criterion(where, params, "author", author, fullText, "b.author", "b.author");
+        String predicate = where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where);
+
+        Query count = em.createNativeQuery("SELECT COUNT(*) FROM books b" + predicate);
+        params.forEach(count::setParameter);
+        long total = ((Number) count.getSingleResult()).longValue();
+        if (total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+
+        Query select = em.createNativeQuery("SELECT " + SUMMARY_COLUMNS + " FROM books b" + predicate + orderBy(pageable.getSort()));
+        params.forEach(select::setParameter);
+        select.setFirstResult((int) pageable.getOffset());
+        select.setMaxResults(pageable.getPageSize());
+        List<BookSummary> rows = new ArrayList<>();
+        for (Object[] r : (List<Object[]>) select.getResultList()) {
+            rows.add(new BookSummary(((Number) r[0]).longValue(), (String) r[1], (String) r[2], (String) r[3],
+                    (BigDecimal) r[4], r[5] == null ? null : ((Number) r[5]).intValue(), instant(r[6]), instant(r[7])));
+        }
+        return new PageImpl<>(rows, pageable, total);
+    }
+
+    private static Instant instant(Object value) {
+        if (value instanceof Timestamp) return ((Timestamp) value).toInstant();
+        if (value instanceof Instant) return (Instant) value;
+        if (value instanceof java.time.LocalDateTime) return Timestamp.valueOf((java.time.LocalDateTime) value).toInstant();
+        return null;
+    }
+
+    private static void criterion(List<String> where, Map<String, Object> params, String name, String value,
+                                  boolean fullText, String matchColumns, String... likeColumns) {
+        if (!StringUtils.hasText(value)) return;
+        String terms = fullText ? booleanModeTerms(value) : null;
+        if (terms != null) {
+            where.add("MATCH(" + matchColumns + ") AGAINST (:" + name + " IN BOOLEAN MODE)");
+            params.put(name, terms);
+            return;
+        }
+        List<String> ors = new ArrayList<>();
+        for (String col : likeColumns) ors.add("LOWER(" + col + ") LIKE :" + name + " ESCAPE '!'");
+        where.add("(" + String.join(" OR ", ors) + ")");
+        params.put(name, "%" + escapeLike(value.toLowerCase(Locale.ROOT)) + "%");
+    }
+
+    /**
+     * Every word required, each matched as a prefix: "clean cod" becomes "+clean* +cod*". Returns null
+     * when any word is too short to be in the FULLTEXT index ("c primer"), so the caller falls back to
+     * LIKE for the whole criterion instead of silently dropping that word.
+     */
+    static String booleanModeTerms(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : value.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (word.length() < MIN_FULLTEXT_TOKEN) return null;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('+').append(word).append('*');
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> parts = new ArrayList<>();
+        for (Sort.Order o : sort) {
+            String col = SORT_COLUMNS.get(o.getProperty());
+            if (col != null) parts.add(col + (o.isAscending() ? " ASC" : " DESC"));
+        }
+        parts.add("b.id ASC");
+        return " ORDER BY " + String.join(", ", parts);
+    }
+}
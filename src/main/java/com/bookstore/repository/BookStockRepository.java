@@ -0,0 +1,23 @@
+package com.bookstore.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock reservation without loading the books: each book is decremented by a conditional UPDATE that
+ * only matches while enough stock is left, so two buyers can never both take the last copy.
+ */
+public interface BookStockRepository {
+
+    /**
+     * Takes {@code quantities} (book id to copies) out of stock in one JDBC batch, in the caller's
+     * transaction. Rows are touched in map iteration order, so pass a sorted map to keep the lock order
+     * stable between concurrent orders.
+     *
+     * @return ids whose UPDATE matched no row (unknown book or not enough stock); empty when all were reserved
+     */
+    List<Long> reserveStock(Map<Long, Integer> quantities);
+
+    /** Puts {@code quantities} back into stock in one JDBC batch; unknown books are skipped. */
+    void releaseStock(Map<Long, Integer> quantities);
+}
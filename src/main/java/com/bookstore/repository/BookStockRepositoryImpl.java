@@ -0,0 +1,53 @@
+package com.bookstore.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BookStockRepositoryImpl implements BookStockRepository {
+
+    // version is bumped like a Hibernate update would, so book ETags and optimistic locks see the change
+    private static final String RESERVE = "UPDATE books SET stock = stock - ?, version = COALESCE(version, 0) + 1,"
+            + " updated_at = ? WHERE id = ? AND stock >= ?";
+
+    private static final String RELEASE = "UPDATE books SET stock = stock + ?, version = COALESCE(version, 0) + 1,"
+            + " updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+
+    public BookStockRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<Long> reserveStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return List.of();
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Long> ids = new ArrayList<>(quantities.size());
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, qty) -> {
+            ids.add(id);
+            args.add(new Object[] { qty, now, id, qty });
+        });
+        // per-row counts need a driver that reports them (MySQL's rewriteBatchedStatements must stay off)
+        int[] counts = jdbc.batchUpdate(RESERVE, args);
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 1) failed.add(ids.get(i));
+        }
+        return failed;
+    }
+
+    @Override
+    public void releaseStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, qty) -> args.add(new Object[] { qty, now, id }));
+        jdbc.batchUpdate(RELEASE, args);
+    }
+}
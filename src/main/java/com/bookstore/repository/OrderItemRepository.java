@@ -2,9 +2,21 @@ package com.bookstore.repository;
 
 import com.bookstore.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
+    /** Copies ordered per book, all time. */
+    @Query("select oi.book.id as bookId, sum(oi.quantity) as quantity from OrderItem oi group by oi.book.id")
+    List<BookSales> sumQuantityByBook();
+
+    interface BookSales {
+        Long getBookId();
+
+        Long getQuantity();
+    }
 }
@@ -1,13 +1,39 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Order;
-import com.bookstore.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUser(User user);
+    // Fetch plan for the admin endpoints that update an order and answer with its OrderDto: the user, the
+    // items and their books come in the same statement. distinct drops the repeated order rows of the
+    // join in memory and is kept out of the SQL. Read-only views use OrderViewRepository.
+    @Query("select distinct o from Order o join fetch o.user left join fetch o.items i left join fetch i.book where o.id = :id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    Optional<Order> findWithItemsById(@Param("id") Long id);
+
+    // the same plan for a batch of orders (the outbox relay)
+    @Query("select distinct o from Order o join fetch o.user left join fetch o.items i left join fetch i.book where o.id in :ids")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // re-checked by the outbox relay right before a send, a delivery may have waited in the mail queue a while
+    @Query("select o.id from Order o where o.emailed = true and o.id in :ids")
+    List<Long> findEmailedIdsIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("update Order o set o.emailed = true where o.id = :id")
+    int markEmailed(@Param("id") Long id);
 }
@@ -0,0 +1,152 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.PageCursor;
+import com.bookstore.dto.order.OrderDto;
+import com.bookstore.dto.order.OrderHistoryFilter;
+import com.bookstore.dto.order.OrderItemDto;
+import com.bookstore.model.OrderStatus;
+import com.bookstore.model.PaymentStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read model for order views. Builds {@link OrderDto} trees straight from one flat
+ * {@code orders JOIN users JOIN order_items JOIN books} result set, so read-only requests allocate no
+ * managed entities, proxies or dirty-checking snapshots. Rows come sorted by order, which keeps each
+ * order's items consecutive.
+ */
+@Repository
+public class OrderViewRepository {
+
+    private static final String COLUMNS = "SELECT o.id, u.username, o.total_amount, o.order_status, o.payment_status,"
+            + " o.created_at, o.updated_at, o.emailed,"
+            + " i.id, i.book_id, b.title, i.quantity, i.unit_price, i.subtotal, i.rental_days, i.item_type";
+
+    private static final String JOINS = " JOIN users u ON u.id = o.user_id"
+            + " LEFT JOIN order_items i ON i.order_id = o.id"
+            + " LEFT JOIN books b ON b.id = i.book_id";
+
+    private static final ResultSetExtractor<List<OrderDto>> TREES = rs -> {
+        List<OrderDto> orders = new ArrayList<>();
+        OrderDto current = null;
+        while (rs.next()) {
+            long id = rs.getLong(1);
+            if (current == null || current.getId() != id) {
+                current = new OrderDto();
+                current.setId(id);
+                current.setUsername(rs.getString(2));
+                current.setTotalAmount(rs.getBigDecimal(3));
+                String orderStatus = rs.getString(4);
+                current.setOrderStatus(orderStatus == null ? null : OrderStatus.valueOf(orderStatus));
+                String paymentStatus = rs.getString(5);
+                current.setPaymentStatus(paymentStatus == null ? null : PaymentStatus.valueOf(paymentStatus));
+                Timestamp created = rs.getTimestamp(6);
+                current.setCreatedAt(created == null ? null : created.toInstant());
+                Timestamp updated = rs.getTimestamp(7);
+                current.setUpdatedAt(updated == null ? null : updated.toInstant());
+                current.setEmailed(rs.getBoolean(8));
+                orders.add(current);
+            }
+            long itemId = rs.getLong(9);
+            if (rs.wasNull()) continue;
+            OrderItemDto item = new OrderItemDto();
+            item.setId(itemId);
+            item.setBookId(rs.getLong(10));
+            item.setTitle(rs.getString(11));
+            item.setQuantity(rs.getInt(12));
+            item.setUnitPrice(rs.getBigDecimal(13));
+            item.setSubtotal(rs.getBigDecimal(14));
+            int rentalDays = rs.getInt(15);
+            item.setRentalDays(rs.wasNull() ? null : rentalDays);
+            item.setItemType(rs.getString(16));
+            current.getItems().add(item);
+        }
+        return orders;
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public OrderViewRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public Optional<OrderDto> findById(Long id) {
+        List<OrderDto> found = jdbc.query(COLUMNS + " FROM orders o" + JOINS + " WHERE o.id = ? ORDER BY i.id", TREES, id);
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    public List<OrderDto> findAll() {
+        return jdbc.query(COLUMNS + " FROM orders o" + JOINS + " ORDER BY o.id, i.id", TREES);
+    }
+
+    /**
+     * Up to {@code limit} orders after {@code at} in its sort order. The limit applies to orders, not to
+     * joined rows: the page's ids are picked first in a derived table.
+     */
+    public List<OrderDto> findPage(PageCursor at, int limit) {
+        String page;
+        Object[] args;
+        String order;
+        if (at.getKey() == PageCursor.Key.ID) {
+            page = "SELECT id FROM orders WHERE id > ? ORDER BY id LIMIT ?";
+            args = new Object[] { at.getId(), limit };
+            order = " ORDER BY o.id, i.id";
+        } else {
+            order = " ORDER BY o.updated_at, o.id, i.id";
+            if (at.isStart()) {
+                page = "SELECT id FROM orders ORDER BY updated_at, id LIMIT ?";
+                args = new Object[] { limit };
+            } else {
+                Timestamp after = Timestamp.from(at.getUpdatedAt());
+                page = "SELECT id FROM orders WHERE updated_at > ? OR (updated_at = ? AND id > ?) ORDER BY updated_at, id LIMIT ?";
+                args = new Object[] { after, after, at.getId(), limit };
+            }
+        }
+        return jdbc.query(COLUMNS + " FROM (" + page + ") p JOIN orders o ON o.id = p.id" + JOINS + order, TREES, args);
+    }
+
+    /**
+     * Up to {@code limit} of the user's orders matching {@code filter}, newest first, before {@code at}
+     * (a {@link PageCursor.Key#CREATED} cursor). The page's ids come off idx_orders_user_created_id.
+     */
+    public List<OrderDto> findHistory(long userId, OrderHistoryFilter filter, PageCursor at, int limit) {
+        StringBuilder page = new StringBuilder("SELECT id FROM orders WHERE user_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        if (filter.getStatus() != null) {
+            page.append(" AND order_status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getFrom() != null) {
+            page.append(" AND created_at >= ?");
+            args.add(Timestamp.from(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            page.append(" AND created_at < ?");
+            args.add(Timestamp.from(filter.getTo()));
+        }
+        if (!at.isStart()) {
+            Timestamp before = Timestamp.from(at.getCreatedAt());
+            page.append(" AND (created_at < ? OR (created_at = ? AND id < ?))");
+            args.add(before);
+            args.add(before);
+            args.add(at.getId());
+        }
+        page.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbc.query(COLUMNS + " FROM (" + page + ") p JOIN orders o ON o.id = p.id" + JOINS
+                + " ORDER BY o.created_at DESC, o.id DESC, i.id", TREES, args.toArray());
+    }
+
+    /** @return the user's id, or null when there is no such user */
+    public Long findUserId(String username) {
+        List<Long> ids = jdbc.queryForList("SELECT id FROM users WHERE username = ?", Long.class, username);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+}
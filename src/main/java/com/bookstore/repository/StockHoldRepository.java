@@ -0,0 +1,14 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    List<StockHold> findByUserIdAndExpiresAtAfterOrderByExpiresAtAsc(Long userId, Instant now);
+
+    long countByUserIdAndExpiresAtAfter(Long userId, Instant now);
+}
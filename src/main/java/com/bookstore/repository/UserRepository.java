@@ -1,9 +1,14 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Keyset walks for the admin listing; the Pageable only carries the limit
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limit);
+
+    List<User> findAllByOrderByUpdatedAtAscIdAsc(Pageable limit);
+
+    @Query("select u from User u where u.updatedAt > :updatedAt or (u.updatedAt = :updatedAt and u.id > :id)"
+            + " order by u.updatedAt asc, u.id asc")
+    List<User> findUpdatedAfter(@Param("updatedAt") Instant updatedAt, @Param("id") Long id, Pageable limit);
 }
@@ -0,0 +1,333 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet filtering and counting over author, price band and stock. Books get dense ordinals and every
+ * facet value owns a {@link CompactBitmap} of ordinals, so applying filters is a chain of bitmap
+ * intersections and a facet count is the cardinality of an intersection.
+ * <p>
+ * Counts follow the usual multi-select convention: each facet is counted with the selections of the
+ * <em>other</em> facets applied, so picking one author still shows how many books the other authors have.
+ */
+@Component
+public class BookFacetIndex implements CatalogIndex {
+
+    public static final String AUTHOR = "author";
+    public static final String PRICE = "price";
+    public static final String IN_STOCK = "inStock";
+
+    // most books first, then alphabetical
+    private static final Comparator<FacetCount> BY_COUNT =
+            Comparator.comparingLong(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue);
+
+    private final BigDecimal[] bounds;
+    private final String[] bandNames;
+    private final int authorLimit;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // ordinals are handed out in insertion order and never reused, so with the id-ordered startup load
+    // and increasing ids afterwards, ordinal order is id order
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] idOf = new long[1024];
+    private int[] authorOf = new int[1024];
+    private int[] bandOf = new int[1024];
+    private int nextOrdinal;
+
+    private final Map<String, Integer> authorOrdinals = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+    private final List<CompactBitmap> byAuthor = new ArrayList<>();
+    private CompactBitmap all = new CompactBitmap();
+    private CompactBitmap inStock = new CompactBitmap();
+    private final CompactBitmap[] bands;
+    private volatile boolean ready;
+
+    public BookFacetIndex(@Value("${app.search.facets.price-bands:10,25,50,100}") String priceBands,
+                          @Value("${app.search.facets.author-limit:20}") int authorLimit) {
+        this.bounds = Arrays.stream(priceBands.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+        this.bandNames = new String[bounds.length + 1];
+        for (int i = 0; i <= bounds.length; i++) {
+            String low = i == 0 ? "0" : bounds[i - 1].toPlainString();
+            bandNames[i] = i == bounds.length ? low + "+" : low + "-" + bounds[i].toPlainString();
+        }
+        this.bands = new CompactBitmap[bandNames.length];
+        for (int i = 0; i < bands.length; i++) bands[i] = new CompactBitmap();
+        this.authorLimit = authorLimit;
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            ordinals.clear();
+            nextOrdinal = 0;
+            authorOrdinals.clear();
+            authorNames.clear();
+            byAuthor.clear();
+            all = new CompactBitmap();
+            inStock = new CompactBitmap();
+            for (int i = 0; i < bands.length; i++) bands[i] = new CompactBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Book book) {
+        long id = book.getId();
+        String authorKey = authorKey(book.getAuthor());
+        int band = band(book.getPrice());
+        boolean stocked = book.getStock() != null && book.getStock() > 0;
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.get(id);
+            int ord;
+            if (existing != null) {
+                ord = existing;
+                unindex(ord);
+            } else {
+                ord = nextOrdinal++;
+                ordinals.put(id, ord);
+                grow(ord);
+                idOf[ord] = id;
+            }
+            all.add(ord);
+            if (stocked) inStock.add(ord);
+            bandOf[ord] = band;
+            if (band >= 0) bands[band].add(ord);
+            int author = -1;
+            if (authorKey != null) {
+                author = authorOrdinals.computeIfAbsent(authorKey, k -> {
+                    authorNames.add(book.getAuthor().trim());
+                    byAuthor.add(new CompactBitmap());
+                    return byAuthor.size() - 1;
+                });
+                byAuthor.get(author).add(ord);
+            }
+            authorOf[ord] = author;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.remove(bookId);
+            if (ord != null) unindex(ord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Applies {@code filter} to {@code candidates} (book ids, or null for the whole catalog) and returns
+     * the requested slice of the matches in id order together with the facet counts.
+     */
+    public FacetedHits search(FacetFilter filter, long[] candidates, long offset, int size) {
+        lock.readLock().lock();
+        try {
+            CompactBitmap base = all;
+            if (candidates != null) {
+                base = new CompactBitmap();
+                for (long id : candidates) {
+                    Integer ord = ordinals.get(id);
+                    if (ord != null) base.add(ord);
+                }
+            }
+            CompactBitmap authorSel = selectAuthors(filter.getAuthors());
+            CompactBitmap priceSel = selectBands(filter.getPriceBands());
+            CompactBitmap stockSel = filter.getInStock() == null ? null
+                    : filter.getInStock() ? inStock : all.andNot(inStock);
+
+            CompactBitmap matched = and(and(and(base, authorSel), priceSel), stockSel);
+            Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+            facets.put(AUTHOR, authorCounts(and(and(base, priceSel), stockSel)));
+            facets.put(PRICE, bandCounts(and(and(base, authorSel), stockSel)));
+            facets.put(IN_STOCK, stockCounts(and(and(base, authorSel), priceSel)));
+
+            long[] page = matched.slice(offset, size);
+            for (int i = 0; i < page.length; i++) page[i] = idOf[(int) page[i]];
+            return new FacetedHits(page, matched.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code candidates} that pass {@code filter}, in their original order. For searches that order
+     * their own matches (relevance, fuzzy) and only need the facet selections applied.
+     */
+    public long[] retain(FacetFilter filter, long[] candidates) {
+        if (filter.isEmpty()) return candidates;
+        lock.readLock().lock();
+        try {
+            CompactBitmap authorSel = selectAuthors(filter.getAuthors());
+            CompactBitmap priceSel = selectBands(filter.getPriceBands());
+            long[] out = new long[candidates.length];
+            int n = 0;
+            for (long id : candidates) {
+                Integer ord = ordinals.get(id);
+                if (ord == null) continue;
+                if (authorSel != null && !authorSel.contains(ord)) continue;
+                if (priceSel != null && !priceSel.contains(ord)) continue;
+                if (filter.getInStock() != null && inStock.contains(ord) != filter.getInStock()) continue;
+                out[n++] = id;
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Same decision as {@link #search} for a single book; used while the index is still loading. */
+    public boolean matches(Book book, FacetFilter filter) {
+        if (!filter.getAuthors().isEmpty()) {
+            String key = authorKey(book.getAuthor());
+            if (filter.getAuthors().stream().map(BookFacetIndex::authorKey).noneMatch(a -> a != null && a.equals(key))) {
+                return false;
+            }
+        }
+        if (!filter.getPriceBands().isEmpty()) {
+            int band = band(book.getPrice());
+            if (band < 0 || filter.getPriceBands().stream().noneMatch(b -> bandIndex(b) == band)) return false;
+        }
+        if (filter.getInStock() != null) {
+            boolean stocked = book.getStock() != null && book.getStock() > 0;
+            if (stocked != filter.getInStock()) return false;
+        }
+        return true;
+    }
+
+    private CompactBitmap selectAuthors(List<String> authors) {
+        if (authors.isEmpty()) return null;
+        CompactBitmap sel = new CompactBitmap();
+        for (String a : authors) {
+            Integer author = authorOrdinals.get(authorKey(a));
+            if (author != null) sel = sel.or(byAuthor.get(author));
+        }
+        return sel;
+    }
+
+    private CompactBitmap selectBands(List<String> names) {
+        if (names.isEmpty()) return null;
+        CompactBitmap sel = new CompactBitmap();
+        for (String name : names) sel = sel.or(bands[bandIndex(name)]);
+        return sel;
+    }
+
+    private List<FacetCount> authorCounts(CompactBitmap ctx) {
+        long[] counts = new long[byAuthor.size()];
+        if (ctx == all) {
+            for (int a = 0; a < counts.length; a++) counts[a] = byAuthor.get(a).cardinality();
+        } else {
+            ctx.forEach(ord -> {
+                int a = authorOf[(int) ord];
+                if (a >= 0) counts[a]++;
+            });
+        }
+        // only the top authorLimit values are returned, so keep a bounded min-heap instead of sorting all
+        PriorityQueue<FacetCount> top = new PriorityQueue<>(authorLimit + 1, BY_COUNT.reversed());
+        for (int a = 0; a < counts.length; a++) {
+            if (counts[a] == 0) continue;
+            if (top.size() == authorLimit) {
+                FacetCount worst = top.peek();
+                if (worst.getCount() > counts[a]
+                        || (worst.getCount() == counts[a] && worst.getValue().compareTo(authorNames.get(a)) <= 0)) {
+                    continue;
+                }
+            }
+            top.add(new FacetCount(authorNames.get(a), counts[a]));
+            if (top.size() > authorLimit) top.poll();
+        }
+        List<FacetCount> out = new ArrayList<>(top);
+        out.sort(BY_COUNT);
+        return out;
+    }
+
+    private List<FacetCount> bandCounts(CompactBitmap ctx) {
+        List<FacetCount> out = new ArrayList<>(bands.length);
+        for (int i = 0; i < bands.length; i++) {
+            long n = ctx.andCardinality(bands[i]);
+            if (n > 0) out.add(new FacetCount(bandNames[i], n));
+        }
+        return out;
+    }
+
+    private List<FacetCount> stockCounts(CompactBitmap ctx) {
+        long stocked = ctx.andCardinality(inStock);
+        long total = ctx.cardinality();
+        List<FacetCount> out = new ArrayList<>(2);
+        if (stocked > 0) out.add(new FacetCount("true", stocked));
+        if (total - stocked > 0) out.add(new FacetCount("false", total - stocked));
+        return out;
+    }
+
+    private static CompactBitmap and(CompactBitmap a, CompactBitmap b) {
+        return b == null ? a : a.and(b);
+    }
+
+    private void unindex(int ord) {
+        all.remove(ord);
+        inStock.remove(ord);
+        if (bandOf[ord] >= 0) bands[bandOf[ord]].remove(ord);
+        if (authorOf[ord] >= 0) byAuthor.get(authorOf[ord]).remove(ord);
+    }
+
+    private void grow(int ord) {
+        if (ord < idOf.length) return;
+        int cap = idOf.length * 2;
+        idOf = Arrays.copyOf(idOf, cap);
+        authorOf = Arrays.copyOf(authorOf, cap);
+        bandOf = Arrays.copyOf(bandOf, cap);
+    }
+
+    private int band(BigDecimal price) {
+        if (price == null) return -1;
+        int i = 0;
+        while (i < bounds.length && price.compareTo(bounds[i]) >= 0) i++;
+        return i;
+    }
+
+    private int bandIndex(String name) {
+        for (int i = 0; i < bandNames.length; i++) {
+            if (bandNames[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException("unknown price band: " + name + ", expected one of " + Arrays.toString(bandNames));
+    }
+
+    private static String authorKey(String author) {
+        if (author == null || author.isBlank()) return null;
+        return author.trim().toLowerCase(Locale.ROOT);
+    }
+}
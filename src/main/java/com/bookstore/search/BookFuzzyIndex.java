@@ -0,0 +1,311 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant word matching over titles and authors. Lookups work on the vocabulary of distinct words
+ * rather than on books: a trigram index over the vocabulary yields candidate words, a bounded edit-distance
+ * check accepts those within the allowed edit distance, and the accepted words' postings give the books.
+ * The cost depends on vocabulary fan-out for the query's rarest trigrams, never on the catalog size.
+ */
+@Component
+public class BookFuzzyIndex implements CatalogIndex {
+
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Term> vocabulary = new HashMap<>();
+    private final List<Term> termsById = new ArrayList<>();
+    private final Map<String, IntList> gramToTerms = new HashMap<>();
+    // term ids per field for each book, needed to unindex it
+    private final Map<Long, int[][]> docTerms = new HashMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            vocabulary.clear();
+            termsById.clear();
+            gramToTerms.clear();
+            docTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Book book) {
+        List<String> title = BookRankingIndex.tokenize(book.getTitle());
+        List<String> author = BookRankingIndex.tokenize(book.getAuthor());
+        long id = book.getId();
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            docTerms.put(id, new int[][] { index(title, id, TITLE), index(author, id, AUTHOR) });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            unindex(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Books where every word of each supplied criterion is within edit distance of some word in the
+     * criterion's field(s). Ordered by total edit distance, then id.
+     */
+    public List<Long> search(String q, String title, String author) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> distance = null;
+            distance = constrain(distance, BookRankingIndex.tokenize(q), true, true);
+            distance = constrain(distance, BookRankingIndex.tokenize(title), true, false);
+            distance = constrain(distance, BookRankingIndex.tokenize(author), false, true);
+            if (distance == null || distance.isEmpty()) return List.of();
+            Map<Long, Integer> d = distance;
+            List<Long> ids = new ArrayList<>(d.keySet());
+            ids.sort(Comparator.<Long>comparingInt(d::get).thenComparing(Comparator.naturalOrder()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Intersects {@code acc} with the books matching every word; null acc means "no constraint yet". */
+    private Map<Long, Integer> constrain(Map<Long, Integer> acc, List<String> words, boolean inTitle, boolean inAuthor) {
+        for (String word : new LinkedHashSet<>(words)) {
+            Map<Long, Integer> matches = new HashMap<>();
+            for (Map.Entry<Term, Integer> e : similarTerms(word).entrySet()) {
+                Term t = e.getKey();
+                if (inTitle) collect(matches, t.docs[TITLE], e.getValue());
+                if (inAuthor) collect(matches, t.docs[AUTHOR], e.getValue());
+            }
+            if (acc == null) {
+                acc = matches;
+            } else {
+                Map<Long, Integer> next = new HashMap<>();
+                for (Map.Entry<Long, Integer> e : acc.entrySet()) {
+                    Integer d = matches.get(e.getKey());
+                    if (d != null) next.put(e.getKey(), e.getValue() + d);
+                }
+                acc = next;
+            }
+            if (acc.isEmpty()) return acc;
+        }
+        return acc;
+    }
+
+    private static void collect(Map<Long, Integer> out, PostingList docs, int distance) {
+        for (int i = 0; i < docs.size(); i++) out.merge(docs.get(i), distance, Math::min);
+    }
+
+    /** Vocabulary words within {@link #maxEdits(int)} of {@code word}, with their distance. */
+    private Map<Term, Integer> similarTerms(String word) {
+        Map<Term, Integer> out = new HashMap<>();
+        int k = maxEdits(word.length());
+        Term exact = vocabulary.get(word);
+        if (exact != null) out.put(exact, 0);
+        if (k == 0) return out;
+
+        List<String> grams = grams(word);
+        // an edit destroys at most 3 padded trigrams (4 for a swap), so a match shares at least this many
+        int required = grams.size() - 4 * k;
+        List<IntList> postings = new ArrayList<>();
+        for (String g : grams) {
+            IntList p = gramToTerms.get(g);
+            postings.add(p == null ? IntList.EMPTY : p);
+        }
+        postings.sort(Comparator.comparingInt(IntList::size));
+        int[] candidates = new int[0];
+        if (required > 0) {
+            // prefix filter: a word sharing `required` grams must share one of the (n - required + 1) rarest
+            for (int i = 0; i < grams.size() - required + 1; i++) candidates = union(candidates, postings.get(i));
+        } else {
+            // too short for a count filter: "hte" shares no gram at all with "the", so probe every gram of
+            // the word and of the word with its first two letters swapped, and let the edit distance decide
+            for (IntList p : postings) candidates = union(candidates, p);
+            for (String g : grams(swapFirstTwo(word))) {
+                IntList p = gramToTerms.get(g);
+                if (p != null) candidates = union(candidates, p);
+            }
+        }
+        for (int termId : candidates) {
+            Term t = termsById.get(termId);
+            if (t == exact || t.isUnused() || Math.abs(t.text.length() - word.length()) > k) continue;
+            // count filter before the (more expensive) edit distance
+            int shared = 0;
+            for (int i = 0; i < postings.size() && shared + postings.size() - i >= required; i++) {
+                if (postings.get(i).contains(termId)) shared++;
+            }
+            if (shared < required) continue;
+            int d = boundedLevenshtein(word, t.text, k);
+            if (d <= k) out.put(t, d);
+        }
+        return out;
+    }
+
+    private static String swapFirstTwo(String word) {
+        return word.charAt(1) + "" + word.charAt(0) + word.substring(2);
+    }
+
+    static int maxEdits(int length) {
+        if (length <= 2) return 0;
+        return length <= 7 ? 1 : 2;
+    }
+
+    // term ids are handed out in increasing order, so every IntList is sorted
+    private static int[] union(int[] a, IntList b) {
+        int[] out = new int[a.length + b.size()];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.size()) {
+            int x = a[i], y = b.get(j);
+            if (x < y) { out[n++] = x; i++; }
+            else if (x > y) { out[n++] = y; j++; }
+            else { out[n++] = x; i++; j++; }
+        }
+        while (i < a.length) out[n++] = a[i++];
+        while (j < b.size()) out[n++] = b.get(j++);
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Edit distance (insert, delete, substitute, swap adjacent letters) between a and b, or {@code max + 1}
+     * as soon as it is known to exceed max.
+     */
+    static int boundedLevenshtein(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            // only cells within the diagonal band |i - j| <= max can stay within max
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            cur[0] = i;
+            if (from > 1) cur[from - 1] = max + 1;
+            int rowMin = from == 1 ? cur[0] : max + 1;
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(prev[j - 1] + cost, Math.min(prev[j] + 1, cur[j - 1] + 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (to < m) cur[to + 1] = max + 1;
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+
+    private int[] index(List<String> words, long id, int field) {
+        Set<String> distinct = new LinkedHashSet<>(words);
+        int[] ids = new int[distinct.size()];
+        int n = 0;
+        for (String w : distinct) {
+            Term t = vocabulary.get(w);
+            if (t == null) {
+                t = new Term(termsById.size(), w);
+                vocabulary.put(w, t);
+                termsById.add(t);
+                for (String g : grams(w)) gramToTerms.computeIfAbsent(g, k -> new IntList()).add(t.id);
+            }
+            t.docs[field].add(id);
+            ids[n++] = t.id;
+        }
+        return ids;
+    }
+
+    private void unindex(long id) {
+        int[][] fields = docTerms.remove(id);
+        if (fields == null) return;
+        for (int f = 0; f < fields.length; f++) {
+            for (int termId : fields[f]) termsById.get(termId).docs[f].remove(id);
+        }
+    }
+
+    private static List<String> grams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) out.add(padded.substring(i, i + 3));
+        return new ArrayList<>(out);
+    }
+
+    private static final class Term {
+        final int id;
+        final String text;
+        final PostingList[] docs = { new PostingList(), new PostingList() };
+
+        Term(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        // words are kept in the vocabulary once seen; a word no book uses any more is skipped
+        boolean isUnused() {
+            return docs[TITLE].isEmpty() && docs[AUTHOR].isEmpty();
+        }
+    }
+
+    private static final class IntList {
+        static final IntList EMPTY = new IntList();
+
+        int[] values = new int[2];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        boolean contains(int v) {
+            return Arrays.binarySearch(values, 0, size, v) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
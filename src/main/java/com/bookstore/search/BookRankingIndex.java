@@ -0,0 +1,289 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * BM25 relevance index over title, author and description. Each field is scored as its own BM25
+ * index and the field scores are summed with a per-field boost. Only the best {@code offset + size}
+ * hits are kept, in a bounded min-heap, so a page costs O(n log k) rather than a full sort of every match.
+ */
+@Component
+public class BookRankingIndex implements CatalogIndex {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int DESCRIPTION = 2;
+    // words a trailing prefix may expand to, per field; keeps "a" from scoring half the vocabulary
+    private static final int MAX_EXPANSIONS = 64;
+
+    // best score first; on equal scores the lower (older) id wins, matching table order
+    private static final Comparator<ScoredId> BEST_FIRST = Comparator
+            .comparingDouble(ScoredId::getScore).reversed()
+            .thenComparingLong(ScoredId::getBookId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FieldIndex[] fields;
+    // distinct terms per field, needed to unindex a book without re-reading it
+    private final Map<Long, String[][]> docTerms = new HashMap<>();
+    private volatile boolean ready;
+
+    public BookRankingIndex(@Value("${app.search.rank.boost.title:3.0}") double titleBoost,
+                            @Value("${app.search.rank.boost.author:2.0}") double authorBoost,
+                            @Value("${app.search.rank.boost.description:1.0}") double descriptionBoost) {
+        this.fields = new FieldIndex[] {
+                new FieldIndex(titleBoost), new FieldIndex(authorBoost), new FieldIndex(descriptionBoost)
+        };
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            docTerms.clear();
+            for (FieldIndex f : fields) f.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Book book) {
+        long id = book.getId();
+        String[] values = new String[3];
+        values[TITLE] = book.getTitle();
+        values[AUTHOR] = book.getAuthor();
+        values[DESCRIPTION] = book.getDescription();
+        List<Map<String, Integer>> tfs = new ArrayList<>(3);
+        int[] lengths = new int[3];
+        for (int f = 0; f < 3; f++) {
+            List<String> tokens = tokenize(values[f]);
+            lengths[f] = tokens.size();
+            Map<String, Integer> tf = new HashMap<>();
+            for (String t : tokens) tf.merge(t, 1, Integer::sum);
+            tfs.add(tf);
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            String[][] terms = new String[3][];
+            for (int f = 0; f < 3; f++) {
+                fields[f].add(id, tfs.get(f), lengths[f]);
+                terms[f] = tfs.get(f).keySet().toArray(new String[0]);
+            }
+            docTerms.put(id, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            unindex(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ranks exactly {@code candidates}, typically the matches of the unranked search, so that ranking
+     * changes the order of a result set but never its members or total. Candidates no query term
+     * scores for come last, with score 0. The last query word also matches the words it is a prefix of,
+     * since it may still be being typed.
+     */
+    public RankedHits rank(String query, long[] candidates, long offset, int size) {
+        if (candidates.length == 0 || size <= 0) return new RankedHits(List.of(), candidates.length);
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        Set<Long> allowed = new HashSet<>(candidates.length * 2);
+        for (long id : candidates) allowed.add(id);
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = terms.isEmpty() ? new HashMap<>() : score(terms, allowed::contains);
+            for (long id : candidates) scores.putIfAbsent(id, 0.0);
+            return top(scores, offset, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> score(List<String> terms, LongPredicate filter) {
+        Map<Long, Double> scores = new HashMap<>();
+        int docCount = docTerms.size();
+        for (FieldIndex field : fields) {
+            if (field.boost <= 0) continue;
+            double avgLength = field.averageLength();
+            for (int t = 0; t < terms.size(); t++) {
+                // a prefix that expands to several words counts once per book, with its best-scoring word
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Postings p : field.postings(terms.get(t), t == terms.size() - 1)) {
+                    double idf = Math.log(1 + (docCount - p.size + 0.5) / (p.size + 0.5));
+                    for (int i = 0; i < p.size; i++) {
+                        long id = p.ids[i];
+                        if (filter != null && !filter.test(id)) continue;
+                        int tf = p.tfs[i];
+                        int len = field.lengths.getOrDefault(id, 0);
+                        double norm = tf + K1 * (1 - B + B * (avgLength == 0 ? 0 : len / avgLength));
+                        termScores.merge(id, field.boost * idf * tf * (K1 + 1) / norm, Math::max);
+                    }
+                }
+                termScores.forEach((id, s) -> scores.merge(id, s, Double::sum));
+            }
+        }
+        return scores;
+    }
+
+    private static RankedHits top(Map<Long, Double> scores, long offset, int size) {
+        long k = Math.min(offset + size, scores.size());
+        if (k <= offset) return new RankedHits(List.of(), scores.size());
+        PriorityQueue<ScoredId> heap = new PriorityQueue<>((int) k, BEST_FIRST.reversed());
+        for (Map.Entry<Long, Double> e : scores.entrySet()) {
+            ScoredId hit = new ScoredId(e.getKey(), e.getValue());
+            if (heap.size() < k) {
+                heap.add(hit);
+            } else if (BEST_FIRST.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+        List<ScoredId> top = new ArrayList<>(heap);
+        top.sort(BEST_FIRST);
+        return new RankedHits(Collections.unmodifiableList(top.subList((int) offset, top.size())), scores.size());
+    }
+
+    private void unindex(long id) {
+        String[][] terms = docTerms.remove(id);
+        if (terms == null) return;
+        for (int f = 0; f < 3; f++) fields[f].remove(id, terms[f]);
+    }
+
+    static List<String> tokenize(String s) {
+        if (s == null || s.isBlank()) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String t : s.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    private static final class FieldIndex {
+        final double boost;
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        final Map<Long, Integer> lengths = new HashMap<>();
+        long totalLength;
+
+        FieldIndex(double boost) {
+            this.boost = boost;
+        }
+
+        void add(long id, Map<String, Integer> tfs, int length) {
+            for (Map.Entry<String, Integer> e : tfs.entrySet()) {
+                terms.computeIfAbsent(e.getKey(), k -> new Postings()).add(id, e.getValue());
+            }
+            lengths.put(id, length);
+            totalLength += length;
+        }
+
+        void remove(long id, String[] docTerms) {
+            for (String t : docTerms) {
+                Postings p = terms.get(t);
+                if (p != null && p.remove(id) && p.size == 0) terms.remove(t);
+            }
+            Integer len = lengths.remove(id);
+            if (len != null) totalLength -= len;
+        }
+
+        /** Postings of {@code term}; with {@code prefix}, of up to MAX_EXPANSIONS words starting with it. */
+        Collection<Postings> postings(String term, boolean prefix) {
+            if (!prefix) {
+                Postings p = terms.get(term);
+                return p == null ? List.of() : List.of(p);
+            }
+            Collection<Postings> matches = terms.subMap(term, true, term + Character.MAX_VALUE, false).values();
+            if (matches.size() <= MAX_EXPANSIONS) return matches;
+            // the exact word, if indexed, sorts first and is always kept
+            List<Postings> first = new ArrayList<>(MAX_EXPANSIONS);
+            for (Postings p : matches) {
+                if (first.size() == MAX_EXPANSIONS) break;
+                first.add(p);
+            }
+            return first;
+        }
+
+        double averageLength() {
+            return lengths.isEmpty() ? 0 : (double) totalLength / lengths.size();
+        }
+
+        void clear() {
+            terms.clear();
+            lengths.clear();
+            totalLength = 0;
+        }
+    }
+
+    /** Book ids (ascending) with the term frequency of one term in one field. */
+    private static final class Postings {
+        long[] ids = new long[2];
+        int[] tfs = new int[2];
+        int size;
+
+        void add(long id, int tf) {
+            int at = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0 && at < size) {
+                tfs[at] = tf;
+                return;
+            }
+            if (at < 0) at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(tfs, at, tfs, at + 1, size - at);
+            ids[at] = id;
+            tfs[at] = tf;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return false;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(tfs, at + 1, tfs, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import com.bookstore.repository.OrderItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Search-as-you-type completions over titles, authors and ISBNs. Keys live in a radix trie (edges carry
+ * whole label runs, children are sorted arrays) and every node keeps its best {@code topN} entries ranked
+ * by popularity, so a lookup is a walk down the prefix and a copy of one small array.
+ * <p>
+ * Titles and authors are also reachable from each of their words ("java" completes "Effective Java").
+ * Popularity is the number of copies ordered, summed over the books sharing an entry.
+ */
+@Component
+public class BookSuggestIndex implements CatalogIndex {
+
+    public enum Kind { TITLE, AUTHOR, ISBN }
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern ISBN_LIKE = Pattern.compile("[0-9xX\\- ]+");
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // most popular first, then shorter and alphabetical so results are stable
+    private static final Comparator<Entry> RANK = Comparator.<Entry>comparingLong(e -> -e.score)
+            .thenComparingInt(e -> e.text.length())
+            .thenComparing(e -> e.text)
+            .thenComparing(e -> e.kind);
+
+    private final OrderItemRepository orderItemRepository;
+    private final int topN;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node(NO_CHARS);
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<Long, List<Entry>> bookEntries = new HashMap<>();
+    private final Map<Long, Long> sales = new HashMap<>();
+    private volatile boolean ready;
+
+    public BookSuggestIndex(OrderItemRepository orderItemRepository,
+                            @Value("${app.search.suggest.top:10}") int topN) {
+        this.orderItemRepository = orderItemRepository;
+        this.topN = Math.max(1, topN);
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            root.firsts = NO_CHARS;
+            root.children = NO_NODES;
+            root.terminals = NO_ENTRIES;
+            root.top = NO_ENTRIES;
+            entries.clear();
+            bookEntries.clear();
+            sales.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Book book) {
+        long id = book.getId();
+        Map<String, String[]> wanted = new HashMap<>();
+        addWanted(wanted, Kind.TITLE, book.getTitle());
+        addWanted(wanted, Kind.AUTHOR, book.getAuthor());
+        addWanted(wanted, Kind.ISBN, book.getIsbn());
+        lock.writeLock().lock();
+        try {
+            List<Entry> current = bookEntries.getOrDefault(id, List.of());
+            List<Entry> next = new ArrayList<>(wanted.size());
+            for (Entry e : current) {
+                if (wanted.remove(e.mapKey) != null) {
+                    next.add(e);
+                } else {
+                    detach(id, e);
+                }
+            }
+            for (Map.Entry<String, String[]> w : wanted.entrySet()) {
+                next.add(attach(id, w.getKey(), Kind.valueOf(w.getValue()[0]), w.getValue()[1]));
+            }
+            if (next.isEmpty()) bookEntries.remove(id);
+            else bookEntries.put(id, next);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            List<Entry> current = bookEntries.remove(bookId);
+            if (current != null) {
+                for (Entry e : current) detach(bookId, e);
+            }
+            sales.remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void sold(Long bookId, int quantity) {
+        if (bookId == null || quantity <= 0) return;
+        lock.writeLock().lock();
+        try {
+            addSales(bookId, quantity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        List<OrderItemRepository.BookSales> totals =
+                orderItemRepository == null ? List.of() : orderItemRepository.sumQuantityByBook();
+        lock.writeLock().lock();
+        try {
+            for (OrderItemRepository.BookSales s : totals) {
+                if (s.getBookId() != null && s.getQuantity() != null) addSales(s.getBookId(), s.getQuantity());
+            }
+            // top lists are not maintained while loading; compute them all in one bottom-up pass
+            rebuildTops(root);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Up to {@code limit} (capped at the configured top-N) completions of {@code prefix}, best first. */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String p = normalize(prefix);
+        if (p.isEmpty()) return List.of();
+        int n = Math.max(1, Math.min(limit, topN));
+        lock.readLock().lock();
+        try {
+            Entry[] hits = lookup(p);
+            if (ISBN_LIKE.matcher(prefix.trim()).matches()) {
+                // "978-0-13" is typed with separators but ISBN keys are stored compact
+                hits = merge(hits, lookup(compact(prefix)));
+            }
+            List<Suggestion> out = new ArrayList<>(Math.min(n, hits.length));
+            for (int i = 0; i < hits.length && out.size() < n; i++) {
+                Entry e = hits[i];
+                out.add(new Suggestion(e.text, e.kind, e.books.length == 1 ? e.books[0] : null, e.score));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String s) {
+        if (s == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return NON_WORD.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static String compact(String s) {
+        return NON_WORD.matcher(s.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+
+    private static void addWanted(Map<String, String[]> wanted, Kind kind, String text) {
+        if (text == null || text.isBlank()) return;
+        String key = kind == Kind.ISBN ? compact(text) : normalize(text);
+        if (key.isEmpty()) return;
+        wanted.put(kind.ordinal() + ":" + key, new String[] { kind.name(), text.trim() });
+    }
+
+    private static String[] keysFor(Kind kind, String text) {
+        if (kind == Kind.ISBN) return new String[] { compact(text) };
+        String full = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(full);
+        for (int i = full.indexOf(' '); i >= 0; i = full.indexOf(' ', i + 1)) {
+            keys.add(full.substring(i + 1));
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    private Entry attach(long bookId, String mapKey, Kind kind, String text) {
+        Entry e = entries.get(mapKey);
+        long bookSales = sales.getOrDefault(bookId, 0L);
+        if (e == null) {
+            e = new Entry(mapKey, kind, text, keysFor(kind, text));
+            e.books = new long[] { bookId };
+            e.score = bookSales;
+            entries.put(mapKey, e);
+            for (String key : e.keys) insert(key, e);
+        } else {
+            e.books = Arrays.copyOf(e.books, e.books.length + 1);
+            e.books[e.books.length - 1] = bookId;
+            e.score += bookSales;
+            if (bookSales > 0) promote(e);
+        }
+        return e;
+    }
+
+    private void detach(long bookId, Entry e) {
+        long[] kept = Arrays.stream(e.books).filter(b -> b != bookId).toArray();
+        e.books = kept;
+        e.score -= sales.getOrDefault(bookId, 0L);
+        if (kept.length == 0) {
+            entries.remove(e.mapKey);
+            for (String key : e.keys) delete(key, e);
+        } else if (ready) {
+            for (String key : e.keys) recompute(path(key, false));
+        }
+    }
+
+    private void addSales(long bookId, long quantity) {
+        sales.merge(bookId, quantity, Long::sum);
+        for (Entry e : bookEntries.getOrDefault(bookId, List.of())) {
+            e.score += quantity;
+            promote(e);
+        }
+    }
+
+    /** Re-ranks {@code e} after its score went up: it can only move up or enter a top list. */
+    private void promote(Entry e) {
+        if (!ready) return;
+        for (String key : e.keys) {
+            List<Node> path = path(key, false);
+            if (path == null) continue;
+            for (Node node : path) offer(node, e);
+        }
+    }
+
+    private void insert(String key, Entry e) {
+        List<Node> path = path(key, true);
+        Node end = path.get(path.size() - 1);
+        end.terminals = append(end.terminals, e);
+        if (ready) {
+            for (Node node : path) offer(node, e);
+        }
+    }
+
+    private void delete(String key, Entry e) {
+        List<Node> path = path(key, false);
+        if (path == null) return;
+        Node end = path.get(path.size() - 1);
+        end.terminals = without(end.terminals, e);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.terminals.length == 0 && node.children.length == 0) {
+                removeChild(parent, node);
+            } else if (node.terminals.length == 0 && node.children.length == 1) {
+                // keep the trie path-compressed: fold the only child into this node
+                Node child = node.children[0];
+                char[] label = Arrays.copyOf(node.label, node.label.length + child.label.length);
+                System.arraycopy(child.label, 0, label, node.label.length, child.label.length);
+                node.label = label;
+                node.firsts = child.firsts;
+                node.children = child.children;
+                node.terminals = child.terminals;
+                node.top = child.top;
+            }
+        }
+        if (ready) recompute(path);
+    }
+
+    /** Nodes from the root down to the node where {@code key} ends, splitting edges when creating. */
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            int idx = Arrays.binarySearch(node.firsts, c);
+            if (idx < 0) {
+                if (!create) return null;
+                Node leaf = new Node(key.substring(i).toCharArray());
+                addChild(node, -idx - 1, leaf);
+                path.add(leaf);
+                return path;
+            }
+            Node child = node.children[idx];
+            int common = 1;
+            while (common < child.label.length && i + common < key.length()
+                    && child.label[common] == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < child.label.length) {
+                if (!create) return null;
+                Node mid = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                mid.firsts = new char[] { child.label[0] };
+                mid.children = new Node[] { child };
+                mid.top = child.top.clone();
+                node.children[idx] = mid;
+                child = mid;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+        return path;
+    }
+
+    private Entry[] lookup(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int idx = Arrays.binarySearch(node.firsts, prefix.charAt(i));
+            if (idx < 0) return NO_ENTRIES;
+            Node child = node.children[idx];
+            int n = Math.min(child.label.length, prefix.length() - i);
+            for (int j = 1; j < n; j++) {
+                if (child.label[j] != prefix.charAt(i + j)) return NO_ENTRIES;
+            }
+            i += n;
+            node = child;
+        }
+        return node.top;
+    }
+
+    private void offer(Node node, Entry e) {
+        Entry[] top = without(node.top, e);
+        if (top.length >= topN && RANK.compare(top[topN - 1], e) <= 0) {
+            node.top = top;
+            return;
+        }
+        int pos = 0;
+        while (pos < top.length && RANK.compare(top[pos], e) < 0) pos++;
+        int size = Math.min(top.length + 1, topN);
+        Entry[] next = new Entry[size];
+        System.arraycopy(top, 0, next, 0, pos);
+        next[pos] = e;
+        System.arraycopy(top, pos, next, pos + 1, size - pos - 1);
+        node.top = next;
+    }
+
+    private void rebuildTops(Node node) {
+        for (Node child : node.children) rebuildTops(child);
+        node.top = best(node);
+    }
+
+    /** Rebuilds the top lists bottom-up along {@code path} from terminals and the children's tops. */
+    private void recompute(List<Node> path) {
+        if (path == null) return;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            node.top = best(node);
+        }
+    }
+
+    /** The best {@code topN} of the node's own entries and its children's top lists. */
+    private Entry[] best(Node node) {
+        Entry[] top = new Entry[topN];
+        int size = 0;
+        size = select(top, size, node.terminals);
+        for (Node child : node.children) size = select(top, size, child.top);
+        return size == topN ? top : Arrays.copyOf(top, size);
+    }
+
+    // insertion into the sorted, bounded array top[0..size); returns the new size
+    private int select(Entry[] top, int size, Entry[] candidates) {
+        outer:
+        for (Entry e : candidates) {
+            if (size == topN && RANK.compare(top[size - 1], e) <= 0) continue;
+            for (int i = 0; i < size; i++) {
+                if (top[i] == e) continue outer;
+            }
+            int pos = size == topN ? size - 1 : size++;
+            while (pos > 0 && RANK.compare(top[pos - 1], e) > 0) {
+                top[pos] = top[pos - 1];
+                pos--;
+            }
+            top[pos] = e;
+        }
+        return size;
+    }
+
+    private static Entry[] merge(Entry[] a, Entry[] b) {
+        if (b.length == 0) return a;
+        if (a.length == 0) return b;
+        Set<Entry> all = new LinkedHashSet<>(Arrays.asList(a));
+        all.addAll(Arrays.asList(b));
+        Entry[] out = all.toArray(NO_ENTRIES);
+        Arrays.sort(out, RANK);
+        return out;
+    }
+
+    private static void addChild(Node parent, int at, Node child) {
+        char[] firsts = new char[parent.firsts.length + 1];
+        Node[] children = new Node[parent.children.length + 1];
+        System.arraycopy(parent.firsts, 0, firsts, 0, at);
+        System.arraycopy(parent.children, 0, children, 0, at);
+        firsts[at] = child.label[0];
+        children[at] = child;
+        System.arraycopy(parent.firsts, at, firsts, at + 1, parent.firsts.length - at);
+        System.arraycopy(parent.children, at, children, at + 1, parent.children.length - at);
+        parent.firsts = firsts;
+        parent.children = children;
+    }
+
+    private static void removeChild(Node parent, Node child) {
+        int at = Arrays.binarySearch(parent.firsts, child.label[0]);
+        if (at < 0) return;
+        char[] firsts = new char[parent.firsts.length - 1];
+        Node[] children = new Node[parent.children.length - 1];
+        System.arraycopy(parent.firsts, 0, firsts, 0, at);
+        System.arraycopy(parent.children, 0, children, 0, at);
+        System.arraycopy(parent.firsts, at + 1, firsts, at, firsts.length - at);
+        System.arraycopy(parent.children, at + 1, children, at, children.length - at);
+        parent.firsts = firsts;
+        parent.children = children;
+    }
+
+    private static Entry[] append(Entry[] a, Entry e) {
+        Entry[] out = Arrays.copyOf(a, a.length + 1);
+        out[a.length] = e;
+        return out;
+    }
+
+    private static Entry[] without(Entry[] a, Entry e) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == e) {
+                Entry[] out = new Entry[a.length - 1];
+                System.arraycopy(a, 0, out, 0, i);
+                System.arraycopy(a, i + 1, out, i, out.length - i);
+                return out;
+            }
+        }
+        return a;
+    }
+
+    private static final class Node {
+        char[] label;
+        char[] firsts = NO_CHARS;
+        Node[] children = NO_NODES;
+        Entry[] terminals = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+    }
+
+    /** One completion: a distinct title, author or ISBN and the books carrying it. */
+    private static final class Entry {
+        final String mapKey;
+        final Kind kind;
+        final String text;
+        final String[] keys;
+        long[] books;
+        long score;
+
+        Entry(String mapKey, Kind kind, String text, String[] keys) {
+            this.mapKey = mapKey;
+            this.kind = kind;
+            this.text = text;
+            this.keys = keys;
+        }
+    }
+}
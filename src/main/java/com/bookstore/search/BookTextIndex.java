@@ -0,0 +1,228 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram inverted index over book titles and authors. Answers the same case-insensitive "contains"
+ * queries as the old scan in BookService, but only touches books that share the query's trigrams.
+ */
+@Component
+public class BookTextIndex implements CatalogIndex {
+
+    private static final int GRAM = 3;
+    // appended to every value so that 1-2 character needles at the end of a value still start a trigram
+    private static final String END_PAD = "\u0003\u0003";
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final TreeMap<String, PostingList> titleGrams = new TreeMap<>();
+    private final TreeMap<String, PostingList> authorGrams = new TreeMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            docs.clear();
+            titleGrams.clear();
+            authorGrams.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Book book) {
+        Doc doc = new Doc(normalize(book.getTitle()), normalize(book.getAuthor()));
+        long id = book.getId();
+        lock.writeLock().lock();
+        try {
+            Doc old = docs.put(id, doc);
+            if (old != null) {
+                if (old.title.equals(doc.title) && old.author.equals(doc.author)) return;
+                unindex(titleGrams, old.title, id);
+                unindex(authorGrams, old.author, id);
+            }
+            index(titleGrams, doc.title, id);
+            index(authorGrams, doc.author, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Doc old = docs.remove(bookId);
+            if (old != null) {
+                unindex(titleGrams, old.title, bookId);
+                unindex(authorGrams, old.author, bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids (ascending) of books matching every supplied criterion: {@code q} against title or author,
+     * {@code title} and {@code author} against their own field. Blank criteria are ignored.
+     */
+    public List<Long> search(String q, String title, String author) {
+        String qn = normalizeCriterion(q);
+        String tn = normalizeCriterion(title);
+        String an = normalizeCriterion(author);
+        lock.readLock().lock();
+        try {
+            long[] candidates;
+            // drive the lookup from the longest needle (usually the most selective), verify the rest per doc
+            if (tn != null && length(tn) >= length(an) && length(tn) >= length(qn)) {
+                candidates = lookup(titleGrams, tn);
+            } else if (an != null && length(an) >= length(qn)) {
+                candidates = lookup(authorGrams, an);
+            } else if (qn != null) {
+                candidates = union(lookup(titleGrams, qn), lookup(authorGrams, qn));
+            } else {
+                return List.of();
+            }
+            List<Long> out = new ArrayList<>();
+            for (long id : candidates) {
+                Doc d = docs.get(id);
+                if (d != null && d.matches(qn, tn, an)) out.add(id);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] lookup(TreeMap<String, PostingList> grams, String needle) {
+        if (needle.length() < GRAM) {
+            // short needle: every trigram that starts with it
+            NavigableMap<String, PostingList> range = grams.subMap(needle, true, needle + Character.MAX_VALUE, false);
+            long[] acc = new long[0];
+            for (PostingList p : range.values()) acc = union(acc, toArray(p));
+            return acc;
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (String g : grams(needle)) {
+            PostingList p = grams.get(g);
+            if (p == null) return new long[0];
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        PostingList smallest = lists.get(0);
+        long[] out = new long[smallest.size()];
+        int n = 0;
+        outer:
+        for (int i = 0; i < smallest.size(); i++) {
+            long id = smallest.get(i);
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(id)) continue outer;
+            }
+            out[n++] = id;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long[] toArray(PostingList p) {
+        long[] a = new long[p.size()];
+        for (int i = 0; i < a.length; i++) a[i] = p.get(i);
+        return a;
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) out[n++] = a[i++];
+            else if (a[i] > b[j]) out[n++] = b[j++];
+            else { out[n++] = a[i++]; j++; }
+        }
+        while (i < a.length) out[n++] = a[i++];
+        while (j < b.length) out[n++] = b[j++];
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static void index(Map<String, PostingList> grams, String value, long id) {
+        for (String g : grams(value + END_PAD)) {
+            grams.computeIfAbsent(g, k -> new PostingList()).add(id);
+        }
+    }
+
+    private static void unindex(Map<String, PostingList> grams, String value, long id) {
+        for (String g : grams(value + END_PAD)) {
+            PostingList p = grams.get(g);
+            if (p != null && p.remove(id) && p.isEmpty()) grams.remove(g);
+        }
+    }
+
+    private static Collection<String> grams(String s) {
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++) out.add(s.substring(i, i + GRAM));
+        return out;
+    }
+
+    private static int length(String s) {
+        return s == null ? -1 : s.length();
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeCriterion(String s) {
+        if (s == null || s.isBlank()) return null;
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Doc {
+        final String title;
+        final String author;
+
+        Doc(String title, String author) {
+            this.title = title;
+            this.author = author;
+        }
+
+        boolean matches(String q, String t, String a) {
+            if (q != null && !title.contains(q) && !author.contains(q)) return false;
+            if (t != null && !title.contains(t)) return false;
+            return a == null || author.contains(a);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+
+/**
+ * An in-memory structure derived from the books table. Implementations are registered as beans,
+ * rebuilt at startup by {@link CatalogIndexLoader} and kept current by {@link CatalogIndexes}.
+ */
+public interface CatalogIndex {
+
+    void clear();
+
+    void put(Book book);
+
+    void remove(Long bookId);
+
+    /** Called after an order for {@code quantity} copies of the book has committed. */
+    default void sold(Long bookId, int quantity) { }
+
+    /** Called once a full rebuild has been fed through {@link #put(Book)}. */
+    default void loaded() { }
+}
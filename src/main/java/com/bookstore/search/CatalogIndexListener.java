@@ -0,0 +1,37 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener on {@link Book}. Every write that goes through Hibernate (BookService, seeders)
+ * reaches the catalog indexes without callers having to remember to; the plain SQL stock updates of
+ * OrderService and the inventory journal call {@link CatalogIndexes} themselves.
+ * Instantiated by Hibernate through Spring's bean container, so dependencies are resolved lazily to
+ * avoid a cycle with the EntityManagerFactory.
+ */
+public class CatalogIndexListener {
+
+    private final ObjectProvider<CatalogIndexes> indexes;
+
+    public CatalogIndexListener(ObjectProvider<CatalogIndexes> indexes) {
+        this.indexes = indexes;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Book book) {
+        CatalogIndexes target = indexes.getIfAvailable();
+        if (target != null) target.bookSaved(book);
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        CatalogIndexes target = indexes.getIfAvailable();
+        if (target != null) target.bookRemoved(book.getId());
+    }
+}
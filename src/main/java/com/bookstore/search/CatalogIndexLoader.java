@@ -0,0 +1,65 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds every {@link CatalogIndex} from the books table once the application (and its seeders) has started.
+ * Books changed by commits during the walk are re-read afterwards, until a pass finds none left.
+ */
+@Component
+public class CatalogIndexLoader {
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexLoader.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final CatalogIndexes catalogIndexes;
+
+    public CatalogIndexLoader(BookRepository bookRepository, CatalogIndexes catalogIndexes) {
+        this.bookRepository = bookRepository;
+        this.catalogIndexes = catalogIndexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        catalogIndexes.clear();
+        long lastId = 0L;
+        long count = 0;
+        while (true) {
+            // walk the table by id so each batch is a cheap range scan with no COUNT(*)
+            List<Book> batch = bookRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Book b : batch) {
+                catalogIndexes.put(b);
+                lastId = b.getId();
+            }
+            count += batch.size();
+            if (batch.size() < BATCH_SIZE) break;
+        }
+        int reread = 0;
+        for (Set<Long> changed = catalogIndexes.takeChangedWhileLoading(); !changed.isEmpty();
+                changed = catalogIndexes.takeChangedWhileLoading()) {
+            // a changed book the lookup no longer finds was deleted
+            Set<Long> gone = new HashSet<>(changed);
+            for (Book b : bookRepository.findAllById(changed)) {
+                catalogIndexes.put(b);
+                gone.remove(b.getId());
+            }
+            gone.forEach(catalogIndexes::remove);
+            reread += changed.size();
+        }
+        catalogIndexes.loaded();
+        log.info("catalog indexes loaded: {} books ({} re-read) in {} ms", count, reread,
+                System.currentTimeMillis() - started);
+    }
+}
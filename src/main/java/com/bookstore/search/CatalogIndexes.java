@@ -0,0 +1,123 @@
+package com.bookstore.search;
+
+import com.bookstore.event.AfterCommit;
+import com.bookstore.model.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fans book changes out to every {@link CatalogIndex}. Changes made inside a transaction are applied
+ * after it commits so a rollback never leaks into the indexes. The {@link CatalogStamp} moves only once
+ * all indexes have the change, so a fresh validator never describes stale search results. While
+ * {@link CatalogIndexLoader} rebuilds the indexes, changes are only noted and the loader re-reads those
+ * books after its walk, so a row it read before a later commit can never overwrite that commit.
+ */
+@Component
+public class CatalogIndexes {
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexes.class);
+
+    private final List<CatalogIndex> indexes;
+    private final CatalogStamp stamp;
+    private final Object loadLock = new Object();
+    // ids changed since the rebuild started; null when no rebuild is running
+    private Set<Long> changedWhileLoading;
+
+    public CatalogIndexes(List<CatalogIndex> indexes, CatalogStamp stamp) {
+        this.indexes = indexes;
+        this.stamp = stamp;
+    }
+
+    public void bookSaved(Book book) {
+        if (book == null || book.getId() == null) return;
+        AfterCommit.run(() -> {
+            if (deferred(book.getId())) return;
+            put(book);
+            stamp.changed();
+        });
+    }
+
+    public void bookRemoved(Long bookId) {
+        if (bookId == null) return;
+        AfterCommit.run(() -> {
+            if (deferred(bookId)) return;
+            remove(bookId);
+            stamp.changed();
+        });
+    }
+
+    public void bookSold(Long bookId, int quantity) {
+        if (bookId == null || quantity <= 0) return;
+        AfterCommit.run(() -> {
+            for (CatalogIndex index : indexes) {
+                try {
+                    index.sold(bookId, quantity);
+                } catch (Exception e) {
+                    log.error("failed to record sale of book id={} in {}", bookId, index.getClass().getSimpleName(), e);
+                }
+            }
+        });
+    }
+
+    /** Empties every index and starts noting changed books instead of applying them. */
+    void clear() {
+        synchronized (loadLock) {
+            changedWhileLoading = new HashSet<>();
+        }
+        indexes.forEach(CatalogIndex::clear);
+    }
+
+    /**
+     * Books changed since {@link #clear()} or the previous call, for the loader to re-read. An empty
+     * result ends the rebuild: from then on changes are applied directly again.
+     */
+    Set<Long> takeChangedWhileLoading() {
+        synchronized (loadLock) {
+            Set<Long> changed = changedWhileLoading;
+            if (changed == null || changed.isEmpty()) {
+                changedWhileLoading = null;
+                return Set.of();
+            }
+            changedWhileLoading = new HashSet<>();
+            return changed;
+        }
+    }
+
+    void loaded() {
+        indexes.forEach(CatalogIndex::loaded);
+        // searches switch from the database to the indexes here
+        stamp.changed();
+    }
+
+    void put(Book book) {
+        for (CatalogIndex index : indexes) {
+            try {
+                index.put(book);
+            } catch (Exception e) {
+                log.error("failed to index book id={} in {}", book.getId(), index.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    void remove(Long bookId) {
+        for (CatalogIndex index : indexes) {
+            try {
+                index.remove(bookId);
+            } catch (Exception e) {
+                log.error("failed to remove book id={} from {}", bookId, index.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private boolean deferred(Long bookId) {
+        synchronized (loadLock) {
+            if (changedWhileLoading == null) return false;
+            changedWhileLoading.add(bookId);
+            return true;
+        }
+    }
+}
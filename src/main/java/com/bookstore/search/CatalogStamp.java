@@ -0,0 +1,49 @@
+package com.bookstore.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide change stamp for HTTP validators on book listings. {@link CatalogIndexes} bumps it after
+ * every committed book change has reached the in-memory indexes, so a list or search response can be
+ * revalidated by comparing two numbers instead of re-reading rows or hashing a body.
+ * <p>
+ * With the inventory ledger on, a sale reaches books.stock, the indexes and this stamp only when the
+ * stock journal is flushed, so listings and their validators lag the ledger by up to one flush interval.
+ * Bumping the stamp on the sale itself would not help: the re-read rows would still carry the old stock.
+ * <p>
+ * The stamp starts from the process start time, so validators handed out before a restart never match.
+ */
+@Component
+public class CatalogStamp {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long lastModified = epoch;
+
+    void changed() {
+        changes.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    /** Time of the last catalog change, in epoch millis. */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Strong entity tag for a catalog response; {@code params} are the request parameters that select
+     * the response (page, filters, fields, ...) and are folded in independently of their order.
+     */
+    public String etag(Map<String, String[]> params) {
+        int variant = 0;
+        for (Map.Entry<String, String[]> e : new TreeMap<>(params).entrySet()) {
+            variant = 31 * variant + e.getKey().hashCode();
+            for (String v : e.getValue()) variant = 31 * variant + (v == null ? 0 : v.hashCode());
+        }
+        return "\"c" + Long.toString(epoch, 36) + "-" + changes.get() + "-" + Integer.toHexString(variant) + "\"";
+    }
+}
@@ -0,0 +1,479 @@
+package com.bookstore.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed set of unsigned 32-bit values in the style of Roaring bitmaps: values are bucketed by their
+ * high 16 bits and each bucket stores its low 16 bits either as a sorted array (sparse buckets, up to
+ * 4096 values) or as a 1024-word bitset (dense buckets). Intersections and counts run bucket by bucket
+ * with word-wide operations where both sides are dense.
+ */
+final class CompactBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    static CompactBitmap of(long[] values) {
+        CompactBitmap b = new CompactBitmap();
+        for (long v : values) b.add(v);
+        return b;
+    }
+
+    boolean add(long value) {
+        char hi = (char) (value >>> 16);
+        int i = indexOf(hi);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, hi, new ArrayContainer());
+        }
+        Container c = containers[i];
+        int before = c.cardinality();
+        containers[i] = c.add((char) value);
+        return containers[i].cardinality() != before;
+    }
+
+    boolean remove(long value) {
+        int i = indexOf((char) (value >>> 16));
+        if (i < 0) return false;
+        int before = containers[i].cardinality();
+        Container after = containers[i].remove((char) value);
+        if (after.cardinality() == before) return false;
+        if (after.cardinality() == 0) removeContainer(i);
+        else containers[i] = after;
+        return true;
+    }
+
+    boolean contains(long value) {
+        int i = indexOf((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    long cardinality() {
+        long n = 0;
+        for (int i = 0; i < size; i++) n += containers[i].cardinality();
+        return n;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    CompactBitmap and(CompactBitmap other) {
+        CompactBitmap out = new CompactBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) i++;
+            else if (keys[i] > other.keys[j]) j++;
+            else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0) out.appendContainer(keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    long andCardinality(CompactBitmap other) {
+        long n = 0;
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) i++;
+            else if (keys[i] > other.keys[j]) j++;
+            else n += containers[i++].andCardinality(other.containers[j++]);
+        }
+        return n;
+    }
+
+    /** Values in this bitmap but not in {@code other}. */
+    CompactBitmap andNot(CompactBitmap other) {
+        CompactBitmap out = new CompactBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) j++;
+            Container c = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (c.cardinality() > 0) out.appendContainer(keys[i], c);
+        }
+        return out;
+    }
+
+    CompactBitmap or(CompactBitmap other) {
+        CompactBitmap out = new CompactBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                out.appendContainer(keys[i], containers[i++].copy());
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                out.appendContainer(other.keys[j], other.containers[j++].copy());
+            } else {
+                out.appendContainer(keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+        return out;
+    }
+
+    /** Up to {@code limit} values in ascending order, skipping the first {@code offset}. */
+    long[] slice(long offset, int limit) {
+        long[] out = new long[(int) Math.max(0, Math.min(limit, cardinality() - offset))];
+        int n = 0;
+        long skip = offset;
+        for (int i = 0; i < size && n < out.length; i++) {
+            Container c = containers[i];
+            if (skip >= c.cardinality()) {
+                skip -= c.cardinality();
+                continue;
+            }
+            long high = (long) keys[i] << 16;
+            int[] low = c.toArray();
+            for (int k = (int) skip; k < low.length && n < out.length; k++) out[n++] = high | low[k];
+            skip = 0;
+        }
+        return out;
+    }
+
+    void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            long high = (long) keys[i] << 16;
+            containers[i].forEach(low -> action.accept(high | low));
+        }
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int at, char key, Container c) {
+        if (size == keys.length) {
+            int cap = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, cap);
+            containers = Arrays.copyOf(containers, cap);
+        }
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(containers, at, containers, at + 1, size - at);
+        keys[at] = key;
+        containers[at] = c;
+        size++;
+    }
+
+    private void appendContainer(char key, Container c) {
+        insertContainer(size, key, c);
+    }
+
+    private void removeContainer(int at) {
+        System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+        System.arraycopy(containers, at + 1, containers, at, size - at - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private abstract static class Container {
+        abstract Container add(char v);
+
+        abstract Container remove(char v);
+
+        abstract boolean contains(char v);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract int andCardinality(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        abstract int[] toArray();
+
+        abstract void forEach(IntConsumer action);
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int n;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int n) {
+            this.values = values;
+            this.n = n;
+        }
+
+        @Override
+        Container add(char v) {
+            int pos = Arrays.binarySearch(values, 0, n, v);
+            if (pos >= 0) return this;
+            if (n >= ARRAY_MAX) return toBitmap().add(v);
+            int at = -pos - 1;
+            if (n == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, n * 2)));
+            System.arraycopy(values, at, values, at + 1, n - at);
+            values[at] = v;
+            n++;
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            int pos = Arrays.binarySearch(values, 0, n, v);
+            if (pos < 0) return this;
+            System.arraycopy(values, pos + 1, values, pos, n - pos - 1);
+            n--;
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, n, v) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(n, other.cardinality())];
+            int k = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < n && j < o.n) {
+                    if (values[i] < o.values[j]) i++;
+                    else if (values[i] > o.values[j]) j++;
+                    else {
+                        out[k++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) if (other.contains(values[i])) out[k++] = values[i];
+            }
+            return new ArrayContainer(out, k);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int k = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < n && j < o.n) {
+                    if (values[i] < o.values[j]) i++;
+                    else if (values[i] > o.values[j]) j++;
+                    else {
+                        k++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) if (other.contains(values[i])) k++;
+            }
+            return k;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[Math.max(4, n)];
+            int k = 0;
+            for (int i = 0; i < n; i++) if (!other.contains(values[i])) out[k++] = values[i];
+            return new ArrayContainer(out, k);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) return other.or(this);
+            ArrayContainer o = (ArrayContainer) other;
+            if (n + o.n > ARRAY_MAX) return toBitmap().or(other);
+            char[] out = new char[Math.max(4, n + o.n)];
+            int i = 0, j = 0, k = 0;
+            while (i < n || j < o.n) {
+                if (j >= o.n || (i < n && values[i] < o.values[j])) out[k++] = values[i++];
+                else if (i >= n || values[i] > o.values[j]) out[k++] = o.values[j++];
+                else {
+                    out[k++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, k);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, n)), n);
+        }
+
+        @Override
+        int[] toArray() {
+            int[] out = new int[n];
+            for (int i = 0; i < n; i++) out[i] = values[i];
+            return out;
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < n; i++) action.accept(values[i]);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < n; i++) b.add(values[i]);
+            return b;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer() {
+            this(new long[WORDS], 0);
+        }
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        Container add(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) == 0) {
+                words[v >>> 6] |= bit;
+                card++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) != 0) {
+                words[v >>> 6] &= ~bit;
+                card--;
+            }
+            return card <= ARRAY_MAX ? toArrayContainer() : this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) return other.and(this);
+            long[] o = ((BitmapContainer) other).words;
+            long[] out = new long[WORDS];
+            int c = 0;
+            for (int i = 0; i < WORDS; i++) {
+                out[i] = words[i] & o[i];
+                c += Long.bitCount(out[i]);
+            }
+            BitmapContainer b = new BitmapContainer(out, c);
+            return c <= ARRAY_MAX ? b.toArrayContainer() : b;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) return other.andCardinality(this);
+            long[] o = ((BitmapContainer) other).words;
+            int c = 0;
+            for (int i = 0; i < WORDS; i++) c += Long.bitCount(words[i] & o[i]);
+            return c;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            if (other instanceof BitmapContainer) {
+                long[] o = ((BitmapContainer) other).words;
+                for (int i = 0; i < WORDS; i++) out[i] &= ~o[i];
+            } else {
+                ArrayContainer a = (ArrayContainer) other;
+                for (int i = 0; i < a.n; i++) out[a.values[i] >>> 6] &= ~(1L << a.values[i]);
+            }
+            int c = 0;
+            for (long w : out) c += Long.bitCount(w);
+            BitmapContainer b = new BitmapContainer(out, c);
+            return c <= ARRAY_MAX ? b.toArrayContainer() : b;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof BitmapContainer) {
+                long[] o = ((BitmapContainer) other).words;
+                for (int i = 0; i < WORDS; i++) out[i] |= o[i];
+            } else {
+                ArrayContainer a = (ArrayContainer) other;
+                for (int i = 0; i < a.n; i++) out[a.values[i] >>> 6] |= 1L << a.values[i];
+            }
+            int c = 0;
+            for (long w : out) c += Long.bitCount(w);
+            return new BitmapContainer(out, c);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        @Override
+        int[] toArray() {
+            int[] out = new int[card];
+            int k = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    out[k++] = (i << 6) + Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                }
+            }
+            return out;
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < WORDS; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    action.accept((i << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+        }
+
+        ArrayContainer toArrayContainer() {
+            char[] out = new char[Math.max(4, card)];
+            int k = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    out[k++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+            return new ArrayContainer(out, k);
+        }
+    }
+}
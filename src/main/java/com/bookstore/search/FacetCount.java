@@ -0,0 +1,19 @@
+package com.bookstore.search;
+
+/**
+ * Number of matching books carrying one facet value.
+ */
+public final class FacetCount {
+
+    private final String value;
+    private final long count;
+
+    public FacetCount(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    public String getValue() { return value; }
+
+    public long getCount() { return count; }
+}
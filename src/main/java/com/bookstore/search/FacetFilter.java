@@ -0,0 +1,30 @@
+package com.bookstore.search;
+
+import java.util.List;
+
+/**
+ * Facet selections for a catalog search. Values within a facet are OR-ed, facets are AND-ed;
+ * an empty list or a null {@code inStock} leaves that facet unrestricted.
+ */
+public final class FacetFilter {
+
+    private final List<String> authors;
+    private final List<String> priceBands;
+    private final Boolean inStock;
+
+    public FacetFilter(List<String> authors, List<String> priceBands, Boolean inStock) {
+        this.authors = authors == null ? List.of() : authors;
+        this.priceBands = priceBands == null ? List.of() : priceBands;
+        this.inStock = inStock;
+    }
+
+    public List<String> getAuthors() { return authors; }
+
+    public List<String> getPriceBands() { return priceBands; }
+
+    public Boolean getInStock() { return inStock; }
+
+    public boolean isEmpty() {
+        return authors.isEmpty() && priceBands.isEmpty() && inStock == null;
+    }
+}
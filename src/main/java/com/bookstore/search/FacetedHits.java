@@ -0,0 +1,26 @@
+package com.bookstore.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of facet-filtered book ids, the total number of matches and the facet counts.
+ */
+public final class FacetedHits {
+
+    private final long[] page;
+    private final long total;
+    private final Map<String, List<FacetCount>> facets;
+
+    public FacetedHits(long[] page, long total, Map<String, List<FacetCount>> facets) {
+        this.page = page;
+        this.total = total;
+        this.facets = facets;
+    }
+
+    public long[] getPage() { return page; }
+
+    public long getTotal() { return total; }
+
+    public Map<String, List<FacetCount>> getFacets() { return facets; }
+}
@@ -0,0 +1,57 @@
+package com.bookstore.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of book ids backed by a primitive array. Ids are assigned in increasing
+ * order, so the common insert is an append.
+ */
+final class PostingList {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    boolean add(long id) {
+        if (size == 0 || ids[size - 1] < id) {
+            grow();
+            ids[size++] = id;
+            return true;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) return false;
+        int at = -pos - 1;
+        grow();
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ids[at] = id;
+        size++;
+        return true;
+    }
+
+    boolean remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) return false;
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    long get(int i) {
+        return ids[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void grow() {
+        if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+    }
+}
@@ -0,0 +1,21 @@
+package com.bookstore.search;
+
+import java.util.List;
+
+/**
+ * One page of ranked results plus the total number of books that matched at all.
+ */
+public final class RankedHits {
+
+    private final List<ScoredId> page;
+    private final long total;
+
+    public RankedHits(List<ScoredId> page, long total) {
+        this.page = page;
+        this.total = total;
+    }
+
+    public List<ScoredId> getPage() { return page; }
+
+    public long getTotal() { return total; }
+}
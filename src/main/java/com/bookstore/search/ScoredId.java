@@ -0,0 +1,19 @@
+package com.bookstore.search;
+
+/**
+ * A book id with its relevance score.
+ */
+public final class ScoredId {
+
+    private final long bookId;
+    private final double score;
+
+    public ScoredId(long bookId, double score) {
+        this.bookId = bookId;
+        this.score = score;
+    }
+
+    public long getBookId() { return bookId; }
+
+    public double getScore() { return score; }
+}
@@ -0,0 +1,21 @@
+package com.bookstore.search;
+
+import com.bookstore.dto.BookSummary;
+
+/**
+ * A search result: the book and, for ranked searches, its relevance score.
+ */
+public final class SearchHit {
+
+    private final BookSummary book;
+    private final Double score;
+
+    public SearchHit(BookSummary book, Double score) {
+        this.book = book;
+        this.score = score;
+    }
+
+    public BookSummary getBook() { return book; }
+
+    public Double getScore() { return score; }
+}
@@ -0,0 +1,30 @@
+package com.bookstore.search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A search-as-you-type completion. {@code bookId} is set when exactly one book carries the text.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class Suggestion {
+
+    private final String text;
+    private final BookSuggestIndex.Kind kind;
+    private final Long bookId;
+    private final long popularity;
+
+    public Suggestion(String text, BookSuggestIndex.Kind kind, Long bookId, long popularity) {
+        this.text = text;
+        this.kind = kind;
+        this.bookId = bookId;
+        this.popularity = popularity;
+    }
+
+    public String getText() { return text; }
+
+    public BookSuggestIndex.Kind getKind() { return kind; }
+
+    public Long getBookId() { return bookId; }
+
+    public long getPopularity() { return popularity; }
+}
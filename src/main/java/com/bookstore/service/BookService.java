@@ -1,17 +1,43 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.BookCache;
+import com.bookstore.dto.BookSummary;
 import com.bookstore.dto.CreateBookRequest;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.FacetedPage;
+import com.bookstore.dto.PageCursor;
 import com.bookstore.dto.UpdateBookRequest;
+import com.bookstore.event.AfterCommit;
+import com.bookstore.inventory.InventoryLedger;
 import com.bookstore.model.Book;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookFuzzyIndex;
+import com.bookstore.search.BookRankingIndex;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.search.BookTextIndex;
+import com.bookstore.search.CatalogIndexes;
+import com.bookstore.search.FacetFilter;
+import com.bookstore.search.FacetedHits;
+import com.bookstore.search.RankedHits;
+import com.bookstore.search.ScoredId;
+import com.bookstore.search.SearchHit;
+import com.bookstore.search.Suggestion;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,17 +46,172 @@ import java.util.stream.Collectors;
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final BookTextIndex textIndex;
+    private final BookRankingIndex rankingIndex;
+    private final BookFuzzyIndex fuzzyIndex;
+    private final BookSuggestIndex suggestIndex;
+    private final BookFacetIndex facetIndex;
+    private final BookCache bookCache;
+    private final InventoryLedger inventoryLedger;
+    private final CatalogIndexes catalogIndexes;
 
-    public BookService(BookRepository bookRepository) {
+    // "index" serves search from BookTextIndex; "database" pushes it down to BookRepository
+    @Value("${app.search.mode:index}")
+    private String searchMode;
+
+    // only honoured on MySQL, which has the FULLTEXT indexes created by DefaultBooks
+    @Value("${app.search.fulltext.enabled:true}")
+    private boolean fullTextEnabled;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    public BookService(BookRepository bookRepository, BookTextIndex textIndex, BookRankingIndex rankingIndex,
+                       BookFuzzyIndex fuzzyIndex, BookSuggestIndex suggestIndex, BookFacetIndex facetIndex,
+                       BookCache bookCache, InventoryLedger inventoryLedger, CatalogIndexes catalogIndexes) {
         this.bookRepository = bookRepository;
+        this.textIndex = textIndex;
+        this.rankingIndex = rankingIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.suggestIndex = suggestIndex;
+        this.facetIndex = facetIndex;
+        this.bookCache = bookCache;
+        this.inventoryLedger = inventoryLedger;
+        this.catalogIndexes = catalogIndexes;
+    }
+
+    public Page<BookSummary> list(Pageable pageable) {
+        return bookCache.page(pageable, bookRepository::findSummaries);
+    }
+
+    /**
+     * Keyset page of the catalog after {@code cursor}. Reads one row past {@code limit} to find out whether
+     * there is a next page, so no OFFSET and no COUNT are involved unless {@code withTotal} is set.
+     */
+    public CursorPage<BookSummary> listByCursor(String cursor, String sort, Integer limit, boolean withTotal) {
+        PageCursor at = PageCursor.parse(cursor, sort);
+        int size = CursorPage.clampLimit(limit);
+        PageRequest probe = PageRequest.of(0, size + 1);
+        List<BookSummary> rows;
+        if (at.getKey() == PageCursor.Key.ID) {
+            rows = bookRepository.findSummariesAfterId(at.getId(), probe);
+        } else if (at.isStart()) {
+            rows = bookRepository.findSummariesByUpdated(probe);
+        } else {
+            rows = bookRepository.findSummariesUpdatedAfter(at.getUpdatedAt(), at.getId(), probe);
+        }
+        return CursorPage.of(rows, size, b -> PageCursor.after(at.getKey(), b.getUpdatedAt(), b.getId()),
+                withTotal ? bookRepository.count() : null);
+    }
+
+    public Page<BookSummary> search(String q, String title, String author, Pageable pageable) {
+        if (!StringUtils.hasText(q) && !StringUtils.hasText(title) && !StringUtils.hasText(author)) {
+            return bookRepository.findSummaries(pageable);
+        }
+        if ("database".equalsIgnoreCase(searchMode)) {
+            boolean fullText = fullTextEnabled && datasourceUrl != null && datasourceUrl.startsWith("jdbc:mysql:");
+            return bookRepository.search(q, title, author, fullText, pageable);
+        }
+        if (!textIndex.isReady()) {
+            // index is still being built at startup
+            return scanSearch(q, title, author, pageable);
+        }
+        List<Long> ids = textIndex.search(q, title, author);
+        int start = (int) Math.min(pageable.getOffset(), ids.size());
+        int end = Math.min(start + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(findAllInOrder(ids.subList(start, end)), pageable, ids.size());
+    }
+
+    /**
+     * Relevance-ranked search: the books {@link #searchFaceted} would return, ordered by their BM25 score
+     * for {@code q} over title, author and description. Without {@code q} there is nothing to rank and
+     * this is an unranked search.
+     */
+    public Page<SearchHit> searchRanked(String q, String title, String author, FacetFilter filter, Pageable pageable) {
+        if (!StringUtils.hasText(q) || !rankingIndex.isReady() || !textIndex.isReady()
+                || (!filter.isEmpty() && !facetIndex.isReady())) {
+            return unordered(q, title, author, filter, pageable).map(b -> new SearchHit(b, null));
+        }
+        long[] candidates = textIndex.search(q, title, author).stream().mapToLong(Long::longValue).toArray();
+        candidates = facetIndex.retain(filter, candidates);
+        RankedHits hits = rankingIndex.rank(q, candidates, pageable.getOffset(), pageable.getPageSize());
+        Map<Long, Double> scores = new HashMap<>();
+        List<Long> ids = new ArrayList<>(hits.getPage().size());
+        for (ScoredId h : hits.getPage()) {
+            ids.add(h.getBookId());
+            scores.put(h.getBookId(), h.getScore());
+        }
+        List<SearchHit> content = findAllInOrder(ids).stream()
+                .map(b -> new SearchHit(b, scores.get(b.getId())))
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, hits.getTotal());
+    }
+
+    /**
+     * Typo-tolerant search: every word of {@code q}, {@code title} and {@code author} must match a word of
+     * the book within a small edit distance, and the book must pass the facet {@code filter}. Closer
+     * matches come first.
+     */
+    public Page<BookSummary> searchFuzzy(String q, String title, String author, FacetFilter filter, Pageable pageable) {
+        if (!fuzzyIndex.isReady() || (!filter.isEmpty() && !facetIndex.isReady())
+                || (!StringUtils.hasText(q) && !StringUtils.hasText(title) && !StringUtils.hasText(author))) {
+            return unordered(q, title, author, filter, pageable);
+        }
+        long[] matched = fuzzyIndex.search(q, title, author).stream().mapToLong(Long::longValue).toArray();
+        long[] ids = facetIndex.retain(filter, matched);
+        int start = (int) Math.min(pageable.getOffset(), ids.length);
+        int end = Math.min(start + pageable.getPageSize(), ids.length);
+        List<Long> page = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) page.add(ids[i]);
+        return new PageImpl<>(findAllInOrder(page), pageable, ids.length);
+    }
+
+    // the plain search, narrowed by the facet selections when there are any
+    private Page<BookSummary> unordered(String q, String title, String author, FacetFilter filter, Pageable pageable) {
+        return filter.isEmpty() ? search(q, title, author, pageable) : searchFaceted(q, title, author, filter, pageable);
     }
 
-    public Page<Book> list(Pageable pageable) {
-        return bookRepository.findAll(pageable);
+    /**
+     * Search narrowed by facet selections (author, price band, stock). The page carries facet counts
+     * over the text matches, each facet counted with the other facets' selections applied.
+     */
+    public FacetedPage<BookSummary> searchFaceted(String q, String title, String author, FacetFilter filter, Pageable pageable) {
+        boolean hasText = StringUtils.hasText(q) || StringUtils.hasText(title) || StringUtils.hasText(author);
+        if (!facetIndex.isReady() || (hasText && !textIndex.isReady())) {
+            // indexes are still being built at startup: filter in memory, without counts
+            List<BookSummary> matched = (hasText ? scanMatches(q, title, author) : bookRepository.findAll()).stream()
+                    .filter(b -> facetIndex.matches(b, filter))
+                    .map(BookSummary::of)
+                    .collect(Collectors.toList());
+            int start = (int) Math.min(pageable.getOffset(), matched.size());
+            int end = Math.min(start + pageable.getPageSize(), matched.size());
+            return new FacetedPage<>(matched.subList(start, end), pageable, matched.size(), Map.of());
+        }
+        long[] candidates = null;
+        if (hasText) {
+            candidates = textIndex.search(q, title, author).stream().mapToLong(Long::longValue).toArray();
+        }
+        FacetedHits hits = facetIndex.search(filter, candidates, pageable.getOffset(), pageable.getPageSize());
+        List<Long> ids = new ArrayList<>(hits.getPage().length);
+        for (long id : hits.getPage()) ids.add(id);
+        return new FacetedPage<>(findAllInOrder(ids), pageable, hits.getTotal(), hits.getFacets());
     }
 
-    public Page<Book> search(String q, String title, String author, Pageable pageable) {
-        // naive in-memory filtering as a minimal implementation; for production, add repository methods
+    /** Completions for a partially typed title, author or ISBN; served from memory only. */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    private Page<BookSummary> scanSearch(String q, String title, String author, Pageable pageable) {
+        List<Book> filtered = scanMatches(q, title, author);
+        int start = (int) pageable.getOffset();
+        int end = Math.min(start + pageable.getPageSize(), filtered.size());
+        List<BookSummary> pageContent = start >= filtered.size() ? List.of()
+                : filtered.subList(start, end).stream().map(BookSummary::of).collect(Collectors.toList());
+        return new PageImpl<>(pageContent, pageable, filtered.size());
+    }
+
+    private List<Book> scanMatches(String q, String title, String author) {
         List<Book> all = bookRepository.findAll();
         String qn = StringUtils.hasText(q) ? q.toLowerCase() : null;
         String tn = StringUtils.hasText(title) ? title.toLowerCase() : null;
@@ -49,14 +230,35 @@ public class BookService {
             }
             return ok;
         }).collect(Collectors.toList());
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), filtered.size());
-        List<Book> pageContent = start >= filtered.size() ? List.of() : filtered.subList(start, end);
-        return new PageImpl<>(pageContent, pageable, filtered.size());
+        return filtered;
+    }
+
+    // Loads one page of ids with a single IN query and keeps the index order
+    private List<BookSummary> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, BookSummary> byId = new HashMap<>();
+        for (BookSummary b : bookRepository.findSummariesByIdIn(ids)) byId.put(b.getId(), b);
+        List<BookSummary> out = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookSummary b = byId.get(id);
+            if (b != null) out.add(b);
+        }
+        return out;
     }
 
+    /** Descriptions by book id, for list pages whose sparse fieldset asks for them. */
+    public Map<Long, String> descriptions(List<Long> ids) {
+        if (ids.isEmpty()) return Map.of();
+        Map<Long, String> out = new HashMap<>();
+        for (BookRepository.BookDescription d : bookRepository.findDescriptionsByIdIn(ids)) {
+            if (d.getDescription() != null) out.put(d.getId(), d.getDescription());
+        }
+        return out;
+    }
+
+    /** Detached, cached copy of the book; use the repository directly for anything that writes. */
     public Optional<Book> getById(Long id) {
-        return bookRepository.findById(id);
+        return bookCache.book(id, bookRepository::findById);
     }
 
     @Transactional
@@ -73,6 +275,7 @@ public class BookService {
 
     @Transactional
     public Optional<Book> update(Long id, UpdateBookRequest req) {
+        if (inventoryLedger.isEnabled()) return updateBesideLedger(id, req);
         return bookRepository.findById(id).map(b -> {
             b.setTitle(req.getTitle());
             b.setAuthor(req.getAuthor());
@@ -84,10 +287,27 @@ public class BookService {
         });
     }
 
+    // The ledger owns stock while it is on and its journal rewrites books.stock and version on every flush,
+    // so saving the entity would write back a stale stock or fail its version check. Only the other
+    // columns are updated here and stock goes through the ledger.
+    private Optional<Book> updateBesideLedger(Long id, UpdateBookRequest req) {
+        Optional<Book> current = bookRepository.findById(id);
+        if (current.isEmpty()) return Optional.empty();
+        BigDecimal price = req.getPrice() != null ? req.getPrice() : current.get().getPrice();
+        bookRepository.updateDetails(id, req.getTitle(), req.getAuthor(), req.getIsbn(), price,
+                req.getDescription(), Instant.now());
+        if (req.getStock() != null) inventoryLedger.setStock(id, req.getStock());
+        // the bulk update bypasses the entity listener
+        Optional<Book> updated = bookRepository.findById(id);
+        updated.ifPresent(catalogIndexes::bookSaved);
+        return updated;
+    }
+
     @Transactional
     public boolean delete(Long id) {
         if (!bookRepository.existsById(id)) return false;
         bookRepository.deleteById(id);
+        if (inventoryLedger.isEnabled()) AfterCommit.run(() -> inventoryLedger.forget(id));
         return true;
     }
 }
@@ -0,0 +1,204 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.order.BulkOrderResult;
+import com.bookstore.dto.order.BulkOrderResult.Status;
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.event.OrderOutbox;
+import com.bookstore.event.OrderPlacedEvent;
+import com.bookstore.inventory.StockReservations;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.search.CatalogIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Bulk order intake for B2B buyers. Orders are read from an iterator and placed in chunks of
+ * {@code app.orders.bulk.chunk-size}, one transaction per chunk. The user is looked up once. Each chunk
+ * loads its books in one query and first tries to take the chunk's combined copies per book in one
+ * batch of conditional UPDATEs. Only if that misses are the chunk's orders reserved one by one, so a
+ * short book rejects only the orders that cannot be served. Results are handed to the sink chunk by
+ * chunk, in submission order.
+ * <p>
+ * Unlike {@link OrderService#placeOrder}, bulk orders do not consume the buyer's cart holds.
+ */
+@Service
+public class BulkOrderService {
+    private static final Logger log = LoggerFactory.getLogger(BulkOrderService.class);
+
+    private final OrderRepository orderRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogIndexes catalogIndexes;
+    private final StockReservations stockReservations;
+    private final OrderOutbox outbox;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public BulkOrderService(OrderRepository orderRepository, BookRepository bookRepository, UserRepository userRepository,
+                            ApplicationEventPublisher eventPublisher, CatalogIndexes catalogIndexes,
+                            StockReservations stockReservations, OrderOutbox outbox,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.orders.bulk.chunk-size:200}") int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("app.orders.bulk.chunk-size must be positive");
+        this.orderRepository = orderRepository;
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogIndexes = catalogIndexes;
+        this.stockReservations = stockReservations;
+        this.outbox = outbox;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Places every order {@code orders} yields for {@code username}. If the iterator throws (malformed
+     * input), the orders read so far are still placed and the failure is reported as an INVALID result
+     * at the position it occurred, after which intake stops.
+     *
+     * @throws IllegalArgumentException if the user does not exist; nothing has been placed then
+     */
+    public void placeOrders(String username, Iterator<CreateOrderRequest> orders, Consumer<List<BulkOrderResult>> sink) {
+        Long userId = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("user not found: " + username))
+                .getId();
+        List<CreateOrderRequest> chunk = new ArrayList<>(chunkSize);
+        int next = 0;
+        while (true) {
+            RuntimeException unreadable = null;
+            try {
+                if (!orders.hasNext()) break;
+                chunk.add(orders.next());
+            } catch (RuntimeException e) {
+                unreadable = e;
+            }
+            if (unreadable != null || chunk.size() == chunkSize) {
+                sink.accept(placeChunk(userId, next, chunk));
+                next += chunk.size();
+                chunk.clear();
+            }
+            if (unreadable != null) {
+                sink.accept(List.of(BulkOrderResult.rejected(next, Status.INVALID,
+                        "unreadable order, intake stopped: " + unreadable.getMessage())));
+                return;
+            }
+        }
+        if (!chunk.isEmpty()) sink.accept(placeChunk(userId, next, chunk));
+    }
+
+    private List<BulkOrderResult> placeChunk(Long userId, int firstIndex, List<CreateOrderRequest> chunk) {
+        BulkOrderResult[] results = new BulkOrderResult[chunk.size()];
+        List<Map<Long, Integer>> wanted = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                wanted.add(OrderService.wantedCopies(chunk.get(i)));
+            } catch (IllegalArgumentException e) {
+                wanted.add(null);
+                results[i] = BulkOrderResult.rejected(firstIndex + i, Status.INVALID, e.getMessage());
+            }
+        }
+        try {
+            tx.executeWithoutResult(status -> place(userId, firstIndex, chunk, wanted, results));
+        } catch (RuntimeException e) {
+            log.error("bulk order chunk at {} failed", firstIndex, e);
+            for (int i = 0; i < results.length; i++) {
+                if (wanted.get(i) != null) {
+                    results[i] = BulkOrderResult.rejected(firstIndex + i, Status.FAILED, "not placed: " + e.getMessage());
+                }
+            }
+        } finally {
+            // the request's persistence context lives on across chunks (open-in-view)
+            em.clear();
+        }
+        return List.of(results);
+    }
+
+    private void place(Long userId, int firstIndex, List<CreateOrderRequest> chunk,
+                       List<Map<Long, Integer>> wanted, BulkOrderResult[] results) {
+        Map<Long, Integer> total = new TreeMap<>();
+        for (Map<Long, Integer> w : wanted) {
+            if (w != null) w.forEach((id, qty) -> total.merge(id, qty, Integer::sum));
+        }
+        boolean[] taken = new boolean[chunk.size()];
+        Map<Integer, Long> missedBook = new HashMap<>();
+        if (stockReservations.takeAll(total).isEmpty()) {
+            for (int i = 0; i < taken.length; i++) taken[i] = wanted.get(i) != null;
+        } else {
+            for (int i = 0; i < taken.length; i++) {
+                if (wanted.get(i) == null) continue;
+                List<Long> missed = stockReservations.takeAll(wanted.get(i));
+                if (missed.isEmpty()) {
+                    taken[i] = true;
+                } else {
+                    missedBook.put(i, missed.get(0));
+                }
+            }
+        }
+        // loaded after the reservations, so they carry the new stock and version
+        Map<Long, Book> books = new HashMap<>();
+        for (Book b : bookRepository.findAllById(total.keySet())) books.put(b.getId(), b);
+
+        User user = em.getReference(User.class, userId);
+        List<Order> placed = new ArrayList<>();
+        List<Integer> placedAt = new ArrayList<>();
+        for (int i = 0; i < taken.length; i++) {
+            Long missed = missedBook.get(i);
+            if (missed != null) {
+                results[i] = books.containsKey(missed)
+                        ? BulkOrderResult.rejected(firstIndex + i, Status.OUT_OF_STOCK, new InsufficientStockException(missed).getMessage())
+                        : BulkOrderResult.rejected(firstIndex + i, Status.INVALID, "book not found: " + missed);
+            }
+            if (!taken[i]) continue;
+            Order order = new Order();
+            order.setUser(user);
+            for (var itReq : chunk.get(i).getItems()) {
+                order.addItem(OrderService.toItem(itReq, books.get(itReq.getBookId())));
+            }
+            placed.add(order);
+            placedAt.add(i);
+        }
+        orderRepository.saveAll(placed);
+
+        if (!stockReservations.isDeferred()) {
+            // the UPDATEs bypassed the entity listener
+            for (Book b : books.values()) catalogIndexes.bookSaved(b);
+        }
+        List<Long> placedIds = new ArrayList<>(placed.size());
+        for (Order saved : placed) placedIds.add(saved.getId());
+        outbox.append(placedIds);
+        for (int n = 0; n < placed.size(); n++) {
+            Order saved = placed.get(n);
+            int i = placedAt.get(n);
+            for (OrderItem item : saved.getItems()) {
+                catalogIndexes.bookSold(item.getBook().getId(), item.getQuantity());
+            }
+            eventPublisher.publishEvent(new OrderPlacedEvent(saved.getId()));
+            results[i] = BulkOrderResult.created(firstIndex + i, saved.getId(), saved.getTotalAmount());
+        }
+    }
+}
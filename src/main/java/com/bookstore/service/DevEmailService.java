@@ -7,16 +7,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 @ConditionalOnProperty(name = "mail.smtp.enabled", havingValue = "false", matchIfMissing = true)
 public class DevEmailService implements EmailService {
     private static final Logger log = LoggerFactory.getLogger(DevEmailService.class);
 
-    // Keep an in-memory list for debugging in dev
-    private final List<String> sent = new ArrayList<>();
+    // Keep an in-memory list for debugging in dev; written by the email workers
+    private final List<String> sent = new CopyOnWriteArrayList<>();
 
     @Value("${mail.override.to:}")
     private String overrideTo;
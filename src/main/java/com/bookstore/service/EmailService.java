@@ -2,6 +2,26 @@ package com.bookstore.service;
 
 import com.bookstore.model.Order;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public interface EmailService {
     void sendOrderConfirmation(Order order);
+
+    /**
+     * Sends the confirmations of several orders, sharing connections where the implementation can.
+     * Returns the failures by order id; every order not in the map was sent.
+     */
+    default Map<Long, RuntimeException> sendOrderConfirmations(List<Order> orders) {
+        Map<Long, RuntimeException> failures = new LinkedHashMap<>();
+        for (Order order : orders) {
+            try {
+                sendOrderConfirmation(order);
+            } catch (RuntimeException e) {
+                failures.put(order.getId(), e);
+            }
+        }
+        return failures;
+    }
 }
@@ -0,0 +1,16 @@
+package com.bookstore.service;
+
+/** An order asked for more copies of a book than are left; reported as 409 Conflict. */
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long bookId;
+
+    public InsufficientStockException(Long bookId) {
+        super("insufficient stock for book id: " + bookId);
+        this.bookId = bookId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+}
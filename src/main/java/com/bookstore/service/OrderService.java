@@ -1,12 +1,20 @@
 package com.bookstore.service;
 
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.PageCursor;
 import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderHistoryFilter;
 import com.bookstore.dto.order.OrderDto;
 import com.bookstore.dto.order.OrderItemDto;
+import com.bookstore.event.OrderOutbox;
+import com.bookstore.inventory.StockHoldService;
+import com.bookstore.inventory.StockReservations;
 import com.bookstore.model.*;
 import com.bookstore.repository.BookRepository;
 import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.OrderViewRepository;
 import com.bookstore.repository.UserRepository;
+import com.bookstore.search.CatalogIndexes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
@@ -22,13 +30,25 @@ public class OrderService {
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final CatalogIndexes catalogIndexes;
+    private final StockReservations stockReservations;
+    private final StockHoldService stockHolds;
+    private final OrderViewRepository orderViews;
+    private final OrderOutbox outbox;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, BookRepository bookRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
+    public OrderService(OrderRepository orderRepository, BookRepository bookRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher,
+                        CatalogIndexes catalogIndexes, StockReservations stockReservations, StockHoldService stockHolds,
+                        OrderViewRepository orderViews, OrderOutbox outbox) {
         this.orderRepository = orderRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
         this.eventPublisher = eventPublisher;
+        this.catalogIndexes = catalogIndexes;
+        this.stockReservations = stockReservations;
+        this.stockHolds = stockHolds;
+        this.orderViews = orderViews;
+        this.outbox = outbox;
     }
 
     @Transactional
@@ -39,70 +59,120 @@ public class OrderService {
         Order order = new Order();
         order.setUser(user);
 
-        if (req.getItems() == null || req.getItems().isEmpty()) {
-            throw new IllegalArgumentException("order must contain at least one item");
+        java.util.Map<Long, Integer> wanted = wantedCopies(req);
+        // The user's cart holds already own their copies; the rest is taken by conditional UPDATEs (or the
+        // in-memory ledger) without reading the stock first. A miss rolls the whole order back.
+        java.util.Map<Long, Integer> held = stockHolds.consume(user.getId(), wanted);
+        java.util.Map<Long, Integer> toTake = new java.util.TreeMap<>();
+        wanted.forEach((id, qty) -> {
+            int rest = qty - held.getOrDefault(id, 0);
+            if (rest > 0) toTake.put(id, rest);
+        });
+        java.util.List<Long> missed = stockReservations.take(toTake);
+        if (!missed.isEmpty()) {
+            Long bookId = missed.get(0);
+            if (!bookRepository.existsById(bookId)) throw new IllegalArgumentException("book not found: " + bookId);
+            throw new InsufficientStockException(bookId);
+        }
+        // loaded after the reservation, so these already carry the new stock and version
+        // (with the ledger, books.stock catches up when StockJournalFlusher runs)
+        java.util.Map<Long, Book> books = new java.util.HashMap<>();
+        for (Book b : bookRepository.findAllById(wanted.keySet())) {
+            books.put(b.getId(), b);
+            // the UPDATE bypassed the entity listener
+            if (!stockReservations.isDeferred()) catalogIndexes.bookSaved(b);
         }
 
         for (var itReq : req.getItems()) {
-            Long bookId = itReq.getBookId();
-            int qty = itReq.getQuantity() == null ? 1 : itReq.getQuantity();
-
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new IllegalArgumentException("book not found: " + bookId));
-
-            if (book.getStock() == null || book.getStock() < qty) {
-                throw new IllegalArgumentException("insufficient stock for book id: " + bookId);
-            }
-
-            // decrement stock
-            book.setStock(book.getStock() - qty);
-            bookRepository.save(book);
-
-            OrderItem item = new OrderItem();
-            item.setBook(book);
-            item.setQuantity(qty);
-            // If this is a RENT item, unit price should be the rent price (e.g. 20% of buy price)
-            try {
-                if (itReq.getItemType() != null && itReq.getItemType().equalsIgnoreCase("RENT")) {
-                    java.math.BigDecimal rentUnit = book.getPrice().multiply(new java.math.BigDecimal("0.20")).setScale(2, java.math.RoundingMode.HALF_UP);
-                    item.setUnitPrice(rentUnit);
-                } else {
-                    item.setUnitPrice(book.getPrice());
-                }
-            } catch (Exception ex) {
-                item.setUnitPrice(book.getPrice());
-            }
-            try {
-                item.setItemType(ItemType.valueOf(itReq.getItemType() == null ? "BUY" : itReq.getItemType()));
-            } catch (Exception e) {
-                item.setItemType(ItemType.BUY);
-            }
-            if (itReq.getRentalDays() != null) item.setRentalDays(itReq.getRentalDays());
-
-            order.addItem(item);
+            order.addItem(toItem(itReq, books.get(itReq.getBookId())));
         }
 
         Order saved = orderRepository.save(order);
 
-        // publish event to send confirmation after transaction commits
+        // feeds suggestion popularity once the order has committed
+        for (OrderItem item : saved.getItems()) {
+            catalogIndexes.bookSold(item.getBook().getId(), item.getQuantity());
+        }
+
+        // the confirmation's outbox row commits or rolls back with the order; the event only wakes the relay
+        outbox.append(java.util.List.of(saved.getId()));
         eventPublisher.publishEvent(new com.bookstore.event.OrderPlacedEvent(saved.getId()));
 
         return toDto(saved);
     }
 
-    @Transactional(readOnly = true)
-    public java.util.List<OrderDto> findOrdersForUser(String username) {
-        com.bookstore.model.User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("user not found: " + username));
-        return orderRepository.findByUser(user).stream().map(this::toDto).collect(Collectors.toList());
+    // Read-only views come from OrderViewRepository's flat joins rather than managed entities
+
+    /** Newest-first page of the user's orders matching {@code filter}, after {@code cursor}. */
+    public CursorPage<OrderDto> historyForUser(String username, OrderHistoryFilter filter, String cursor, Integer limit) {
+        Long userId = orderViews.findUserId(username);
+        if (userId == null) throw new IllegalArgumentException("user not found: " + username);
+        PageCursor at = PageCursor.newestFirst(cursor);
+        int size = CursorPage.clampLimit(limit);
+        java.util.List<OrderDto> rows = orderViews.findHistory(userId, filter, at, size + 1);
+        return CursorPage.of(rows, size, o -> PageCursor.after(PageCursor.Key.CREATED, o.getCreatedAt(), o.getId()), null);
     }
 
-    @Transactional(readOnly = true)
     public Optional<OrderDto> findByIdForUser(Long id, String username) {
-        return orderRepository.findById(id).map(o -> {
-            if (!o.getUser().getUsername().equals(username)) return null;
-            return toDto(o);
-        });
+        return orderViews.findById(id).filter(o -> username.equals(o.getUsername()));
+    }
+
+    public java.util.List<OrderDto> findAllOrders() {
+        return orderViews.findAll();
+    }
+
+    /** Keyset page of all orders after {@code cursor}, for the admin listing; see {@link PageCursor}. */
+    public CursorPage<OrderDto> listByCursor(String cursor, String sort, Integer limit, boolean withTotal) {
+        PageCursor at = PageCursor.parse(cursor, sort);
+        int size = CursorPage.clampLimit(limit);
+        java.util.List<OrderDto> rows = orderViews.findPage(at, size + 1);
+        return CursorPage.of(rows, size, o -> PageCursor.after(at.getKey(), o.getUpdatedAt(), o.getId()),
+                withTotal ? orderRepository.count() : null);
+    }
+
+    /**
+     * Copies per book over all lines of {@code req}, in id order so concurrent orders lock rows alike.
+     *
+     * @throws IllegalArgumentException if the order is empty or a line has no book or a non-positive quantity
+     */
+    static java.util.Map<Long, Integer> wantedCopies(CreateOrderRequest req) {
+        if (req.getItems() == null || req.getItems().isEmpty()) {
+            throw new IllegalArgumentException("order must contain at least one item");
+        }
+        java.util.Map<Long, Integer> wanted = new java.util.TreeMap<>();
+        for (var itReq : req.getItems()) {
+            if (itReq.getBookId() == null) throw new IllegalArgumentException("bookId is required");
+            int qty = itReq.getQuantity() == null ? 1 : itReq.getQuantity();
+            if (qty <= 0) throw new IllegalArgumentException("quantity must be positive for book id: " + itReq.getBookId());
+            wanted.merge(itReq.getBookId(), qty, Integer::sum);
+        }
+        return wanted;
+    }
+
+    /** Order line for {@code itReq}, priced from {@code book}. */
+    static OrderItem toItem(com.bookstore.dto.order.OrderItemRequest itReq, Book book) {
+        int qty = itReq.getQuantity() == null ? 1 : itReq.getQuantity();
+        OrderItem item = new OrderItem();
+        item.setBook(book);
+        item.setQuantity(qty);
+        // If this is a RENT item, unit price should be the rent price (e.g. 20% of buy price)
+        try {
+            if (itReq.getItemType() != null && itReq.getItemType().equalsIgnoreCase("RENT")) {
+                java.math.BigDecimal rentUnit = book.getPrice().multiply(new java.math.BigDecimal("0.20")).setScale(2, java.math.RoundingMode.HALF_UP);
+                item.setUnitPrice(rentUnit);
+            } else {
+                item.setUnitPrice(book.getPrice());
+            }
+        } catch (Exception ex) {
+            item.setUnitPrice(book.getPrice());
+        }
+        try {
+            item.setItemType(ItemType.valueOf(itReq.getItemType() == null ? "BUY" : itReq.getItemType()));
+        } catch (Exception e) {
+            item.setItemType(ItemType.BUY);
+        }
+        if (itReq.getRentalDays() != null) item.setRentalDays(itReq.getRentalDays());
+        return item;
     }
 
     public OrderDto toDto(Order o) {
@@ -113,6 +183,7 @@ public class OrderService {
         dto.setOrderStatus(o.getOrderStatus());
         dto.setPaymentStatus(o.getPaymentStatus());
         dto.setCreatedAt(o.getCreatedAt());
+        dto.setUpdatedAt(o.getUpdatedAt());
         dto.setEmailed(o.isEmailed());
         var items = o.getItems();
         var dtos = items.stream().map(it -> {
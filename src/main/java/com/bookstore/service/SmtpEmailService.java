@@ -5,46 +5,107 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends order confirmations over connections borrowed from the {@link SmtpTransportPool}; a batch goes
+ * out in one SMTP session, or a few when it is larger than a connection's message limit. When a pooled
+ * connection turns out to be dead the message is retried once on a fresh one, and if that fails too the
+ * rest of the batch fails without further connection attempts.
+ */
 @Service
 @ConditionalOnProperty(name = "mail.smtp.enabled", havingValue = "true")
 public class SmtpEmailService implements EmailService {
     private static final Logger log = LoggerFactory.getLogger(SmtpEmailService.class);
 
     private final JavaMailSender mailSender;
+    private final SmtpTransportPool pool;
+    private final String fromAddress;
+    private final String overrideTo;
 
-    @Value("${mail.from.address:no-reply@localhost}")
-    private String fromAddress;
-
-    @Value("${mail.override.to:}")
-    private String overrideTo;
-
-    public SmtpEmailService(JavaMailSender mailSender) {
+    public SmtpEmailService(JavaMailSender mailSender, SmtpTransportPool pool,
+                            @Value("${mail.from.address:no-reply@localhost}") String fromAddress,
+                            @Value("${mail.override.to:}") String overrideTo) {
         this.mailSender = mailSender;
+        this.pool = pool;
+        this.fromAddress = fromAddress;
+        this.overrideTo = overrideTo;
     }
 
     @Override
     public void sendOrderConfirmation(Order order) {
-        if (order == null || order.getUser() == null || order.getUser().getEmail() == null) {
-            log.warn("Skipping email send: order/user/email missing (orderId={})", order == null ? null : order.getId());
-            return;
+        Map<Long, RuntimeException> failures = sendOrderConfirmations(List.of(order));
+        if (!failures.isEmpty()) throw failures.values().iterator().next();
+    }
+
+    @Override
+    public Map<Long, RuntimeException> sendOrderConfirmations(List<Order> orders) {
+        Map<Long, RuntimeException> failures = new LinkedHashMap<>();
+        List<Order> pending = new ArrayList<>(orders.size());
+        List<MimeMessage> messages = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (order == null || order.getUser() == null || order.getUser().getEmail() == null) {
+                log.warn("Skipping email send: order/user/email missing (orderId={})", order == null ? null : order.getId());
+                continue;
+            }
+            try {
+                messages.add(buildMessage(order));
+                pending.add(order);
+            } catch (MessagingException | RuntimeException e) {
+                log.error("could not build confirmation for orderId={}: {}", order.getId(), e.getMessage(), e);
+                failures.put(order.getId(), new MailSendException("could not build message", e));
+            }
         }
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setFrom(fromAddress);
-        String recipient = (overrideTo != null && !overrideTo.isBlank()) ? overrideTo : order.getUser().getEmail();
-        msg.setTo(recipient);
-        msg.setSubject("Order Confirmation #" + order.getId());
-        msg.setText(buildBody(order, recipient));
-        try {
-            mailSender.send(msg);
-            log.info("SMTP email sent for orderId={} to {}", order.getId(), recipient);
-        } catch (org.springframework.mail.MailException me) {
-            log.error("SMTP send failed for orderId={} to {}: {}", order.getId(), recipient, me.getMessage(), me);
-            throw me;
+
+        int next = 0;
+        boolean reconnected = false;
+        while (next < pending.size()) {
+            try (SmtpTransportPool.Connection connection = pool.borrow()) {
+                for (; next < pending.size() && !connection.isExhausted(); next++) {
+                    Order order = pending.get(next);
+                    try {
+                        connection.send(messages.get(next));
+                        log.info("SMTP email sent for orderId={}", order.getId());
+                    } catch (MessagingException e) {
+                        if (connection.isBroken()) throw e;
+                        log.error("SMTP send failed for orderId={}: {}", order.getId(), e.getMessage(), e);
+                        failures.put(order.getId(), new MailSendException("SMTP send failed", e));
+                    }
+                }
+            } catch (MessagingException | RuntimeException e) {
+                // the connection is gone or could not be opened: give the current message one fresh connection
+                if (!reconnected) {
+                    log.warn("SMTP connection failed, retrying on a new one: {}", e.getMessage());
+                    reconnected = true;
+                    continue;
+                }
+                log.error("SMTP send failed for {} orders: {}", pending.size() - next, e.getMessage(), e);
+                MailSendException failure = new MailSendException("SMTP connection failed", e);
+                for (; next < pending.size(); next++) failures.put(pending.get(next).getId(), failure);
+            }
         }
+        return failures;
+    }
+
+    private MimeMessage buildMessage(Order order) throws MessagingException {
+        String recipient = (overrideTo != null && !overrideTo.isBlank()) ? overrideTo : order.getUser().getEmail();
+        MimeMessage msg = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(msg, "UTF-8");
+        helper.setFrom(fromAddress);
+        helper.setTo(recipient);
+        helper.setSubject("Order Confirmation #" + order.getId());
+        helper.setText(buildBody(order, recipient));
+        return msg;
     }
 
     private String buildBody(Order order, String recipient) {
@@ -0,0 +1,161 @@
+package com.bookstore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps up to {@code mail.smtp.pool.size} connected (TLS and AUTH done) SMTP transports so that sends
+ * skip the handshake. A connection is retired after {@code max-messages-per-connection} messages or when
+ * it has been idle longer than {@code max-idle-seconds}, before the server would time it out; one that
+ * failed is discarded. Borrowers beyond the pool size wait for a connection to come back.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.smtp.enabled", havingValue = "true")
+public class SmtpTransportPool {
+    private static final Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private final JavaMailSenderImpl sender;
+    private final Semaphore permits;
+    // most recently returned first, so a quiet period retires the surplus connections
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final int maxMessages;
+    private final long maxIdleMillis;
+    private volatile boolean closed;
+
+    public SmtpTransportPool(JavaMailSender mailSender,
+                             @Value("${mail.smtp.pool.size:2}") int size,
+                             @Value("${mail.smtp.pool.max-messages-per-connection:100}") int maxMessages,
+                             @Value("${mail.smtp.pool.max-idle-seconds:30}") long maxIdleSeconds) {
+        if (!(mailSender instanceof JavaMailSenderImpl)) {
+            throw new IllegalStateException("SMTP pooling needs a JavaMailSenderImpl, got " + mailSender.getClass().getName());
+        }
+        if (size < 1) throw new IllegalArgumentException("mail.smtp.pool.size must be positive");
+        this.sender = (JavaMailSenderImpl) mailSender;
+        this.permits = new Semaphore(size, true);
+        this.maxMessages = maxMessages;
+        this.maxIdleMillis = maxIdleSeconds * 1000;
+    }
+
+    /** A connected transport, reused or newly opened; {@link Connection#close() close} returns it. */
+    public Connection borrow() throws MessagingException {
+        if (closed) throw new MessagingException("SMTP pool is closed");
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("interrupted waiting for an SMTP connection");
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Connection c;
+            while ((c = idle.pollFirst()) != null) {
+                if (now - c.lastUsed < maxIdleMillis) return c;
+                c.disconnect();
+            }
+            return new Connection(connect());
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        Connection c;
+        while ((c = idle.pollFirst()) != null) c.disconnect();
+    }
+
+    // what JavaMailSenderImpl does for every send, done once per pooled connection
+    private Transport connect() throws MessagingException {
+        String protocol = sender.getProtocol() == null ? "smtp" : sender.getProtocol();
+        Transport transport = sender.getSession().getTransport(protocol);
+        String username = sender.getUsername();
+        String password = sender.getPassword();
+        transport.connect(sender.getHost(), sender.getPort(),
+                username == null || username.isEmpty() ? null : username,
+                password == null || password.isEmpty() ? null : password);
+        return transport;
+    }
+
+    private void release(Connection c) {
+        try {
+            if (c.broken || closed || c.isExhausted()) {
+                c.disconnect();
+            } else {
+                c.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(c);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** One pooled SMTP session; not thread-safe, use it from the borrowing thread and close it after. */
+    public final class Connection implements AutoCloseable {
+        private final Transport transport;
+        private int sent;
+        private long lastUsed;
+        private boolean broken;
+        private boolean released;
+
+        private Connection(Transport transport) {
+            this.transport = transport;
+        }
+
+        /**
+         * Sends {@code message} in this session. A refused message ({@link SendFailedException}) leaves the
+         * session usable; any other failure, or a refusal because the server dropped the session, marks the
+         * connection {@link #isBroken() broken} and it is not returned to the pool.
+         */
+        public void send(MimeMessage message) throws MessagingException {
+            if (message.getSentDate() == null) message.setSentDate(new Date());
+            message.saveChanges();
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                sent++;
+            } catch (MessagingException | RuntimeException e) {
+                broken = !(e instanceof SendFailedException) || !transport.isConnected();
+                throw e;
+            }
+        }
+
+        public boolean isBroken() {
+            return broken;
+        }
+
+        /** True once this connection has carried its share of messages and should not take more. */
+        public boolean isExhausted() {
+            return sent >= maxMessages;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            release(this);
+        }
+
+        private void disconnect() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("closing SMTP connection failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.bookstore.service;
 
 import com.bookstore.dto.CreateUserRequest;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.PageCursor;
 import com.bookstore.dto.UserDto;
 import com.bookstore.model.User;
 import com.bookstore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -49,6 +53,24 @@ public class UserService {
         return userRepository.findByUsername(username).map(this::toDto);
     }
 
+    /** Keyset page of all users after {@code cursor}; see {@link PageCursor}. */
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> listByCursor(String cursor, String sort, Integer limit, boolean withTotal) {
+        PageCursor at = PageCursor.parse(cursor, sort);
+        int size = CursorPage.clampLimit(limit);
+        PageRequest probe = PageRequest.of(0, size + 1);
+        List<User> rows;
+        if (at.getKey() == PageCursor.Key.ID) {
+            rows = userRepository.findByIdGreaterThanOrderByIdAsc(at.getId(), probe);
+        } else if (at.isStart()) {
+            rows = userRepository.findAllByOrderByUpdatedAtAscIdAsc(probe);
+        } else {
+            rows = userRepository.findUpdatedAfter(at.getUpdatedAt(), at.getId(), probe);
+        }
+        return CursorPage.of(rows, size, u -> PageCursor.after(at.getKey(), u.getUpdatedAt(), u.getId()),
+                withTotal ? userRepository.count() : null).map(this::toDto);
+    }
+
     private UserDto toDto(User u) {
         UserDto dto = new UserDto();
         dto.setId(u.getId());
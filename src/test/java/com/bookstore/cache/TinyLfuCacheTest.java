@@ -0,0 +1,89 @@
+package com.bookstore.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    void readsThroughOnce_andCountsHitsAndMisses() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(1000, 100, String::length);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("v1", cache.get(1L, k -> { loads.incrementAndGet(); return "v" + k; }));
+        }
+        assertEquals(1, loads.get());
+        assertNull(cache.get(2L, k -> null));
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void invalidationDuringALoadKeepsTheStaleValueOut() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(1000, 100, String::length);
+        assertEquals("old", cache.get(1L, k -> { cache.invalidate(1L); return "old"; }));
+        assertEquals("new", cache.get(1L, k -> "new"));
+    }
+
+    @Test
+    void staysWithinMaxWeight_andAScanDoesNotFlushHotEntries() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10_000, 1000, v -> 100);
+        for (int round = 0; round < 5; round++) {
+            for (long k = 0; k < 50; k++) cache.get(k, key -> "hot" + key);
+        }
+        for (long k = 1000; k < 5000; k++) cache.get(k, key -> "cold" + key);
+        assertTrue(cache.stats().getWeight() <= 10_000);
+        assertTrue(cache.stats().getEvictionCount() > 0);
+
+        AtomicInteger reloads = new AtomicInteger();
+        for (long k = 0; k < 50; k++) cache.get(k, key -> { reloads.incrementAndGet(); return "hot" + key; });
+        assertTrue(reloads.get() < 5, "hot entries reloaded: " + reloads.get());
+    }
+
+    @Test
+    void concurrentHitsInvalidationsAndEvictionsKeepTheBooksBalanced() throws Exception {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(5_000, 500, v -> 100);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            readers.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 20_000; i++) {
+                    long key = random.nextInt(10) < 8 ? random.nextInt(20) : random.nextInt(2_000);
+                    assertEquals("v" + key, cache.get(key, k -> "v" + k));
+                    if (i % 1_000 == 0) cache.invalidate(key);
+                    if (seed == 0 && i % 5_000 == 0) cache.invalidateAll();
+                }
+            }));
+        }
+        for (Future<?> f : readers) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        CacheStats stats = cache.stats();
+        assertEquals(8 * 20_000, stats.getHitCount() + stats.getMissCount());
+        assertTrue(stats.getWeight() >= 0 && stats.getWeight() <= 5_000, "weight " + stats.getWeight());
+        assertEquals(stats.getSize() * 100, stats.getWeight());
+    }
+
+    @Test
+    void zeroWeightDisablesTheCache() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(0, 16, String::length);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, k -> { loads.incrementAndGet(); return "v"; });
+        cache.get(1L, k -> { loads.incrementAndGet(); return "v"; });
+        assertEquals(2, loads.get());
+    }
+}
@@ -44,4 +44,13 @@ public class BookDtoTest {
         assertEquals(dto.getStock(), back.getStock());
         assertEquals(dto.getDescription(), back.getDescription());
     }
+
+    @Test
+    void fromSummary_leavesOutDescription() {
+        BookSummary s = new BookSummary(7L, "Title", "Author", "ISBN-1", new BigDecimal("10.00"), 3, null, null);
+        BookDto dto = BookDto.fromSummary(s);
+        assertEquals(7L, (long) dto.getId());
+        assertEquals(new BigDecimal("2.00"), dto.getRentPrice());
+        assertNull(dto.getDescription());
+    }
 }
@@ -0,0 +1,66 @@
+package com.bookstore.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    void cursorsRoundTrip() {
+        PageCursor byId = PageCursor.parse(PageCursor.after(PageCursor.Key.ID, Instant.EPOCH, 42L).encode(), null);
+        assertEquals(PageCursor.Key.ID, byId.getKey());
+        assertEquals(42L, byId.getId());
+        assertNull(byId.getUpdatedAt());
+
+        Instant at = Instant.parse("2024-05-01T10:15:30.123456789Z");
+        PageCursor byUpdate = PageCursor.parse(PageCursor.after(PageCursor.Key.UPDATED, at, 7L).encode(), "updated");
+        assertEquals(at, byUpdate.getUpdatedAt());
+        assertEquals(7L, byUpdate.getId());
+        assertFalse(byUpdate.isStart());
+    }
+
+    @Test
+    void missingCursorStartsAWalk() {
+        assertTrue(PageCursor.parse(null, null).isStart());
+        assertEquals(PageCursor.Key.UPDATED, PageCursor.parse("", "updated").getKey());
+    }
+
+    @Test
+    void badInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.parse("not a cursor!", null));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.parse(null, "title"));
+        String byId = PageCursor.after(PageCursor.Key.ID, null, 1L).encode();
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.parse(byId, "updated"));
+    }
+
+    @Test
+    void newestFirstCursorsStayInTheirOwnWalk() {
+        Instant at = Instant.parse("2024-05-01T10:15:30Z");
+        String next = PageCursor.after(PageCursor.Key.CREATED, at, 9L).encode();
+        PageCursor c = PageCursor.newestFirst(next);
+        assertEquals(at, c.getCreatedAt());
+        assertNull(c.getUpdatedAt());
+        assertEquals(9L, c.getId());
+        assertTrue(PageCursor.newestFirst(null).isStart());
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.parse(next, null));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.parse(null, "created"));
+        String byId = PageCursor.after(PageCursor.Key.ID, null, 1L).encode();
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.newestFirst(byId));
+    }
+
+    @Test
+    void extraRowOnlySignalsANextPage() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L, 3L), 2, id -> PageCursor.after(PageCursor.Key.ID, null, id), null);
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertEquals(2L, PageCursor.parse(page.getNext(), null).getId());
+
+        CursorPage<Long> last = CursorPage.of(List.of(3L), 2, id -> PageCursor.after(PageCursor.Key.ID, null, id), 3L);
+        assertNull(last.getNext());
+        assertEquals(3L, (long) last.getTotal());
+    }
+}
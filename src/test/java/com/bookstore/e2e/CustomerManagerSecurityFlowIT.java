@@ -4,6 +4,7 @@ import com.bookstore.dto.CreateBookRequest;
 import com.bookstore.dto.CreateUserRequest;
 import com.bookstore.dto.order.CreateOrderRequest;
 import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.event.OrderOutboxRelay;
 import com.bookstore.service.DevEmailService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +34,9 @@ public class CustomerManagerSecurityFlowIT {
     @Autowired
     DevEmailService devEmailService;
 
+    @Autowired
+    OrderOutboxRelay outboxRelay;
+
     String baseUrl;
 
     @BeforeEach
@@ -52,7 +56,7 @@ public class CustomerManagerSecurityFlowIT {
     }
 
     @Test
-    void fullFlows() {
+    void fullFlows() throws InterruptedException {
         // 1. Register new customer
         CreateUserRequest reg = new CreateUserRequest();
         reg.setUsername("cust" + System.currentTimeMillis());
@@ -90,6 +94,8 @@ public class CustomerManagerSecurityFlowIT {
         assertTrue(orderResp.getBody().contains("PENDING"));
 
         // 5. Email confirmation captured
+        // confirmations go out from the email workers once the outbox relay has picked the order up
+        awaitEmail();
         assertFalse(devEmailService.getSent().isEmpty(), "Expected at least one dev email sent");
         String lastEmail = devEmailService.getSent().get(devEmailService.getSent().size() - 1);
         assertTrue(lastEmail.contains("Order #"), "Email should contain order id");
@@ -140,4 +146,12 @@ public class CustomerManagerSecurityFlowIT {
         // Expect 401 because search requires authentication by global security (non-dev profile)
         assertEquals(HttpStatus.UNAUTHORIZED, unauthResp.getStatusCode());
     }
-}
\ No newline at end of file
+
+    private void awaitEmail() throws InterruptedException {
+        outboxRelay.relay();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (devEmailService.getSent().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.bookstore.dto.CreateBookRequest;
 import com.bookstore.dto.CreateUserRequest;
 import com.bookstore.dto.order.CreateOrderRequest;
 import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.event.OrderOutboxRelay;
 import com.bookstore.service.DevEmailService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,6 +40,9 @@ public class CustomerManagerSecurityFlowTest {
     @Autowired
     DevEmailService devEmailService;
 
+    @Autowired
+    OrderOutboxRelay outboxRelay;
+
     @Autowired
     BookRepository bookRepository;
 
@@ -112,7 +116,7 @@ public class CustomerManagerSecurityFlowTest {
     }
 
     @Test
-    void fullFlows() {
+    void fullFlows() throws InterruptedException {
         // Ensure seeded admin exists (test profile seeds an admin). Login with known seeded credentials.
         assertEquals(HttpStatus.OK, login("admin", "admin").getStatusCode());
 
@@ -154,6 +158,8 @@ public class CustomerManagerSecurityFlowTest {
     assertEquals(HttpStatus.CREATED, orderResp.getStatusCode());
     assertTrue(orderResp.getBody().contains("PENDING"));
 
+        // confirmations go out from the email workers once the outbox relay has picked the order up
+        awaitEmail();
         assertFalse(devEmailService.getSent().isEmpty(), "Expected at least one dev email sent");
 
         // Manager flow (already admin logged in earlier; ensure again)
@@ -190,4 +196,12 @@ public class CustomerManagerSecurityFlowTest {
         while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
         return Long.parseLong(json.substring(start, end));
     }
-}
\ No newline at end of file
+
+    private void awaitEmail() throws InterruptedException {
+        outboxRelay.relay();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (devEmailService.getSent().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bookstore.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailDeliveryQueueTest {
+
+    private EmailDeliveryQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    void fullQueueDropsAfterTheEnqueueTimeout() throws Exception {
+        queue = new EmailDeliveryQueue(1, 2, 20);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        assertTrue(queue.submit(1L, () -> {
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.submit(2L, () -> { }));
+        assertTrue(queue.submit(3L, () -> { }));
+
+        long before = System.nanoTime();
+        assertFalse(queue.submit(4L, () -> fail("dropped delivery ran")));
+        assertTrue(System.nanoTime() - before >= TimeUnit.MILLISECONDS.toNanos(20));
+
+        EmailDeliveryStats stats = queue.stats();
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(2, stats.getQueueCapacity());
+        assertEquals(1, stats.getActiveWorkers());
+        assertEquals(4, stats.getSubmitted());
+        assertEquals(1, stats.getDropped());
+
+        release.countDown();
+        awaitDone(3);
+        assertEquals(3, queue.stats().getDelivered());
+        assertEquals(0, queue.stats().getQueueDepth());
+    }
+
+    @Test
+    void failuresAndSendTimesAreCounted() throws Exception {
+        queue = new EmailDeliveryQueue(2, 10, 0);
+        queue.submit(1L, () -> sleep(30));
+        queue.submit(2L, () -> {
+            throw new IllegalStateException("smtp down");
+        });
+        awaitDone(2);
+        EmailDeliveryStats stats = queue.stats();
+        assertEquals(1, stats.getDelivered());
+        assertEquals(1, stats.getFailed());
+        assertTrue(stats.getMaxSendMillis() >= 30);
+        assertTrue(stats.getAvgSendMillis() > 0);
+    }
+
+    private void awaitDone(long n) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.stats().getDelivered() + queue.stats().getFailed() < n && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
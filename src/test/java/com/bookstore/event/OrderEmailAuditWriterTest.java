@@ -0,0 +1,85 @@
+package com.bookstore.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class OrderEmailAuditWriterTest {
+
+    private static final String PROVIDER = "audit-test";
+    private static final long HOUR = 3_600_000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private OrderEmailAuditWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) writer.close();
+        jdbcTemplate.update("DELETE FROM order_emails WHERE provider = ?", PROVIDER);
+    }
+
+    @Test
+    void queuedAttemptsAreWrittenInChunks_onFlush() {
+        writer = new OrderEmailAuditWriter(jdbcTemplate, 3, HOUR, 100);
+        writer.start();
+        for (long id = 1; id <= 7; id++) writer.record(id, id % 2 == 0, PROVIDER, id % 2 == 0 ? null : "smtp down");
+        writer.flush();
+
+        assertEquals(7, count());
+        assertEquals(List.of("smtp down"), jdbcTemplate.queryForList(
+                "SELECT DISTINCT error_message FROM order_emails WHERE provider = ? AND success = FALSE", String.class, PROVIDER));
+    }
+
+    @Test
+    void aFullBatchIsWrittenWithoutWaitingForTheTimer() throws InterruptedException {
+        writer = new OrderEmailAuditWriter(jdbcTemplate, 5, HOUR, 100);
+        writer.start();
+        for (long id = 1; id <= 5; id++) writer.record(id, true, PROVIDER, null);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count() < 5 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertEquals(5, count());
+    }
+
+    @Test
+    void closeWritesWhatIsLeft() throws InterruptedException {
+        writer = new OrderEmailAuditWriter(jdbcTemplate, 100, HOUR, 100);
+        writer.start();
+        writer.record(1L, true, PROVIDER, null);
+        writer.record(2L, false, PROVIDER, "x".repeat(5000));
+        writer.close();
+        writer = null;
+
+        assertEquals(2, count());
+    }
+
+    @Test
+    void aRejectedRowIsSkipped_andTheBacklogIsCapped() {
+        writer = new OrderEmailAuditWriter(jdbcTemplate, 100, HOUR, 4);
+        writer.start();
+        writer.record(1L, true, PROVIDER, null);
+        writer.record(null, true, PROVIDER, null); // order_id is NOT NULL
+        writer.record(3L, true, PROVIDER, null);
+        writer.record(4L, true, PROVIDER, null);
+        writer.record(5L, true, PROVIDER, null); // over max-pending
+
+        assertEquals(3, writer.flush());
+        assertEquals(List.of(1L, 3L, 4L), jdbcTemplate.queryForList(
+                "SELECT order_id FROM order_emails WHERE provider = ? ORDER BY order_id", Long.class, PROVIDER));
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_emails WHERE provider = ?", Long.class, PROVIDER);
+    }
+}
@@ -0,0 +1,307 @@
+package com.bookstore.event;
+
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderDto;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.service.DevEmailService;
+import com.bookstore.service.OrderService;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class OrderOutboxRelayTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Autowired
+    OrderOutbox outbox;
+
+    @Autowired
+    OrderOutboxRelay relay;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    DevEmailService devEmailService;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    OrderEmailAuditWriter emailAudit;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private Long bookId;
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        fixture.buyer("outbox-buyer");
+        bookId = fixture.book("outbox-1", "Outbox Book", "12.00", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        fixture.cleanUp();
+    }
+
+    @Test
+    void eventRowCommitsAndRollsBackWithTheOrder() {
+        OrderDto placed = orderService.placeOrder("outbox-buyer", order(2));
+        assertEquals(List.of(placed.getId()),
+                jdbcTemplate.queryForList("SELECT order_id FROM order_outbox", Long.class));
+
+        assertThrows(RuntimeException.class, () -> orderService.placeOrder("outbox-buyer", order(50)));
+        assertEquals(1, count("SELECT COUNT(*) FROM order_outbox"));
+    }
+
+    @Test
+    void claimedRowsAreLeased_andComeDueAgainWhenTheLeaseRunsOut() {
+        append(List.of(1001L, 1002L, 1003L));
+
+        List<OrderOutbox.Entry> first = claim(2);
+        assertEquals(List.of(1001L, 1002L), orderIds(first));
+        assertTrue(first.stream().allMatch(e -> e.getAttempts() == 1));
+        assertEquals(List.of(1003L), orderIds(claim(10)));
+        assertTrue(claim(10).isEmpty());
+
+        jdbcTemplate.update("UPDATE order_outbox SET available_at = ?", Timestamp.valueOf("2000-01-01 00:00:00"));
+        List<OrderOutbox.Entry> again = claim(10);
+        assertEquals(List.of(1001L, 1002L, 1003L), orderIds(again));
+        assertTrue(again.stream().allMatch(e -> e.getAttempts() == 2));
+    }
+
+    @Test
+    void aReleasedClaimIsDueAtOnce_andNotCountedAsAnAttempt() {
+        append(List.of(3001L));
+        OrderOutbox.Entry claimed = claim(1).get(0);
+        assertTrue(claim(1).isEmpty());
+
+        outbox.release(List.of(claimed.getId()));
+        List<OrderOutbox.Entry> again = claim(1);
+        assertEquals(List.of(3001L), orderIds(again));
+        assertEquals(1, again.get(0).getAttempts());
+    }
+
+    @Test
+    void queuedDeliveriesKeepTheirLease_andSkipOrdersMailedMeanwhile() throws InterruptedException {
+        CountDownLatch smtpBack = new CountDownLatch(1);
+        List<Long> mailed = Collections.synchronizedList(new ArrayList<>());
+        EmailDeliveryQueue queue = new EmailDeliveryQueue(1, 10, 0);
+        // one-second lease, one order per delivery
+        OrderOutboxRelay slow = new OrderOutboxRelay(outbox, orderRepository, o -> {
+            try {
+                smtpBack.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mailed.add(o.getId());
+        }, emailAudit, queue, transactionManager, false, 10, 1000, 1, 8, 30, 60, 100, 1);
+        try {
+            Long first = orderService.placeOrder("outbox-buyer", order(1)).getId();
+            Long second = orderService.placeOrder("outbox-buyer", order(1)).getId();
+            Long third = orderService.placeOrder("outbox-buyer", order(1)).getId();
+            assertEquals(3, slow.relay());
+            orderRepository.markEmailed(third);
+
+            // the leases would have run out by now; the next pass renews them before it claims
+            Thread.sleep(1500);
+            assertEquals(0, slow.relay());
+            assertEquals(0, count("SELECT COUNT(*) FROM order_outbox WHERE attempts > 1"));
+
+            smtpBack.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (count("SELECT COUNT(*) FROM order_outbox") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, count("SELECT COUNT(*) FROM order_outbox"));
+            assertEquals(List.of(first, second), mailed);
+        } finally {
+            smtpBack.countDown();
+            queue.close();
+        }
+    }
+
+    @Test
+    void concurrentRelaysNeverClaimTheSameRow() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= 40; i++) ids.add(2000 + i);
+        append(ids);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> relays = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                relays.add(pool.submit(() -> {
+                    List<Long> mine = new ArrayList<>();
+                    while (true) {
+                        List<OrderOutbox.Entry> batch = claim(3);
+                        if (batch.isEmpty() && count("SELECT COUNT(*) FROM order_outbox WHERE attempts = 0") == 0) return mine;
+                        mine.addAll(orderIds(batch));
+                    }
+                }));
+            }
+            List<Long> all = new ArrayList<>();
+            for (Future<List<Long>> f : relays) all.addAll(f.get(30, TimeUnit.SECONDS));
+            Set<Long> distinct = new HashSet<>(all);
+            assertEquals(all.size(), distinct.size(), "a row was claimed twice");
+            assertEquals(new HashSet<>(ids), distinct);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void relayedOrdersAreMailedMarkedAndRemoved() throws InterruptedException {
+        int before = devEmailService.getSent().size();
+        OrderDto placed = orderService.placeOrder("outbox-buyer", order(1));
+        append(List.of(-1L)); // an order that no longer exists is dropped
+
+        assertEquals(2, relay.relay());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count("SELECT COUNT(*) FROM order_outbox") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, count("SELECT COUNT(*) FROM order_outbox"));
+        assertEquals(before + 1, devEmailService.getSent().size());
+        assertTrue(jdbcTemplate.queryForObject("SELECT emailed FROM orders WHERE id = ?", Boolean.class, placed.getId()));
+        assertEquals(0, relay.relay());
+    }
+
+    @Test
+    void backoffDoublesWithJitter_upToTheCap() {
+        Duration base = Duration.ofSeconds(30);
+        Duration cap = Duration.ofHours(1);
+        assertEquals(Duration.ofSeconds(15), OrderOutboxRelay.backoff(1, base, cap, 0.0));
+        assertEquals(Duration.ofSeconds(30), OrderOutboxRelay.backoff(1, base, cap, 1.0));
+        assertEquals(Duration.ofSeconds(60), OrderOutboxRelay.backoff(3, base, cap, 0.0));
+        assertEquals(Duration.ofMinutes(45), OrderOutboxRelay.backoff(8, base, cap, 0.5));
+        assertEquals(Duration.ofMinutes(30), OrderOutboxRelay.backoff(500, base, cap, 0.0));
+    }
+
+    @Test
+    void failedSendsBackOff_andAreGivenUpAfterMaxAttempts() throws InterruptedException {
+        EmailDeliveryQueue queue = new EmailDeliveryQueue(1, 10, 0);
+        OrderOutboxRelay failing = new OrderOutboxRelay(outbox, orderRepository, o -> {
+            throw new IllegalStateException("smtp down");
+        }, emailAudit, queue, transactionManager, false, 10, 1000, 60, 2, 30, 60, 100, 20);
+        try {
+            OrderDto placed = orderService.placeOrder("outbox-buyer", order(1));
+
+            long before = System.currentTimeMillis();
+            assertEquals(1, failing.relay());
+            awaitCount("SELECT COUNT(*) FROM order_emails WHERE order_id = ?", placed.getId(), 1);
+            Timestamp next = jdbcTemplate.queryForObject("SELECT available_at FROM order_outbox", Timestamp.class);
+            // first retry waits 15-30 s, not the 60 s lease
+            long wait = next.getTime() - before;
+            assertTrue(wait >= 14_000 && wait <= 31_000, "retry in " + wait + " ms");
+            assertEquals(0, failing.relay());
+
+            jdbcTemplate.update("UPDATE order_outbox SET available_at = ?", Timestamp.valueOf("2000-01-01 00:00:00"));
+            assertEquals(1, failing.relay());
+            awaitCount("SELECT COUNT(*) FROM order_emails WHERE order_id = ?", placed.getId(), 2);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (count("SELECT COUNT(*) FROM order_outbox") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, count("SELECT COUNT(*) FROM order_outbox"));
+            assertFalse(jdbcTemplate.queryForObject("SELECT emailed FROM orders WHERE id = ?", Boolean.class, placed.getId()));
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    void backfillQueuesUnmailedOrdersOnce_withTheirRecordedAttempts() {
+        OrderDto placed = orderService.placeOrder("outbox-buyer", order(1));
+        jdbcTemplate.update("DELETE FROM order_outbox");
+        jdbcTemplate.update("INSERT INTO order_emails (order_id, success, provider, error_message, sent_at) VALUES (?, FALSE, 'smtp', 'down', ?)",
+                placed.getId(), Timestamp.from(Instant.now()));
+
+        outbox.backfill(1); // its one attempt already used up a max of 1
+        assertEquals(List.of(), jdbcTemplate.queryForList("SELECT attempts FROM order_outbox WHERE order_id = ?",
+                Integer.class, placed.getId()));
+        outbox.backfill(8);
+        outbox.backfill(8);
+        assertEquals(List.of(1), jdbcTemplate.queryForList("SELECT attempts FROM order_outbox WHERE order_id = ?",
+                Integer.class, placed.getId()));
+    }
+
+    private void awaitCount(String sql, Long arg, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jdbcTemplate.queryForObject(sql, Long.class, arg) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, (long) jdbcTemplate.queryForObject(sql, Long.class, arg));
+    }
+
+    private void append(List<Long> orderIds) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> outbox.append(orderIds));
+    }
+
+    private List<OrderOutbox.Entry> claim(int limit) {
+        return new TransactionTemplate(transactionManager).execute(s -> outbox.claim(limit, LEASE));
+    }
+
+    private static List<Long> orderIds(List<OrderOutbox.Entry> entries) {
+        return entries.stream().map(OrderOutbox.Entry::getOrderId).collect(Collectors.toList());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private CreateOrderRequest order(int quantity) {
+        OrderItemRequest it = new OrderItemRequest();
+        it.setBookId(bookId);
+        it.setQuantity(quantity);
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(List.of(it));
+        return req;
+    }
+}
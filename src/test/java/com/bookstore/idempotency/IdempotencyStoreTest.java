@@ -0,0 +1,117 @@
+package com.bookstore.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class IdempotencyStoreTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE username = 'idem-user'");
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce_andGetTheSameResponse() throws Exception {
+        IdempotencyStore store = store();
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<ResponseEntity<?>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return store.execute("idem-user", "k1", Map.of("book", 1), () -> slowly(created()));
+                }));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<?>> f : results) {
+                ResponseEntity<?> r = f.get();
+                assertEquals(HttpStatus.CREATED, r.getStatusCode());
+                assertTrue(String.valueOf(r.getBody()).contains("42"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void replaysFromTheTable_whenTheCacheMissed() {
+        store().execute("idem-user", "k2", Map.of("book", 1), this::created);
+        ResponseEntity<?> replay = store().execute("idem-user", "k2", Map.of("book", 1), this::created);
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        assertEquals("true", replay.getHeaders().getFirst(StoredResponse.REPLAYED_HEADER));
+        assertEquals("{\"id\":42}", replay.getBody());
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() {
+        IdempotencyStore store = store();
+        store.execute("idem-user", "k3", Map.of("book", 1), this::created);
+        ResponseEntity<?> other = store.execute("idem-user", "k3", Map.of("book", 2), this::created);
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, other.getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedAttemptGivesUpItsClaim() {
+        IdempotencyStore store = store();
+        ResponseEntity<?> failed = store.execute("idem-user", "k4", Map.of("book", 1), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("down");
+        });
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, failed.getStatusCode());
+        ResponseEntity<?> retried = store.execute("idem-user", "k4", Map.of("book", 1), this::created);
+        assertEquals(HttpStatus.CREATED, retried.getStatusCode());
+        assertEquals(2, runs.get());
+        assertEquals(400, store.execute("idem-user", " ", Map.of(), this::created).getStatusCodeValue());
+    }
+
+    private IdempotencyStore store() {
+        return new IdempotencyStore(jdbcTemplate, mapper, 1, 100, 5000, 10);
+    }
+
+    private ResponseEntity<?> created() {
+        runs.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", 42));
+    }
+
+    private static ResponseEntity<?> slowly(ResponseEntity<?> r) {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return r;
+    }
+}
@@ -0,0 +1,120 @@
+package com.bookstore.inventory;
+
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkout throughput on one hot ISBN: the conditional row-locking UPDATE of the default path against the
+ * sharded sequencer, at 1, 8 and 64 concurrent buyers. Each operation is the stock step of placeOrder in
+ * its own transaction. Not part of the regular build; run with {@code mvn -Dtest=CheckoutContentionIT test},
+ * ideally against MySQL since H2's row locking is not representative.
+ */
+@SpringBootTest(properties = {
+        "app.inventory.ledger.enabled=true",
+        "app.inventory.ledger.mode=sequencer"
+})
+@ActiveProfiles("test")
+public class CheckoutContentionIT {
+
+    private static final long RUN_MILLIS = 2000;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    InventoryLedger ledger;
+
+    @Autowired
+    StockJournalFlusher flusher;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate tx;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        Book b = new Book();
+        b.setTitle("Bestseller");
+        b.setAuthor("Author");
+        b.setIsbn("hot-isbn");
+        b.setPrice(new BigDecimal("10.00"));
+        b.setStock(100_000_000);
+        bookId = bookRepository.save(b).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        flusher.flush();
+        ledger.forget(bookId);
+        jdbcTemplate.update("DELETE FROM stock_journal WHERE book_id = ?", bookId);
+        bookRepository.deleteById(bookId);
+    }
+
+    @Test
+    void rowLockingVersusSequencer() throws Exception {
+        Map<Long, Integer> one = Map.of(bookId, 1);
+        System.out.println("buyers  row-lock ops/s  sequencer ops/s");
+        for (int buyers : new int[] { 1, 8, 64 }) {
+            double rowLock = run(buyers, () -> tx.execute(s -> bookRepository.reserveStock(one)).isEmpty());
+            double sequencer = run(buyers, () -> tx.execute(s -> ledger.reserve(one)).isEmpty());
+            System.out.printf("%6d  %15.0f  %15.0f%n", buyers, rowLock, sequencer);
+            assertTrue(rowLock > 0 && sequencer > 0);
+        }
+    }
+
+    private static double run(int buyers, Supplier<Boolean> checkout) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                long ops = 0;
+                while (!stop.get()) {
+                    assertTrue(checkout.get());
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        long total = 0;
+        for (Future<Long> f : futures) total += f.get(RUN_MILLIS * 10, TimeUnit.MILLISECONDS);
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+        return total / seconds;
+    }
+}
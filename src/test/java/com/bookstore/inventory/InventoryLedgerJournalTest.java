@@ -0,0 +1,135 @@
+package com.bookstore.inventory;
+
+import com.bookstore.dto.UpdateBookRequest;
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.service.BookService;
+import com.bookstore.service.InsufficientStockException;
+import com.bookstore.service.OrderService;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.inventory.ledger.enabled=true",
+        // flushed by hand below
+        "app.inventory.ledger.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+public class InventoryLedgerJournalTest {
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    StockJournalFlusher flusher;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private Long bookId;
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        fixture.buyer("ledger-buyer");
+        bookId = fixture.book("ledger-1", "Ledger", "10.00", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM stock_journal WHERE book_id = ?", bookId);
+        fixture.cleanUp();
+    }
+
+    @Test
+    void ordersAreJournaledThenWrittenThrough() {
+        orderService.placeOrder("ledger-buyer", order(2));
+        assertEquals(3, stock());
+        assertEquals(2, (int) jdbcTemplate.queryForObject(
+                "SELECT SUM(quantity) FROM stock_journal WHERE book_id = ?", Integer.class, bookId));
+
+        assertThrows(InsufficientStockException.class, () -> orderService.placeOrder("ledger-buyer", order(2)));
+
+        flusher.flush();
+        assertEquals(1, stock());
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_journal WHERE book_id = ?", Integer.class, bookId));
+    }
+
+    @Test
+    void leftoverJournalRowsAreReplayed() {
+        // as if the previous run died between an order's commit and the next flush
+        jdbcTemplate.update("INSERT INTO stock_journal (book_id, quantity, created_at) VALUES (?, 1, CURRENT_TIMESTAMP)", bookId);
+        flusher.flush();
+        assertEquals(2, stock());
+    }
+
+    @Test
+    void adminEditsLeaveTheJournaledStockAlone() {
+        orderService.placeOrder("ledger-buyer", order(1));
+        UpdateBookRequest req = new UpdateBookRequest();
+        req.setTitle("Ledger, 2nd ed.");
+        req.setAuthor("Author");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+            // the edit has read the book when a journal flush lands and bumps its version
+            bookRepository.findById(bookId).orElseThrow();
+            applyJournal(1);
+            bookService.update(bookId, req);
+        });
+
+        assertEquals("Ledger, 2nd ed.", bookRepository.findById(bookId).orElseThrow().getTitle());
+        assertEquals(2, stock());
+
+        req.setStock(5);
+        bookService.update(bookId, req);
+        flusher.flush();
+        assertEquals(5, stock());
+    }
+
+    // what StockJournalFlusher does for the order above, minus the index refresh
+    private void applyJournal(int qty) {
+        jdbcTemplate.update("DELETE FROM stock_journal WHERE book_id = ?", bookId);
+        jdbcTemplate.update("UPDATE books SET stock = stock - ?, version = COALESCE(version, 0) + 1 WHERE id = ?", qty, bookId);
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private CreateOrderRequest order(int qty) {
+        OrderItemRequest it = new OrderItemRequest();
+        it.setBookId(bookId);
+        it.setQuantity(qty);
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(List.of(it));
+        return req;
+    }
+}
@@ -0,0 +1,203 @@
+package com.bookstore.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryLedgerTest {
+
+    private MemoryJournal journal;
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        journal = new MemoryJournal();
+        journal.stock.put(1L, 10);
+        journal.stock.put(2L, 3);
+        ledger = new InventoryLedger(journal, true, 4);
+    }
+
+    @Test
+    void reservationsAreAllOrNothing() {
+        assertEquals(List.of(2L), ledger.reserve(order(1L, 2, 2L, 4)));
+        assertEquals(10, (int) ledger.available(1L));
+        assertEquals(List.of(), ledger.reserve(order(1L, 2, 2L, 3)));
+        assertEquals(8, (int) ledger.available(1L));
+        assertEquals(0, (int) ledger.available(2L));
+        assertEquals(Map.of(1L, 2, 2L, 3), journal.pending);
+        assertEquals(List.of(99L), ledger.reserve(order(99L, 1)));
+    }
+
+    @Test
+    void stockEditsAreJournaledAsDeltas() {
+        ledger.reserve(order(1L, 4));
+        assertTrue(ledger.setStock(1L, 2));
+        assertEquals(2, (int) ledger.available(1L));
+        assertTrue(ledger.setStock(1L, 7));
+        assertEquals(7, (int) ledger.available(1L));
+        // books.stock 10 minus the journal ends up where the admin put it
+        assertEquals(7, 10 - journal.pending.get(1L));
+        assertFalse(ledger.setStock(99L, 1));
+    }
+
+    @Test
+    void contendedBuyersNeverOversell() throws Exception {
+        contend(ledger);
+    }
+
+    @Test
+    void sequencerShardsNeverOversell() throws Exception {
+        // two shards: books 1 and 2 land on different ones, so the two-book orders are coordinated
+        InventoryLedger sequenced = new InventoryLedger(journal, true, "sequencer", 1, 2, 64);
+        try {
+            contend(sequenced);
+            assertEquals(List.of(1L), sequenced.reserve(order(1L, 1, 2L, 1)));
+        } finally {
+            sequenced.close();
+        }
+    }
+
+    @Test
+    void stockEditsRacingDropsReloadTheCounter() throws Exception {
+        InventoryLedger sequenced = new InventoryLedger(journal, true, "sequencer", 1, 2, 64);
+        try {
+            for (InventoryLedger l : List.of(ledger, sequenced)) {
+                ExecutorService pool = Executors.newFixedThreadPool(4);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    boolean dropper = t % 2 == 0;
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < 20000; i++) {
+                            if (dropper) {
+                                l.forget(1L);
+                            } else {
+                                assertTrue(l.setStock(1L, 5 + i % 2));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+                pool.shutdown();
+
+                assertTrue(l.setStock(1L, 4));
+                assertEquals(4, (int) l.available(1L));
+                assertEquals(List.of(), l.reserve(order(1L, 4)));
+            }
+        } finally {
+            sequenced.close();
+        }
+    }
+
+    @Test
+    void aReleaseIsCountedOnceWhenTheCounterLoadsBeforeItsCallback() {
+        List<TransactionSynchronization> release = inTransaction(() -> ledger.release(order(1L, 2)));
+        // the release has committed, its callback not yet run: a checkout gets in between
+        assertEquals(List.of(), ledger.reserve(order(1L, 1)));
+        complete(release, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(11, (int) ledger.available(1L));
+        assertEquals(11, 10 - journal.pending.get(1L));
+    }
+
+    @Test
+    void anUnknownOutcomeReloadsOnlyOnceNothingElseIsInFlight() {
+        List<TransactionSynchronization> first = inTransaction(() -> ledger.reserve(order(1L, 3)));
+        List<TransactionSynchronization> second = inTransaction(() -> ledger.reserve(order(1L, 2)));
+        complete(first, TransactionSynchronization.STATUS_UNKNOWN);
+        // a reload now would miss the second reservation, which has not committed yet
+        assertEquals(5, (int) ledger.available(1L));
+
+        complete(second, TransactionSynchronization.STATUS_COMMITTED);
+        assertNull(ledger.available(1L));
+        assertEquals(List.of(), ledger.reserve(order(1L, 5)));
+        assertEquals(List.of(1L), ledger.reserve(order(1L, 1)));
+    }
+
+    private void contend(InventoryLedger ledger) throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    if (ledger.reserve(order(1L, 1, 2L, 1)).isEmpty()) sold.incrementAndGet();
+                    if (ledger.reserve(order(1L, 1)).isEmpty()) sold.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(10, sold.get());
+        assertEquals(0, (int) ledger.available(1L));
+        assertTrue(ledger.available(2L) >= 0);
+        assertEquals(10, (int) journal.pending.get(1L));
+    }
+
+    // the work's synchronizations, for the test to complete once it has done what happens in between
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(List<TransactionSynchronization> tx, int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) tx.forEach(TransactionSynchronization::afterCommit);
+        tx.forEach(s -> s.afterCompletion(status));
+    }
+
+    private static Map<Long, Integer> order(Object... idsAndQuantities) {
+        Map<Long, Integer> m = new TreeMap<>();
+        for (int i = 0; i < idsAndQuantities.length; i += 2) {
+            m.put((Long) idsAndQuantities[i], (Integer) idsAndQuantities[i + 1]);
+        }
+        return m;
+    }
+
+    /** Journal without a database: books.stock in one map, unflushed rows summed per book in another. */
+    private static class MemoryJournal extends StockJournal {
+        final Map<Long, Integer> stock = new HashMap<>();
+        final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+
+        MemoryJournal() {
+            super(null);
+        }
+
+        @Override
+        public void append(Map<Long, Integer> quantities) {
+            quantities.forEach((id, qty) -> pending.merge(id, qty, Integer::sum));
+        }
+
+        @Override
+        public Integer available(Long bookId) {
+            Integer s = stock.get(bookId);
+            return s == null ? null : s - pending.getOrDefault(bookId, 0);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.bookstore.inventory;
+
+import com.bookstore.dto.hold.HoldDto;
+import com.bookstore.dto.hold.HoldRequest;
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.service.InsufficientStockException;
+import com.bookstore.service.OrderService;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the tests drive expiry themselves; keep the background overdue scan out of their way
+@SpringBootTest(properties = "app.holds.overdue-scan-seconds=3600")
+@ActiveProfiles("test")
+public class StockHoldServiceTest {
+
+    @Autowired
+    StockHoldService holdService;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Long bookId;
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        user = fixture.buyer("hold-buyer");
+        bookId = fixture.book("held-1", "Held", "10.00", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM stock_holds WHERE user_id = ?", user.getId());
+        fixture.cleanUp();
+    }
+
+    @Test
+    void holdsTakeStock_andCheckoutUsesThem() {
+        holdService.place("hold-buyer", hold(3));
+        assertEquals(2, stock());
+        assertThrows(InsufficientStockException.class, () -> holdService.place("hold-buyer", hold(3)));
+
+        // 3 held, 4 bought: one more copy comes from stock
+        orderService.placeOrder("hold-buyer", order(4));
+        assertEquals(1, stock());
+        assertEquals(List.of(), holdService.list("hold-buyer"));
+    }
+
+    @Test
+    void heldCopiesBeyondTheOrderGoBack() {
+        holdService.place("hold-buyer", hold(3));
+        orderService.placeOrder("hold-buyer", order(1));
+        assertEquals(4, stock());
+    }
+
+    @Test
+    void releasedAndExpiredHoldsReturnTheirStock() {
+        HoldDto first = holdService.place("hold-buyer", hold(2));
+        holdService.place("hold-buyer", hold(1));
+        assertEquals(2, stock());
+
+        assertTrue(holdService.release("hold-buyer", first.getId()));
+        assertFalse(holdService.release("hold-buyer", first.getId()));
+        assertEquals(4, stock());
+
+        // the wheel releases what is due by then; settling the same hold again finds no row
+        assertEquals(1, holdService.expireDue(System.currentTimeMillis() + 16 * 60_000L));
+        assertEquals(5, stock());
+        assertEquals(0, holdService.expireOverdue());
+    }
+
+    @Test
+    void overdueScanCatchesHoldsTheWheelNeverSaw() {
+        holdService.place("hold-buyer", hold(2));
+        jdbcTemplate.update("UPDATE stock_holds SET expires_at = ? WHERE user_id = ?",
+                Timestamp.from(Instant.now().minusSeconds(1)), user.getId());
+        assertEquals(1, holdService.expireOverdue());
+        assertEquals(5, stock());
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private HoldRequest hold(int qty) {
+        HoldRequest req = new HoldRequest();
+        req.setBookId(bookId);
+        req.setQuantity(qty);
+        return req;
+    }
+
+    private CreateOrderRequest order(int qty) {
+        OrderItemRequest it = new OrderItemRequest();
+        it.setBookId(bookId);
+        it.setQuantity(qty);
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(List.of(it));
+        return req;
+    }
+}
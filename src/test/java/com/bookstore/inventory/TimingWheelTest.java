@@ -0,0 +1,55 @@
+package com.bookstore.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    void everyTimerFiresOnTheAdvanceThatReachesItsTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 3, 0);
+        Random rnd = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            // up to 300k ticks: beyond 3 levels of 64 slots, so some timers park and cascade again
+            long due = 1 + (long) (rnd.nextDouble() * rnd.nextDouble() * 3_000_000L);
+            wheel.schedule(due, due);
+        }
+        int[] fired = new int[1];
+        long now = 0;
+        while (wheel.size() > 0) {
+            long previousTick = now / 10;
+            now += 1 + rnd.nextInt(5000);
+            long tick = now / 10;
+            wheel.advance(now, due -> {
+                long dueTick = (due + 9) / 10;
+                assertTrue(dueTick <= tick, "early: " + due + " at tick " + tick);
+                assertTrue(dueTick > previousTick, "late: " + due + " at tick " + tick);
+                fired[0]++;
+            });
+        }
+        assertEquals(5000, fired[0]);
+    }
+
+    @Test
+    void aMillionPendingTimersCostOnlyWhatComesDue() {
+        long start = 15 * 60_000L;
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 4, start);
+        Random rnd = new Random(1);
+        for (int i = 0; i < 1_000_000; i++) wheel.schedule(start + 60_000 + rnd.nextInt(15 * 60_000), i);
+
+        int[] fired = new int[1];
+        long began = System.nanoTime();
+        // one advance per second for the first minute: nothing is due yet
+        for (long t = start; t < start + 60_000; t += 1000) wheel.advance(t, i -> fired[0]++);
+        long idleNanos = System.nanoTime() - began;
+        assertEquals(0, fired[0]);
+        assertTrue(idleNanos < 1_000_000_000L, "idle ticks took " + idleNanos / 1_000_000 + " ms");
+
+        wheel.advance(start + 16 * 60_000, i -> fired[0]++);
+        assertEquals(1_000_000, fired[0]);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,112 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.BookSummary;
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class BookSearchRepositoryTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        book("Qzx 100% Pure", "Ann Qzx", "9.00");
+        book("Qzx 100 Pure", "Bob Qzx", "12.00");
+        book("Qzx under_score", "Cid Qzx", "7.00");
+        book("Qzx underXscore", "Dee Qzx", "15.00");
+        book("Qzx bang!", "Eve Qzx", "11.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllById(ids);
+    }
+
+    @Test
+    void likeWildcardsInTheQueryAreMatchedLiterally() {
+        assertEquals(List.of("Qzx 100% Pure"), titles(bookRepository.search("100%", null, null, false, PageRequest.of(0, 10))));
+        assertEquals(List.of("Qzx under_score"), titles(bookRepository.search("under_", null, null, false, PageRequest.of(0, 10))));
+        assertEquals(List.of("Qzx bang!"), titles(bookRepository.search("bang!", null, null, false, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void criteriaAreCaseInsensitiveAndCombined() {
+        Page<BookSummary> page = bookRepository.search("QZX", null, "bob", false, PageRequest.of(0, 10));
+        assertEquals(List.of("Qzx 100 Pure"), titles(page));
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void totalCountsEveryMatch_whileOnlyThePageIsFetched() {
+        Page<BookSummary> first = bookRepository.search("qzx", null, null, false, PageRequest.of(0, 2, Sort.by("title")));
+        assertEquals(5, first.getTotalElements());
+        assertEquals(List.of("Qzx 100 Pure", "Qzx 100% Pure"), titles(first));
+
+        Page<BookSummary> last = bookRepository.search("qzx", null, null, false, PageRequest.of(2, 2, Sort.by("title")));
+        assertEquals(List.of("Qzx under_score"), titles(last));
+
+        Page<BookSummary> beyond = bookRepository.search("qzx", null, null, false, PageRequest.of(9, 2));
+        assertTrue(beyond.getContent().isEmpty());
+        assertEquals(5, beyond.getTotalElements());
+    }
+
+    @Test
+    void sortUsesWhitelistedColumns_andIgnoresOthers() {
+        Page<BookSummary> byPrice = bookRepository.search("qzx", null, null, false,
+                PageRequest.of(0, 10, Sort.by(Sort.Order.desc("price"))));
+        assertEquals(List.of("15.00", "12.00", "11.00", "9.00", "7.00"),
+                byPrice.getContent().stream().map(b -> b.getPrice().toPlainString()).collect(Collectors.toList()));
+
+        // not a column name: falls back to the id tiebreaker instead of reaching the SQL
+        Page<BookSummary> bogus = bookRepository.search("qzx", null, null, false,
+                PageRequest.of(0, 10, Sort.by("title; DROP TABLE books")));
+        assertEquals(ids, bogus.getContent().stream().map(BookSummary::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void booleanModeTermsRequireEveryWordAsAPrefix() {
+        assertEquals("+clean* +cod*", BookSearchRepositoryImpl.booleanModeTerms("clean cod"));
+        assertEquals("+java*", BookSearchRepositoryImpl.booleanModeTerms("  java, "));
+    }
+
+    @Test
+    void booleanModeTermsFallBackToLike_whenAnyWordIsTooShort() {
+        assertNull(BookSearchRepositoryImpl.booleanModeTerms("c primer"));
+        assertNull(BookSearchRepositoryImpl.booleanModeTerms("go"));
+        assertNull(BookSearchRepositoryImpl.booleanModeTerms("--"));
+    }
+
+    private void book(String title, String author, String price) {
+        Book b = new Book();
+        b.setTitle(title);
+        b.setAuthor(author);
+        b.setIsbn("search-repo-" + ids.size());
+        b.setPrice(new BigDecimal(price));
+        b.setStock(1);
+        ids.add(bookRepository.save(b).getId());
+    }
+
+    private static List<String> titles(Page<BookSummary> page) {
+        return page.getContent().stream().map(BookSummary::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookFacetIndexTest {
+
+    private BookFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFacetIndex("10,25,50", 20);
+        index.put(book(1L, "Joshua Bloch", "45.00", 3));
+        index.put(book(2L, "Robert C. Martin", "37.50", 0));
+        index.put(book(3L, "Erich Gamma", "54.99", 2));
+        index.put(book(4L, "Joshua Bloch", "9.99", 5));
+        index.put(book(5L, "Brian Goetz", "24.00", 0));
+        index.loaded();
+    }
+
+    @Test
+    void filtersAreIntersected_andPagesComeInIdOrder() {
+        FacetedHits hits = index.search(new FacetFilter(null, List.of("25-50", "50+"), true), null, 0, 10);
+        assertArrayEquals(new long[] { 1L, 3L }, hits.getPage());
+        assertEquals(2, hits.getTotal());
+
+        hits = index.search(new FacetFilter(List.of("joshua bloch"), null, null), null, 1, 10);
+        assertArrayEquals(new long[] { 4L }, hits.getPage());
+        assertEquals(2, hits.getTotal());
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnSelection() {
+        FacetedHits hits = index.search(new FacetFilter(List.of("Joshua Bloch"), null, true), null, 0, 10);
+        Map<String, Long> authors = counts(hits, BookFacetIndex.AUTHOR);
+        assertEquals(Map.of("Joshua Bloch", 2L, "Erich Gamma", 1L), authors);
+        assertEquals(Map.of("0-10", 1L, "25-50", 1L), counts(hits, BookFacetIndex.PRICE));
+        assertEquals(Map.of("true", 2L), counts(hits, BookFacetIndex.IN_STOCK));
+        assertEquals("Joshua Bloch", hits.getFacets().get(BookFacetIndex.AUTHOR).get(0).getValue());
+    }
+
+    @Test
+    void candidatesRestrictTheBase() {
+        FacetedHits hits = index.search(new FacetFilter(null, null, false), new long[] { 1L, 2L, 99L }, 0, 10);
+        assertArrayEquals(new long[] { 2L }, hits.getPage());
+        assertEquals(Map.of("true", 1L, "false", 1L), counts(hits, BookFacetIndex.IN_STOCK));
+    }
+
+    @Test
+    void updatesMoveBooksBetweenValues() {
+        index.put(book(2L, "Robert C. Martin", "37.50", 7));
+        index.remove(4L);
+        FacetedHits hits = index.search(new FacetFilter(null, null, true), null, 0, 10);
+        assertArrayEquals(new long[] { 1L, 2L, 3L }, hits.getPage());
+        assertFalse(counts(hits, BookFacetIndex.PRICE).containsKey("0-10"));
+    }
+
+    @Test
+    void retainKeepsTheCandidateOrder() {
+        long[] ranked = { 5L, 3L, 99L, 1L, 4L };
+        assertArrayEquals(new long[] { 3L, 1L, 4L }, index.retain(new FacetFilter(null, null, true), ranked));
+        assertArrayEquals(new long[] { 1L, 4L }, index.retain(new FacetFilter(List.of("Joshua Bloch"), null, true), ranked));
+        assertSame(ranked, index.retain(new FacetFilter(null, null, null), ranked));
+        assertThrows(IllegalArgumentException.class, () -> index.retain(new FacetFilter(null, List.of("cheap"), null), ranked));
+    }
+
+    @Test
+    void unknownPriceBandIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.search(new FacetFilter(null, List.of("cheap"), null), null, 0, 10));
+    }
+
+    private static Map<String, Long> counts(FacetedHits hits, String facet) {
+        return hits.getFacets().get(facet).stream()
+                .collect(Collectors.toMap(FacetCount::getValue, FacetCount::getCount));
+    }
+
+    private static Book book(Long id, String author, String price, int stock) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle("Book " + id);
+        b.setAuthor(author);
+        b.setPrice(new BigDecimal(price));
+        b.setStock(stock);
+        return b;
+    }
+}
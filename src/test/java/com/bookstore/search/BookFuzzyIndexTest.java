@@ -0,0 +1,69 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookFuzzyIndexTest {
+
+    private BookFuzzyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFuzzyIndex();
+        index.put(book(1L, "Effective Java", "Joshua Bloch"));
+        index.put(book(2L, "Clean Code", "Robert C. Martin"));
+        index.put(book(3L, "Design Patterns", "Erich Gamma et al."));
+        index.put(book(4L, "Java Concurrency in Practice", "Brian Goetz"));
+        index.loaded();
+    }
+
+    @Test
+    void misspelledWords_matchWithinEditDistance() {
+        assertEquals(List.of(1L), index.search("Blosh", null, null));
+        assertEquals(List.of(3L), index.search(null, null, "Gama"));
+        assertEquals(List.of(1L), index.search("efective jva", null, null));
+        assertEquals(List.of(3L), index.search("desing paterns", null, null));
+        assertEquals(List.of(4L), index.search("concurency", null, null));
+    }
+
+    @Test
+    void shortWordsWithTheirFirstLettersSwapped_stillMatch() {
+        index.put(book(5L, "The Pragmatic Programmer", "Andrew Hunt and David Thomas"));
+        // no padded trigram in common with "the" / "and"
+        assertEquals(List.of(5L), index.search("hte", null, null));
+        assertEquals(List.of(5L), index.search(null, null, "nad"));
+    }
+
+    @Test
+    void fieldCriteria_onlyLookAtThatField() {
+        assertEquals(List.of(), index.search(null, "bloch", null));
+        assertEquals(List.of(1L), index.search(null, "java", "bloch"));
+    }
+
+    @Test
+    void boundedEditDistance() {
+        assertEquals(1, BookFuzzyIndex.boundedLevenshtein("blosh", "bloch", 1));
+        assertEquals(1, BookFuzzyIndex.boundedLevenshtein("desing", "design", 1));
+        assertEquals(2, BookFuzzyIndex.boundedLevenshtein("kitten", "sitting", 1));
+    }
+
+    @Test
+    void removedBooks_areNoLongerFound() {
+        index.remove(1L);
+        assertEquals(List.of(), index.search("Blosh", null, null));
+        assertEquals(List.of(4L), index.search("java", null, null));
+    }
+
+    private static Book book(Long id, String title, String author) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor(author);
+        return b;
+    }
+}
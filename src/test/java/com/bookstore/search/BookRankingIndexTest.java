@@ -0,0 +1,97 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookRankingIndexTest {
+
+    private BookRankingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookRankingIndex(3.0, 2.0, 1.0);
+        index.put(book(1L, "Programming Pearls", "Jon Bentley", "Essays on java and c performance"));
+        index.put(book(2L, "Effective Java", "Joshua Bloch", "Best practices for Java"));
+        index.put(book(3L, "Java Concurrency in Practice", "Brian Goetz", "Threads, locks and the java memory model"));
+        index.put(book(4L, "Clean Code", "Robert C. Martin", "A Handbook of Agile Software Craftsmanship"));
+        index.loaded();
+    }
+
+    private static final long[] ALL = { 1L, 2L, 3L, 4L };
+
+    @Test
+    void titleMatchesOutrankDescriptionMatches() {
+        RankedHits hits = index.rank("java", ALL, 0, 10);
+        assertEquals(4, hits.getTotal());
+        assertEquals(List.of(2L, 3L, 1L, 4L), ids(hits));
+        assertTrue(hits.getPage().get(0).getScore() > hits.getPage().get(2).getScore());
+        assertTrue(hits.getPage().get(2).getScore() > 0.0);
+    }
+
+    @Test
+    void pagesAreSlicesOfTheSameRanking() {
+        assertEquals(List.of(2L), ids(index.rank("java", ALL, 0, 1)));
+        assertEquals(List.of(3L, 1L, 4L), ids(index.rank("java", ALL, 1, 5)));
+        assertEquals(List.of(), ids(index.rank("java", ALL, 4, 5)));
+        assertEquals(4, index.rank("java", ALL, 4, 5).getTotal());
+    }
+
+    @Test
+    void candidatesAndRemovalNarrowTheRanking() {
+        assertEquals(List.of(3L, 1L), ids(index.rank("java", new long[] { 1L, 3L }, 0, 10)));
+        index.remove(3L);
+        RankedHits hits = index.rank("java", new long[] { 1L, 2L, 3L }, 0, 10);
+        assertEquals(List.of(2L, 1L, 3L), ids(hits));
+        assertEquals(0.0, hits.getPage().get(2).getScore());
+        // nothing scores: candidates keep table order
+        RankedHits none = index.rank("nothing", ALL, 0, 10);
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(none));
+        assertTrue(none.getPage().stream().allMatch(h -> h.getScore() == 0.0));
+    }
+
+    @Test
+    void theLastWordAlsoMatchesAsAPrefix() {
+        assertEquals(List.of(2L, 3L, 1L), ids(index.rank("jav", new long[] { 1L, 2L, 3L }, 0, 10)));
+        assertEquals(4L, top(index.rank("clean cod", ALL, 0, 10)).getBookId());
+        assertTrue(top(index.rank("clean cod", ALL, 0, 10)).getScore() > 0.0);
+        assertEquals(4L, top(index.rank("cle", ALL, 0, 10)).getBookId());
+        assertTrue(top(index.rank("cle", ALL, 0, 10)).getScore() > 0.0);
+        // only the last word is a prefix: "cle" scores nothing here
+        assertTrue(top(index.rank("cle code", ALL, 0, 10)).getScore()
+                < top(index.rank("clean code", ALL, 0, 10)).getScore());
+    }
+
+    @Test
+    void rankOrdersExactlyTheCandidates() {
+        RankedHits hits = index.rank("java", new long[] { 1L, 2L, 4L }, 0, 10);
+        assertEquals(3, hits.getTotal());
+        assertEquals(List.of(2L, 1L, 4L), ids(hits));
+        assertEquals(0.0, hits.getPage().get(2).getScore());
+
+        assertEquals(List.of(1L, 4L), ids(index.rank("java", new long[] { 1L, 2L, 4L }, 1, 5)));
+        assertEquals(0, index.rank("java", new long[0], 0, 10).getTotal());
+    }
+
+    private static ScoredId top(RankedHits hits) {
+        return hits.getPage().get(0);
+    }
+
+    private static List<Long> ids(RankedHits hits) {
+        return hits.getPage().stream().map(ScoredId::getBookId).collect(Collectors.toList());
+    }
+
+    private static Book book(Long id, String title, String author, String description) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor(author);
+        b.setDescription(description);
+        return b;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSuggestIndexTest {
+
+    private BookSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSuggestIndex(null, 3);
+        index.put(book(1L, "Effective Java", "Joshua Bloch", "978-0134685991"));
+        index.put(book(2L, "Clean Code", "Robert C. Martin", "9780132350884"));
+        index.put(book(3L, "Design Patterns", "Erich Gamma", "978-0201633610"));
+        index.put(book(4L, "Java Concurrency in Practice", "Brian Goetz", "978-0321349606"));
+        index.loaded();
+    }
+
+    @Test
+    void completesTitlesAuthorsAndIsbns_fromAnyWord() {
+        assertEquals(List.of("Effective Java", "Java Concurrency in Practice"), texts("JA"));
+        assertEquals(List.of("Joshua Bloch"), texts("bloc"));
+        assertEquals(List.of("9780132350884", "978-0134685991"), texts("978-01"));
+        assertEquals(List.of(), texts("xyz"));
+        assertEquals(List.of(), texts(" "));
+    }
+
+    @Test
+    void popularEntriesComeFirst_andLimitIsCapped() {
+        index.sold(4L, 5);
+        List<Suggestion> hits = index.suggest("java", 10);
+        assertEquals("Java Concurrency in Practice", hits.get(0).getText());
+        assertEquals(5, hits.get(0).getPopularity());
+        assertEquals(4L, (long) hits.get(0).getBookId());
+        assertEquals(3, index.suggest("978", 10).size());
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        index.put(book(3L, "Patterns of Enterprise Architecture", "Martin Fowler", "978-0321127426"));
+        assertEquals(List.of(), texts("design"));
+        assertEquals(List.of("Patterns of Enterprise Architecture"), texts("enterp"));
+
+        index.remove(1L);
+        assertEquals(List.of("Java Concurrency in Practice"), texts("java"));
+    }
+
+    @Test
+    void sharedTextIsOneEntry() {
+        index.put(book(5L, "Effective Java", "Joshua Bloch", "978-0321356680"));
+        List<Suggestion> hits = index.suggest("effective", 10);
+        assertEquals(1, hits.size());
+        assertNull(hits.get(0).getBookId());
+    }
+
+    private List<String> texts(String prefix) {
+        return index.suggest(prefix, 10).stream().map(Suggestion::getText).collect(Collectors.toList());
+    }
+
+    private static Book book(Long id, String title, String author, String isbn) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor(author);
+        b.setIsbn(isbn);
+        return b;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookTextIndexTest {
+
+    private BookTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookTextIndex();
+        index.put(book(1L, "Effective Java", "Joshua Bloch"));
+        index.put(book(2L, "Clean Code", "Robert C. Martin"));
+        index.put(book(3L, "Design Patterns", "Erich Gamma et al."));
+        index.put(book(4L, "Java Concurrency in Practice", "Brian Goetz"));
+        index.loaded();
+    }
+
+    @Test
+    void q_matchesTitleOrAuthorSubstring_caseInsensitive() {
+        assertEquals(List.of(1L, 4L), index.search("JAVA", null, null));
+        assertEquals(List.of(2L), index.search("code", null, null));
+        assertEquals(List.of(3L), index.search("gamm", null, null));
+    }
+
+    @Test
+    void shortNeedles_matchAnywhereIncludingEndOfValue() {
+        assertEquals(List.of(1L, 4L), index.search("va", null, null));
+        assertEquals(List.of(2L, 4L), index.search(null, "e", "n"));
+        assertEquals(List.of(2L, 3L), index.search(null, null, "."));
+    }
+
+    @Test
+    void criteriaAreCombined() {
+        assertEquals(List.of(4L), index.search("java", null, "goetz"));
+        assertEquals(List.of(), index.search("java", "clean", null));
+    }
+
+    @Test
+    void updatesAndRemovesAreReflected() {
+        index.put(book(2L, "Clean Architecture", "Robert C. Martin"));
+        assertEquals(List.of(), index.search(null, "code", null));
+        assertEquals(List.of(2L), index.search(null, "architecture", null));
+
+        index.remove(1L);
+        assertEquals(List.of(4L), index.search("java", null, null));
+        assertEquals(3, index.size());
+    }
+
+    private static Book book(Long id, String title, String author) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor(author);
+        return b;
+    }
+}
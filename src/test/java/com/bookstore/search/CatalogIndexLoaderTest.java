@@ -0,0 +1,68 @@
+package com.bookstore.search;
+
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class CatalogIndexLoaderTest {
+
+    private BookRepository repo;
+    private BookTextIndex textIndex;
+    private CatalogIndexes indexes;
+    private CatalogIndexLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        repo = Mockito.mock(BookRepository.class);
+        textIndex = new BookTextIndex();
+        indexes = new CatalogIndexes(List.of(textIndex), new CatalogStamp());
+        loader = new CatalogIndexLoader(repo, indexes);
+    }
+
+    @Test
+    void commitsDuringTheWalkWinOverTheRowsItRead() {
+        Book renamed = book(1L, "Effective Java 3rd Edition");
+        // the batch was read before these commits landed
+        when(repo.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            indexes.bookSaved(renamed);
+            indexes.bookRemoved(2L);
+            return List.of(book(1L, "Effective Java"), book(2L, "Clean Code"));
+        });
+        when(repo.findAllById(any())).thenReturn(List.of(renamed));
+
+        loader.load();
+
+        assertEquals(List.of(1L), textIndex.search("edition", null, null));
+        assertEquals(List.of(), textIndex.search("clean", null, null));
+        assertTrue(textIndex.isReady());
+    }
+
+    @Test
+    void afterTheLoadChangesApplyDirectly() {
+        when(repo.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        loader.load();
+
+        indexes.bookSaved(book(3L, "Design Patterns"));
+
+        assertEquals(List.of(3L), textIndex.search("patterns", null, null));
+        verify(repo, never()).findAllById(any());
+    }
+
+    private static Book book(Long id, String title) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor("Someone");
+        return b;
+    }
+}
@@ -0,0 +1,34 @@
+package com.bookstore.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogStampTest {
+
+    @Test
+    void etagDependsOnParamsNotTheirOrder() {
+        CatalogStamp stamp = new CatalogStamp();
+        Map<String, String[]> a = new LinkedHashMap<>();
+        a.put("page", new String[] { "1" });
+        a.put("q", new String[] { "java" });
+        Map<String, String[]> b = new LinkedHashMap<>();
+        b.put("q", new String[] { "java" });
+        b.put("page", new String[] { "1" });
+        assertEquals(stamp.etag(a), stamp.etag(b));
+        assertNotEquals(stamp.etag(a), stamp.etag(Map.of("q", new String[] { "java" })));
+    }
+
+    @Test
+    void everyCommittedChangeMovesTheStamp() {
+        CatalogStamp stamp = new CatalogStamp();
+        CatalogIndexes indexes = new CatalogIndexes(java.util.List.of(), stamp);
+        String before = stamp.etag(Map.of());
+        indexes.bookRemoved(1L);
+        assertNotEquals(before, stamp.etag(Map.of()));
+        assertTrue(stamp.lastModified() > 0);
+    }
+}
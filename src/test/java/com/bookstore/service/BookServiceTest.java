@@ -1,19 +1,38 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.BookCache;
+import com.bookstore.inventory.InventoryLedger;
+import com.bookstore.dto.BookSummary;
 import com.bookstore.dto.CreateBookRequest;
 import com.bookstore.dto.UpdateBookRequest;
 import com.bookstore.model.Book;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookFuzzyIndex;
+import com.bookstore.search.BookRankingIndex;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.search.BookTextIndex;
+import com.bookstore.search.CatalogIndex;
+import com.bookstore.search.CatalogIndexes;
+import com.bookstore.search.CatalogStamp;
+import com.bookstore.search.FacetFilter;
+import com.bookstore.search.SearchHit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,20 +42,27 @@ public class BookServiceTest {
 
     private BookRepository repo;
     private BookService service;
+    private final BookTextIndex textIndex = new BookTextIndex();
+    private final BookRankingIndex rankingIndex = new BookRankingIndex(3.0, 2.0, 1.0);
+    private final BookFuzzyIndex fuzzyIndex = new BookFuzzyIndex();
+    private final BookFacetIndex facetIndex = new BookFacetIndex("10,25,50,100", 20);
 
     @BeforeEach
     void setUp() {
         repo = Mockito.mock(BookRepository.class);
-        service = new BookService(repo);
+        service = new BookService(repo, textIndex, rankingIndex, fuzzyIndex, new BookSuggestIndex(null, 10), facetIndex,
+                new BookCache(1 << 20, 1 << 20), new InventoryLedger(null, false, 1),
+                new CatalogIndexes(List.of(), new CatalogStamp()));
     }
 
     @Test
     void list_delegatesToRepository() {
-        when(repo.findAll(any(org.springframework.data.domain.Pageable.class)))
-                .thenReturn(new PageImpl<Book>(List.of()));
+        when(repo.findSummaries(any(org.springframework.data.domain.Pageable.class)))
+                .thenReturn(new PageImpl<BookSummary>(List.of()));
         var page = service.list(PageRequest.of(0, 10));
         assertNotNull(page);
-        verify(repo).findAll(any(org.springframework.data.domain.Pageable.class));
+        verify(repo).findSummaries(any(org.springframework.data.domain.Pageable.class));
+        verify(repo, never()).findAll(any(org.springframework.data.domain.Pageable.class));
     }
 
     @Test
@@ -85,6 +111,33 @@ public class BookServiceTest {
         verify(repo).findById(2L);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void rankedAndFuzzySearches_applyFacetFilters() {
+        Map<Long, Book> books = new HashMap<>();
+        books.put(1L, book(1L, "Java Basics", 0));
+        books.put(2L, book(2L, "Java Advanced", 4));
+        books.put(3L, book(3L, "Java in Depth, Java Edition", 0));
+        for (CatalogIndex index : List.of(textIndex, rankingIndex, fuzzyIndex, facetIndex)) {
+            books.values().forEach(index::put);
+            index.loaded();
+        }
+        when(repo.findSummariesByIdIn(any())).thenAnswer(inv -> ((Collection<Long>) inv.getArgument(0)).stream()
+                .map(id -> BookSummary.of(books.get(id))).collect(Collectors.toList()));
+        FacetFilter inStock = new FacetFilter(null, null, true);
+
+        Page<SearchHit> ranked = service.searchRanked("java", null, null, inStock, PageRequest.of(0, 10));
+        assertEquals(1, ranked.getTotalElements());
+        assertEquals(2L, ranked.getContent().get(0).getBook().getId());
+
+        Page<BookSummary> fuzzy = service.searchFuzzy("jsva", null, null, inStock, PageRequest.of(0, 10));
+        assertEquals(1, fuzzy.getTotalElements());
+        assertEquals(2L, fuzzy.getContent().get(0).getId());
+
+        Page<SearchHit> soldOut = service.searchRanked("java", null, null, new FacetFilter(null, null, false), PageRequest.of(0, 10));
+        assertEquals(Set.of(1L, 3L), soldOut.getContent().stream().map(h -> h.getBook().getId()).collect(Collectors.toSet()));
+    }
+
     @Test
     void delete_nonexistent_returnsFalse() {
         when(repo.existsById(99L)).thenReturn(false);
@@ -93,4 +146,13 @@ public class BookServiceTest {
         verify(repo, never()).deleteById(99L);
     }
 
+    private static Book book(Long id, String title, int stock) {
+        Book b = new Book();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor("Author");
+        b.setPrice(new BigDecimal("20.00"));
+        b.setStock(stock);
+        return b;
+    }
 }
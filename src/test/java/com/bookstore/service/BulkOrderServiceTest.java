@@ -0,0 +1,137 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.order.BulkOrderResult;
+import com.bookstore.dto.order.BulkOrderResult.Status;
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.orders.bulk.chunk-size=4")
+@ActiveProfiles("test")
+public class BulkOrderServiceTest {
+
+    @Autowired
+    BulkOrderService bulkOrderService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Long scarce;
+    private Long plenty;
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        user = fixture.buyer("bulk-buyer");
+        scarce = fixture.book("bulk-1", "Scarce", "10.00", 5);
+        plenty = fixture.book("bulk-2", "Plenty", "10.00", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void ordersSucceedOrFailOnTheirOwn_inSubmissionOrder() {
+        List<CreateOrderRequest> orders = new ArrayList<>();
+        for (int i = 0; i < 7; i++) orders.add(order(scarce, 1, plenty, 2));
+        orders.add(new CreateOrderRequest());
+        orders.add(order(-1L, 1, plenty, 1));
+        orders.add(order(plenty, 3, plenty, 3));
+
+        List<BulkOrderResult> results = place(orders.iterator());
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9),
+                results.stream().map(BulkOrderResult::getIndex).collect(Collectors.toList()));
+        assertEquals(List.of(Status.CREATED, Status.CREATED, Status.CREATED, Status.CREATED, Status.CREATED,
+                        Status.OUT_OF_STOCK, Status.OUT_OF_STOCK, Status.INVALID, Status.INVALID, Status.CREATED),
+                results.stream().map(BulkOrderResult::getStatus).collect(Collectors.toList()));
+        assertEquals(new BigDecimal("30.00"), results.get(0).getTotalAmount());
+        assertEquals(0, (int) bookRepository.findById(scarce).get().getStock());
+        // five orders of 2 and one of 6; the rejected ones gave their copies back
+        assertEquals(84, (int) bookRepository.findById(plenty).get().getStock());
+        assertEquals(6, (int) count("SELECT COUNT(*) FROM orders WHERE user_id = ?"));
+    }
+
+    @Test
+    void unreadableInputStopsIntake_afterPlacingWhatWasRead() {
+        Iterator<CreateOrderRequest> broken = new Iterator<>() {
+            int n;
+
+            @Override
+            public boolean hasNext() {
+                if (n == 2) throw new IllegalStateException("bad token");
+                return true;
+            }
+
+            @Override
+            public CreateOrderRequest next() {
+                if (n++ > 2) throw new NoSuchElementException();
+                return order(plenty, 1, plenty, 1);
+            }
+        };
+        List<BulkOrderResult> results = place(broken);
+        assertEquals(3, results.size());
+        assertEquals(Status.CREATED, results.get(1).getStatus());
+        assertEquals(Status.INVALID, results.get(2).getStatus());
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals(96, (int) bookRepository.findById(plenty).get().getStock());
+    }
+
+    @Test
+    void unknownUserIsRejectedBeforeAnything() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkOrderService.placeOrders("nobody-bulk", List.of(order(plenty, 1, plenty, 1)).iterator(), r -> fail("no results")));
+    }
+
+    private List<BulkOrderResult> place(Iterator<CreateOrderRequest> orders) {
+        List<BulkOrderResult> results = new ArrayList<>();
+        bulkOrderService.placeOrders("bulk-buyer", orders, results::addAll);
+        return results;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class, user.getId());
+    }
+
+    private static CreateOrderRequest order(Long first, int firstQty, Long second, int secondQty) {
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(List.of(item(first, firstQty), item(second, secondQty)));
+        return req;
+    }
+
+    private static OrderItemRequest item(Long bookId, int quantity) {
+        OrderItemRequest it = new OrderItemRequest();
+        it.setBookId(bookId);
+        it.setQuantity(quantity);
+        return it;
+    }
+}
@@ -0,0 +1,149 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.support.OrderFixture;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Orders per second through {@code POST /api/orders}, one call per order as institutional buyers used to
+ * send them, against the same orders in one {@code POST /api/orders/bulk}. Both run over HTTP in one
+ * logged-in session, after a warm-up round each. Not part of the regular build; run with
+ * {@code mvn -Dtest=BulkOrderThroughputIT test}, ideally against MySQL.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class BulkOrderThroughputIT {
+
+    private static final int WARM_UP = 100;
+    private static final int ORDERS = 1000;
+    private static final String PASSWORD = "pw12345";
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private String baseUrl;
+    private User user;
+    private final List<Long> bookIds = new ArrayList<>();
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        user = fixture.buyer("throughput-buyer");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user = userRepository.save(user);
+        for (int i = 0; i < 3; i++) bookIds.add(fixture.book("throughput-" + i, "Throughput " + i, "10.00", 1_000_000));
+
+        ResponseEntity<String> login = restTemplate.postForEntity(baseUrl + "/auth/login",
+                Map.of("username", user.getUsername(), "password", PASSWORD), String.class);
+        assertEquals(HttpStatus.OK, login.getStatusCode());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_outbox WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", user.getId());
+        fixture.cleanUp();
+    }
+
+    @Test
+    void bulkIntakeVersusOneCallPerOrder() throws Exception {
+        single(WARM_UP);
+        bulk(WARM_UP);
+
+        double single = single(ORDERS);
+        double bulk = bulk(ORDERS);
+        System.out.println("orders  single ops/s  bulk ops/s  ratio");
+        System.out.printf("%6d  %12.0f  %10.0f  %5.1f%n", ORDERS, single, bulk, bulk / single);
+        // the target the bulk endpoint was built for
+        assertTrue(bulk >= 10 * single, "bulk intake should sustain 10x the single endpoint");
+    }
+
+    private double single(int n) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        List<CreateOrderRequest> orders = orders(n);
+        long began = System.nanoTime();
+        for (CreateOrderRequest order : orders) {
+            ResponseEntity<String> resp = restTemplate.postForEntity(baseUrl + "/orders", new HttpEntity<>(order, headers), String.class);
+            assertEquals(HttpStatus.CREATED, resp.getStatusCode());
+        }
+        return n / ((System.nanoTime() - began) / 1e9);
+    }
+
+    private double bulk(int n) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = mapper.writeValueAsString(orders(n));
+        long began = System.nanoTime();
+        ResponseEntity<String> resp = restTemplate.postForEntity(baseUrl + "/orders/bulk", new HttpEntity<>(body, headers), String.class);
+        double seconds = (System.nanoTime() - began) / 1e9;
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        JsonNode results = mapper.readTree(resp.getBody());
+        assertEquals(n, results.size());
+        for (JsonNode r : results) assertEquals("CREATED", r.get("status").asText());
+        return n / seconds;
+    }
+
+    // one copy of every book per order, like the buyers' typical line items
+    private List<CreateOrderRequest> orders(int n) {
+        List<CreateOrderRequest> orders = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            List<OrderItemRequest> items = new ArrayList<>();
+            for (Long id : bookIds) {
+                OrderItemRequest it = new OrderItemRequest();
+                it.setBookId(id);
+                it.setQuantity(1);
+                items.add(it);
+            }
+            CreateOrderRequest req = new CreateOrderRequest();
+            req.setItems(items);
+            orders.add(req);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bookstore.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local SMTP server for tests: plain text, no AUTH, accepts every message except those for
+ * {@link #refuse refused} recipients, and counts connections so tests can see sessions being reused.
+ */
+class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final ExecutorService threads = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fake-smtp");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final List<Socket> open = new CopyOnWriteArrayList<>();
+    private final Set<String> refused = new CopyOnWriteArraySet<>();
+
+    FakeSmtpServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        threads.execute(this::acceptLoop);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    List<String> messages() {
+        return messages;
+    }
+
+    void refuse(String address) {
+        refused.add(address.toLowerCase(Locale.ROOT));
+    }
+
+    /** Closes every open session from the server side, as an idle timeout would. */
+    void dropConnections() throws IOException {
+        for (Socket s : open) s.close();
+        open.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        dropConnections();
+        threads.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket s = server.accept();
+                connections.incrementAndGet();
+                open.add(s);
+                threads.execute(() -> session(s));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket s) {
+        try (Socket socket = s) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = socket.getOutputStream();
+            reply(out, "220 localhost fake smtp");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmd = line.toUpperCase(Locale.ROOT);
+                if (cmd.startsWith("EHLO")) {
+                    reply(out, "250-localhost\r\n250 8BITMIME");
+                } else if (cmd.startsWith("RCPT TO:")) {
+                    String to = line.substring(8).replaceAll("[<>\\s]", "").toLowerCase(Locale.ROOT);
+                    reply(out, refused.contains(to) ? "550 no such user" : "250 OK");
+                } else if (cmd.equals("DATA")) {
+                    reply(out, "354 end with <CRLF>.<CRLF>");
+                    StringBuilder msg = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        msg.append(line.startsWith("..") ? line.substring(1) : line).append("\n");
+                    }
+                    messages.add(msg.toString());
+                    reply(out, "250 OK queued");
+                } else if (cmd.equals("QUIT")) {
+                    reply(out, "221 bye");
+                    return;
+                } else if (cmd.startsWith("HELO") || cmd.startsWith("MAIL FROM:") || cmd.equals("RSET") || cmd.equals("NOOP")) {
+                    reply(out, "250 OK");
+                } else {
+                    reply(out, "502 not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // dropped by the test or the client
+        } finally {
+            open.remove(s);
+        }
+    }
+
+    private static void reply(OutputStream out, String text) throws IOException {
+        out.write((text + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,101 @@
+package com.bookstore.service;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every statement executed through the application's {@link DataSource}, whether Hibernate or a
+ * {@code JdbcTemplate} sent it. Unlike {@link SqlStatementCounter} it sees the JDBC batches of the stock
+ * repositories; a batch counts once, when it is executed. Register with {@code @Import}; counts only
+ * cover statements run on the calling thread, so background workers do not leak into them.
+ */
+public class JdbcStatementCounter implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch");
+
+    private static final List<Executed> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) return bean;
+        return proxy(bean, ClassUtils.getAllInterfaces(bean), (method, args, result) ->
+                result instanceof Connection ? connection((Connection) result) : result);
+    }
+
+    public static void reset() {
+        statements.clear();
+    }
+
+    /** Statements this thread executed that start with {@code verb} (select, update, ...) and touch {@code table}. */
+    public static long count(String verb, String table) {
+        Thread current = Thread.currentThread();
+        return statements.stream()
+                .filter(e -> e.thread == current)
+                .map(e -> e.sql)
+                .filter(s -> s.startsWith(verb))
+                .filter(s -> s.contains(" " + table + " ") || s.endsWith(" " + table))
+                .count();
+    }
+
+    private static Connection connection(Connection target) {
+        return (Connection) proxy(target, new Class<?>[] { Connection.class }, (method, args, result) -> {
+            if (result instanceof PreparedStatement && method.getName().startsWith("prepare")) {
+                return statement((Statement) result, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement && method.getName().equals("createStatement")) {
+                return statement((Statement) result, Statement.class, null);
+            }
+            return result;
+        });
+    }
+
+    private static Object statement(Statement target, Class<?> type, String prepared) {
+        return proxy(target, new Class<?>[] { type }, (method, args, result) -> {
+            if (EXECUTE.contains(method.getName())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : prepared;
+                if (sql != null) {
+                    statements.add(new Executed(sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim()));
+                }
+            }
+            return result;
+        });
+    }
+
+    private static Object proxy(Object target, Class<?>[] types, Wrapper wrapper) {
+        InvocationHandler handler = (p, method, args) -> {
+            try {
+                return wrapper.wrap(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return Proxy.newProxyInstance(JdbcStatementCounter.class.getClassLoader(), types, handler);
+    }
+
+    private interface Wrapper {
+        Object wrap(Method method, Object[] args, Object result) throws Exception;
+    }
+
+    private static final class Executed {
+        final Thread thread = Thread.currentThread();
+        final String sql;
+
+        Executed(String sql) {
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderDto;
+import com.bookstore.dto.order.OrderHistoryFilter;
+import com.bookstore.dto.order.OrderItemDto;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// same properties as OrderServiceBatchTest, so the two share a context
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bookstore.service.SqlStatementCounter")
+@ActiveProfiles("test")
+public class OrderFetchPlanTest {
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private final List<Long> bookIds = new ArrayList<>();
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        fixture.buyer("plan-buyer");
+        for (int i = 0; i < 3; i++) bookIds.add(fixture.book("plan-" + i, "Plan " + i, "10.00", 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void readViewsHydrateNoEntities() {
+        placeOrders(3);
+        SqlStatementCounter.reset();
+        List<OrderDto> mine = history("plan-buyer");
+        CursorPage<OrderDto> page = orderService.listByCursor(null, "updated", 2, false);
+        orderService.findByIdForUser(mine.get(0).getId(), "plan-buyer").get();
+
+        // every read above is a plain JDBC query, Hibernate prepares nothing
+        assertEquals(0L, SqlStatementCounter.count("select"));
+        assertEquals(3, mine.size());
+        assertTrue(mine.stream().allMatch(o -> o.getItems().size() == 3 && "plan-buyer".equals(o.getUsername())));
+        // the limit counts orders, not joined item rows
+        assertEquals(2, page.getContent().size());
+        assertNotNull(page.getNext());
+        assertTrue(orderService.findByIdForUser(mine.get(0).getId(), "someone-else").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> history("no-such-buyer"));
+    }
+
+    @Test
+    void readModelMatchesTheEntityMapping() {
+        placeOrders(1);
+        OrderDto view = history("plan-buyer").get(0);
+        OrderDto mapped = tx.execute(s -> orderService.toDto(orderRepository.findWithItemsById(view.getId()).get()));
+
+        assertEquals(mapped.getUsername(), view.getUsername());
+        assertEquals(0, mapped.getTotalAmount().compareTo(view.getTotalAmount()));
+        assertEquals(mapped.getOrderStatus(), view.getOrderStatus());
+        assertEquals(mapped.getPaymentStatus(), view.getPaymentStatus());
+        assertEquals(mapped.getCreatedAt(), view.getCreatedAt());
+        assertEquals(mapped.getEmailed(), view.getEmailed());
+        assertEquals(mapped.getItems().size(), view.getItems().size());
+        for (int i = 0; i < view.getItems().size(); i++) {
+            OrderItemDto a = mapped.getItems().get(i);
+            OrderItemDto b = view.getItems().get(i);
+            assertEquals(a.getId(), b.getId());
+            assertEquals(a.getBookId(), b.getBookId());
+            assertEquals(a.getTitle(), b.getTitle());
+            assertEquals(a.getQuantity(), b.getQuantity());
+            assertEquals(0, a.getSubtotal().compareTo(b.getSubtotal()));
+            assertEquals(a.getItemType(), b.getItemType());
+        }
+    }
+
+    @Test
+    void adminDetailLoadsInOneStatement() {
+        placeOrders(1);
+        Long id = history("plan-buyer").get(0).getId();
+        SqlStatementCounter.reset();
+        OrderDto dto = tx.execute(s -> orderService.toDto(orderRepository.findWithItemsById(id).get()));
+        assertEquals(1L, SqlStatementCounter.count("select"));
+        assertEquals(3, dto.getItems().size());
+        assertTrue(dto.getItems().stream().anyMatch(it -> "Plan 0".equals(it.getTitle())));
+    }
+
+    private List<OrderDto> history(String username) {
+        return orderService.historyForUser(username, OrderHistoryFilter.parse(null, null, null), null, null).getContent();
+    }
+
+    private void placeOrders(int n) {
+        for (int i = 0; i < n; i++) {
+            CreateOrderRequest req = new CreateOrderRequest();
+            List<OrderItemRequest> items = new ArrayList<>();
+            for (Long id : bookIds) {
+                OrderItemRequest it = new OrderItemRequest();
+                it.setBookId(id);
+                it.setQuantity(1);
+                items.add(it);
+            }
+            req.setItems(items);
+            orderService.placeOrder("plan-buyer", req);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderDto;
+import com.bookstore.dto.order.OrderHistoryFilter;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.model.OrderStatus;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class OrderHistoryTest {
+
+    private static final Instant DAY_ONE = Instant.parse("2024-03-01T12:00:00Z");
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private Long bookId;
+    private OrderFixture fixture;
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        fixture.buyer("history-buyer");
+        bookId = fixture.book("history-1", "History", "10.00", 100);
+        // one order a day over five days; the last two share a timestamp so the id breaks the tie
+        for (int day = 0; day < 5; day++) {
+            Long id = place();
+            Instant created = DAY_ONE.plusSeconds(86_400L * Math.min(day, 3));
+            jdbcTemplate.update("UPDATE orders SET created_at = ?, order_status = ? WHERE id = ?",
+                    Timestamp.from(created), day % 2 == 0 ? "PENDING" : "COMPLETED", id);
+            orderIds.add(id);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void pagesWalkNewestFirst() {
+        CursorPage<OrderDto> first = orderService.historyForUser("history-buyer", OrderHistoryFilter.NONE, null, 2);
+        CursorPage<OrderDto> second = orderService.historyForUser("history-buyer", OrderHistoryFilter.NONE, first.getNext(), 2);
+        CursorPage<OrderDto> third = orderService.historyForUser("history-buyer", OrderHistoryFilter.NONE, second.getNext(), 2);
+
+        assertEquals(List.of(orderIds.get(4), orderIds.get(3)), ids(first));
+        assertEquals(List.of(orderIds.get(2), orderIds.get(1)), ids(second));
+        assertEquals(List.of(orderIds.get(0)), ids(third));
+        assertNull(third.getNext());
+        assertEquals(1, first.getContent().get(0).getItems().size());
+    }
+
+    @Test
+    void statusAndDatesFilter() {
+        OrderHistoryFilter completed = new OrderHistoryFilter(OrderStatus.COMPLETED, null, null);
+        assertEquals(List.of(orderIds.get(3), orderIds.get(1)), ids(orderService.historyForUser("history-buyer", completed, null, 10)));
+
+        OrderHistoryFilter days = OrderHistoryFilter.parse(null, "2024-03-02", "2024-03-03");
+        assertEquals(List.of(orderIds.get(2), orderIds.get(1)), ids(orderService.historyForUser("history-buyer", days, null, 10)));
+    }
+
+    @Test
+    void badParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderHistoryFilter.parse("shipped", null, null));
+        assertThrows(IllegalArgumentException.class, () -> OrderHistoryFilter.parse(null, "yesterday", null));
+        assertThrows(IllegalArgumentException.class, () -> OrderHistoryFilter.parse(null, "2024-03-03", "2024-03-02"));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.historyForUser("no-such-buyer", OrderHistoryFilter.NONE, null, 10));
+    }
+
+    private static List<Long> ids(CursorPage<OrderDto> page) {
+        return page.getContent().stream().map(OrderDto::getId).collect(Collectors.toList());
+    }
+
+    private Long place() {
+        OrderItemRequest it = new OrderItemRequest();
+        it.setBookId(bookId);
+        it.setQuantity(1);
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(List.of(it));
+        return orderService.placeOrder("history-buyer", req).getId();
+    }
+}
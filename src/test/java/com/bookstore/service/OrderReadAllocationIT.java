@@ -0,0 +1,117 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.order.OrderDto;
+import com.bookstore.dto.order.OrderHistoryFilter;
+import com.bookstore.model.Order;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes allocated per "my orders" request: managed entities fetched with a join-fetch and copied by
+ * {@link OrderService#toDto} against the flat JDBC read model. Measured with the JVM's per-thread
+ * allocation counter. Not part of the regular build; run with {@code mvn -Dtest=OrderReadAllocationIT test}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class OrderReadAllocationIT {
+
+    private static final int ORDERS = 200;
+    private static final int ITEMS = 3;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final List<Long> bookIds = new ArrayList<>();
+    private User user;
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        user = fixture.buyer("alloc-buyer");
+        for (int i = 0; i < ITEMS; i++) bookIds.add(fixture.book("alloc-" + i, "Alloc " + i, "10.00", 0));
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int n = 0; n < ORDERS; n++) {
+            jdbcTemplate.update("INSERT INTO orders (user_id, total_amount, payment_status, order_status, created_at, updated_at, version)"
+                    + " VALUES (?, 30.00, 'PENDING', 'PENDING', ?, ?, 0)", user.getId(), now, now);
+            Long orderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders WHERE user_id = ?", Long.class, user.getId());
+            for (Long bookId : bookIds) {
+                jdbcTemplate.update("INSERT INTO order_items (order_id, book_id, quantity, item_type, unit_price, subtotal, created_at, updated_at, version)"
+                        + " VALUES (?, ?, 1, 'BUY', 10.00, 10.00, ?, ?, 0)", orderId, bookId, now, now);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void readModelAllocatesLessThanEntities() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        Supplier<List<OrderDto>> entities = () -> tx.execute(s -> em.createQuery(
+                        "select distinct o from Order o join fetch o.user left join fetch o.items i left join fetch i.book"
+                                + " where o.user.username = :username order by o.id", Order.class)
+                .setParameter("username", "alloc-buyer")
+                .getResultList().stream().map(orderService::toDto).collect(Collectors.toList()));
+        Supplier<List<OrderDto>> readModel = () -> orderService.historyForUser("alloc-buyer",
+                OrderHistoryFilter.parse(null, null, null), null, ORDERS).getContent();
+
+        assertEquals(ORDERS, entities.get().size());
+        assertEquals(ORDERS, readModel.get().size());
+        long before = bytesPerRequest(entities);
+        long after = bytesPerRequest(readModel);
+        System.out.printf("bytes per request for %d orders x %d items: entities %,d, read model %,d%n", ORDERS, ITEMS, before, after);
+        assertTrue(after < before);
+    }
+
+    private static long bytesPerRequest(Supplier<List<OrderDto>> request) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < ROUNDS; i++) request.get();
+        long start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ROUNDS; i++) request.get();
+        return (threads.getThreadAllocatedBytes(id) - start) / ROUNDS;
+    }
+}
@@ -0,0 +1,147 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.order.CreateOrderRequest;
+import com.bookstore.dto.order.OrderItemRequest;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import com.bookstore.support.OrderFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(JdbcStatementCounter.class)
+public class OrderServiceBatchTest {
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final List<Long> bookIds = new ArrayList<>();
+    private OrderFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new OrderFixture(userRepository, bookRepository, jdbcTemplate);
+        fixture.buyer("batch-buyer");
+        for (int i = 0; i < 8; i++) bookIds.add(fixture.book("batch-" + i, "Batch " + i, "10.00", 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void bookStatementsDoNotGrowWithTheNumberOfItems() {
+        JdbcStatementCounter.reset();
+        orderService.placeOrder("batch-buyer", order(bookIds.subList(0, 1)));
+        long selectsForOne = JdbcStatementCounter.count("select", "books");
+        long updatesForOne = JdbcStatementCounter.count("update", "books");
+
+        JdbcStatementCounter.reset();
+        List<Long> many = new ArrayList<>(bookIds);
+        many.add(bookIds.get(0)); // a book on two lines is still one row to load and update
+        orderService.placeOrder("batch-buyer", order(many));
+
+        assertEquals(1L, selectsForOne);
+        // stock is taken by BookRepository.reserveStock's one JDBC batch, never by flushing a Book entity
+        assertEquals(1L, updatesForOne);
+        assertEquals(selectsForOne, JdbcStatementCounter.count("select", "books"));
+        assertEquals(updatesForOne, JdbcStatementCounter.count("update", "books"));
+        assertEquals(3, (int) bookRepository.findById(bookIds.get(0)).get().getStock());
+        assertEquals(4, (int) bookRepository.findById(bookIds.get(7)).get().getStock());
+    }
+
+    @Test
+    void insufficientStockIsCheckedOverAllLinesOfABook() {
+        OrderItemRequest a = item(bookIds.get(0), 3);
+        OrderItemRequest b = item(bookIds.get(0), 3);
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(List.of(a, b, item(bookIds.get(1), 1)));
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> orderService.placeOrder("batch-buyer", req));
+        assertEquals(bookIds.get(0), e.getBookId());
+        assertEquals(5, (int) bookRepository.findById(bookIds.get(0)).get().getStock());
+        assertEquals(5, (int) bookRepository.findById(bookIds.get(1)).get().getStock());
+    }
+
+    @Test
+    void unknownBookIsABadRequest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.placeOrder("batch-buyer", order(List.of(bookIds.get(0), -1L))));
+        assertEquals(5, (int) bookRepository.findById(bookIds.get(0)).get().getStock());
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        Long bookId = bookIds.get(2);
+        int buyers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder("batch-buyer", order(List.of(bookId)));
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        // any other exception (optimistic lock, deadlock) fails the test here
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(5, sold.get());
+        assertEquals(buyers - 5, refused.get());
+        assertEquals(0, (int) bookRepository.findById(bookId).get().getStock());
+    }
+
+    private static CreateOrderRequest order(List<Long> ids) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (Long id : ids) items.add(item(id, 1));
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setItems(items);
+        return req;
+    }
+
+    private static OrderItemRequest item(Long bookId, int qty) {
+        OrderItemRequest it = new OrderItemRequest();
+        it.setBookId(bookId);
+        it.setQuantity(qty);
+        return it;
+    }
+}
@@ -0,0 +1,126 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmtpEmailServiceTest {
+
+    private FakeSmtpServer smtp;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pool != null) pool.close();
+        smtp.close();
+    }
+
+    @Test
+    void batchesShareOnePooledConnection() {
+        SmtpEmailService mail = service(1, 100);
+        assertTrue(mail.sendOrderConfirmations(orders(1, 5)).isEmpty());
+        mail.sendOrderConfirmation(order(6, "buyer6@example.com"));
+
+        assertEquals(1, smtp.connections());
+        assertEquals(6, smtp.messages().size());
+        assertTrue(smtp.messages().get(0).contains("Subject: Order Confirmation #1"));
+    }
+
+    @Test
+    void connectionsAreReplacedAfterMaxMessages() {
+        SmtpEmailService mail = service(1, 2);
+        assertTrue(mail.sendOrderConfirmations(orders(1, 5)).isEmpty());
+        mail.sendOrderConfirmation(order(6, "buyer6@example.com"));
+
+        assertEquals(6, smtp.messages().size());
+        // 2 + 2 + 1 in the batch, then the single send finds the 1-message connection in the pool
+        assertEquals(3, smtp.connections());
+    }
+
+    @Test
+    void aConnectionDroppedByTheServerIsReplacedWithoutLosingTheMessage() throws Exception {
+        SmtpEmailService mail = service(1, 100);
+        mail.sendOrderConfirmation(order(1, "buyer1@example.com"));
+        smtp.dropConnections();
+
+        assertTrue(mail.sendOrderConfirmations(orders(2, 3)).isEmpty());
+        assertEquals(2, smtp.connections());
+        assertEquals(4, smtp.messages().size());
+    }
+
+    @Test
+    void aRefusedRecipientFailsOnlyItsOwnMessage() {
+        smtp.refuse("buyer2@example.com");
+        SmtpEmailService mail = service(1, 100);
+
+        Map<Long, RuntimeException> failures = mail.sendOrderConfirmations(orders(1, 3));
+        assertEquals(List.of(2L), new ArrayList<>(failures.keySet()));
+        assertEquals(2, smtp.messages().size());
+        assertEquals(1, smtp.connections());
+    }
+
+    @Test
+    void anUnreachableServerFailsTheBatchAfterOneRetry() throws Exception {
+        SmtpEmailService mail = service(1, 100);
+        smtp.close();
+
+        Map<Long, RuntimeException> failures = mail.sendOrderConfirmations(orders(1, 4));
+        assertEquals(List.of(1L, 2L, 3L, 4L), new ArrayList<>(failures.keySet()));
+        assertThrows(RuntimeException.class, () -> mail.sendOrderConfirmation(order(5, "buyer5@example.com")));
+    }
+
+    private SmtpEmailService service(int poolSize, int maxMessages) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(smtp.port());
+        Properties props = new Properties();
+        props.setProperty("mail.smtp.connectiontimeout", "2000");
+        props.setProperty("mail.smtp.timeout", "2000");
+        sender.setJavaMailProperties(props);
+        pool = new SmtpTransportPool(sender, poolSize, maxMessages, 30);
+        return new SmtpEmailService(sender, pool, "shop@example.com", "");
+    }
+
+    private static List<Order> orders(long firstId, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) orders.add(order(id, "buyer" + id + "@example.com"));
+        return orders;
+    }
+
+    private static Order order(long id, String email) {
+        User user = new User();
+        user.setUsername("buyer" + id);
+        user.setEmail(email);
+        Book book = new Book();
+        book.setTitle("Book " + id);
+        book.setPrice(new BigDecimal("10.00"));
+        OrderItem item = new OrderItem();
+        item.setBook(book);
+        item.setQuantity(1);
+        item.setUnitPrice(new BigDecimal("10.00"));
+        Order order = new Order();
+        order.setUser(user);
+        order.addItem(item);
+        ReflectionTestUtils.setField(order, "id", id);
+        return order;
+    }
+}
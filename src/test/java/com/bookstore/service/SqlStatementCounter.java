@@ -0,0 +1,40 @@
+package com.bookstore.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every statement Hibernate prepares. Registered through
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}; a batched statement is
+ * prepared once per batch, so it shows up once however many rows it carries.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim());
+        return sql;
+    }
+
+    public static void reset() {
+        statements.clear();
+    }
+
+    /** Statements starting with {@code verb} (select, update, ...). */
+    public static long count(String verb) {
+        return statements.stream().filter(s -> s.startsWith(verb)).count();
+    }
+
+    /** Statements starting with {@code verb} (select, update, ...) that touch {@code table}. */
+    public static long count(String verb, String table) {
+        return statements.stream()
+                .filter(s -> s.startsWith(verb))
+                .filter(s -> s.contains(" " + table + " ") || s.endsWith(" " + table))
+                .count();
+    }
+}
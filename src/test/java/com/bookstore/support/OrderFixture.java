@@ -0,0 +1,68 @@
+package com.bookstore.support;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.User;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buyers and books for tests that place orders against the shared test database. Everything it creates,
+ * including the orders, order items and email audit rows of its buyers, goes away in {@link #cleanUp()}.
+ */
+public final class OrderFixture {
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<User> buyers = new ArrayList<>();
+    private final List<Long> bookIds = new ArrayList<>();
+
+    public OrderFixture(UserRepository userRepository, BookRepository bookRepository, JdbcTemplate jdbcTemplate) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** A ROLE_USER account named {@code username}, with email {@code username@example.com}. */
+    public User buyer(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("x");
+        user.setRoles("ROLE_USER");
+        user = userRepository.save(user);
+        buyers.add(user);
+        return user;
+    }
+
+    /** Saves a book and returns its id. */
+    public Long book(String isbn, String title, String price, int stock) {
+        Book b = new Book();
+        b.setTitle(title);
+        b.setAuthor("Author");
+        b.setIsbn(isbn);
+        b.setPrice(new BigDecimal(price));
+        b.setStock(stock);
+        Long id = bookRepository.save(b).getId();
+        bookIds.add(id);
+        return id;
+    }
+
+    /** Deletes the buyers' orders with their items and email attempts, then the books and the buyers. */
+    public void cleanUp() {
+        for (User user : buyers) {
+            jdbcTemplate.update("DELETE FROM order_emails WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", user.getId());
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", user.getId());
+            jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", user.getId());
+        }
+        bookRepository.deleteAllById(bookIds);
+        userRepository.deleteAll(buyers);
+        bookIds.clear();
+        buyers.clear();
+    }
+}
@@ -7,7 +7,7 @@ CREATE TABLE IF NOT EXISTS users (
   roles VARCHAR(255),
   enabled BOOLEAN,
   created_at TIMESTAMP,
-  updated_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL,
   version BIGINT
 );
 
@@ -20,10 +20,15 @@ CREATE TABLE IF NOT EXISTS books (
   price DECIMAL(10,2) NOT NULL,
   stock INT DEFAULT 0,
   created_at TIMESTAMP,
-  updated_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL,
   version INT DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS idx_books_title ON books (title);
+CREATE INDEX IF NOT EXISTS idx_books_author ON books (author);
+CREATE INDEX IF NOT EXISTS idx_books_updated_id ON books (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_users_updated_id ON users (updated_at, id);
+
 CREATE TABLE IF NOT EXISTS orders (
   id BIGINT AUTO_INCREMENT PRIMARY KEY,
   user_id BIGINT,
@@ -31,11 +36,16 @@ CREATE TABLE IF NOT EXISTS orders (
   payment_status VARCHAR(50),
   order_status VARCHAR(50),
   created_at TIMESTAMP,
-  updated_at TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL,
   version BIGINT,
+  emailed BOOLEAN DEFAULT FALSE NOT NULL,
   CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_orders_updated_id ON orders (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_user_created_id ON orders (user_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_emailed_id ON orders (emailed, id);
+
 CREATE TABLE IF NOT EXISTS order_items (
   id BIGINT AUTO_INCREMENT PRIMARY KEY,
   order_id BIGINT,
@@ -51,3 +61,59 @@ CREATE TABLE IF NOT EXISTS order_items (
   CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders(id),
   CONSTRAINT fk_order_items_book FOREIGN KEY (book_id) REFERENCES books(id)
 );
+
+CREATE TABLE IF NOT EXISTS order_emails (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  order_id BIGINT NOT NULL,
+  success BOOLEAN NOT NULL,
+  provider VARCHAR(50),
+  error_message VARCHAR(1000),
+  sent_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS stock_journal (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  book_id BIGINT NOT NULL,
+  quantity INT NOT NULL,
+  created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_journal_book ON stock_journal (book_id);
+
+CREATE TABLE IF NOT EXISTS stock_holds (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  book_id BIGINT NOT NULL,
+  quantity INT NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_holds_expires ON stock_holds (expires_at);
+CREATE INDEX IF NOT EXISTS idx_stock_holds_user_book ON stock_holds (user_id, book_id);
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  order_id BIGINT NOT NULL,
+  event_type VARCHAR(50) NOT NULL,
+  attempts INT DEFAULT 0 NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  available_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_outbox_available ON order_outbox (available_at, id);
+CREATE INDEX IF NOT EXISTS idx_order_outbox_order ON order_outbox (order_id);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  username VARCHAR(100) NOT NULL,
+  idem_key VARCHAR(100) NOT NULL,
+  request_hash CHAR(64) NOT NULL,
+  status_code INT DEFAULT 0 NOT NULL,
+  content_type VARCHAR(100),
+  response_body CLOB,
+  created_at TIMESTAMP NOT NULL,
+  expires_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (username, idem_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys (expires_at);